@@ -0,0 +1,13 @@
+-- Composite indexes matching the keyset (cursor) pagination sort orders,
+-- so each page is an index range scan instead of a full sort
+
+CREATE INDEX IF NOT EXISTS idx_assignments_due_date_id ON assignments(due_date DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_queries_created_at_id ON queries(created_at DESC, id DESC) WHERE is_deleted = false;
+
+CREATE INDEX IF NOT EXISTS idx_late_submission_requests_requested_at_id ON late_submission_requests(requested_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_learning_materials_uploaded_at_id ON learning_materials(uploaded_at DESC, id DESC);
+
+-- Enrolled students page on (class_grade, user id)
+CREATE INDEX IF NOT EXISTS idx_student_profiles_class_grade_user_id ON student_profiles(class_grade, user_id);
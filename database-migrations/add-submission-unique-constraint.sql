@@ -0,0 +1,20 @@
+-- One submission per student per assignment.
+-- Submitting now relies on this constraint (INSERT ... ON CONFLICT DO NOTHING) instead of checking first.
+
+-- Remove duplicates left by the old check-then-insert race: keep the graded row if there is one,
+-- otherwise the earliest submission
+DELETE FROM assignment_submissions
+WHERE id IN (
+    SELECT id FROM (
+        SELECT id,
+               ROW_NUMBER() OVER (
+                   PARTITION BY assignment_id, student_id
+                   ORDER BY (status = 'GRADED') DESC, id
+               ) AS rn
+        FROM assignment_submissions
+    ) ranked
+    WHERE ranked.rn > 1
+);
+
+ALTER TABLE assignment_submissions
+    ADD CONSTRAINT uk_assignment_submissions_assignment_student UNIQUE (assignment_id, student_id);
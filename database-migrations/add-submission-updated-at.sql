@@ -0,0 +1,10 @@
+-- Track when a submission was last changed (submitted or graded) for incremental gradebook refresh
+ALTER TABLE assignment_submissions ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+-- Existing rows count as changed when they were submitted
+UPDATE assignment_submissions SET updated_at = submitted_at WHERE updated_at IS NULL;
+
+-- Gradebook reads every submission of a class's assignments
+CREATE INDEX IF NOT EXISTS idx_assignment_submissions_assignment_id ON assignment_submissions(assignment_id);
+
+COMMENT ON COLUMN assignment_submissions.updated_at IS 'Last submit or grade time, used by the gradebook since= refresh';
@@ -0,0 +1,14 @@
+-- Questions taken out of Groq-generated assignments, reused when teachers assemble new assignments
+CREATE TABLE IF NOT EXISTS bank_questions (
+    id BIGSERIAL PRIMARY KEY,
+    class_grade INTEGER NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    complexity VARCHAR(10) NOT NULL,
+    marks INTEGER NOT NULL,
+    text TEXT NOT NULL,
+    content_hash VARCHAR(64) NOT NULL UNIQUE,
+    created_at TIMESTAMP NOT NULL
+);
+
+COMMENT ON COLUMN bank_questions.topic IS 'Trimmed, lower case, single spaces';
+COMMENT ON COLUMN bank_questions.content_hash IS 'SHA-256 of class|topic|complexity|marks|question text, so each question is stored once';
@@ -0,0 +1,8 @@
+-- Persisted per-class / per-student version counters behind the ETag headers on the class list endpoints
+CREATE TABLE IF NOT EXISTS class_versions (
+    version_key VARCHAR(64) PRIMARY KEY,
+    version BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+COMMENT ON TABLE class_versions IS 'Last value of each in-memory ClassVersions counter, reloaded at startup so ETags never repeat';
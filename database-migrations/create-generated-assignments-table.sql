@@ -0,0 +1,14 @@
+-- Groq-generated assignments by normalized request, so repeating a request skips the Groq call
+CREATE TABLE IF NOT EXISTS generated_assignments (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    request_key TEXT NOT NULL,
+    content TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    last_used_at TIMESTAMP NOT NULL
+);
+
+-- The daily purge deletes entries older than ai-cache.max-age-days
+CREATE INDEX IF NOT EXISTS idx_generated_assignments_created_at ON generated_assignments (created_at);
+
+COMMENT ON COLUMN generated_assignments.cache_key IS 'SHA-256 of request_key';
+COMMENT ON COLUMN generated_assignments.request_key IS 'model|class|topic (trimmed, lower case)|complexity|1-mark|2-mark|3-mark|5-mark question counts';
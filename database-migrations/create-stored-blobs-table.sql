@@ -0,0 +1,16 @@
+-- Content-addressed uploads: one row per distinct file, keyed by the SHA-256 of its content
+CREATE TABLE IF NOT EXISTS stored_blobs (
+    sha256 VARCHAR(64) PRIMARY KEY,
+    object_key VARCHAR(512) NOT NULL,
+    url VARCHAR(1024) NOT NULL UNIQUE,
+    size_bytes BIGINT NOT NULL,
+    content_type VARCHAR(255),
+    ref_count INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+COMMENT ON COLUMN stored_blobs.ref_count IS 'Assignment, submission and learning material rows whose URL points at this blob';
+
+-- The orphan collector pages through unreferenced blobs in sha256 order
+CREATE INDEX IF NOT EXISTS idx_stored_blobs_unreferenced ON stored_blobs (sha256) WHERE ref_count = 0;
@@ -0,0 +1,51 @@
+import axios from './axios';
+
+// POSTs JSON and reads the text/event-stream response as it arrives, calling
+// onEvent(name, data) for each event with its data parsed as JSON. EventSource
+// can't be used here because it only sends GET requests without headers.
+export const postEventStream = async (path, body, onEvent, signal) => {
+  const token = localStorage.getItem('token');
+  const response = await fetch(`${axios.defaults.baseURL}${path}`, {
+    method: 'POST',
+    headers: {
+      'Content-Type': 'application/json',
+      Accept: 'text/event-stream',
+      ...(token ? { Authorization: `Bearer ${token}` } : {}),
+    },
+    body: JSON.stringify(body),
+    signal,
+  });
+  if (!response.ok || !response.body) {
+    let message = `Request failed with status ${response.status}`;
+    try {
+      const error = await response.json();
+      message = error.error || error.message || message;
+    } catch {
+      // Not JSON; keep the status message
+    }
+    throw new Error(message);
+  }
+
+  const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+  let buffer = '';
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) break;
+    buffer += value;
+    // Events are separated by a blank line
+    let boundary;
+    while ((boundary = buffer.search(/\r?\n\r?\n/)) !== -1) {
+      const raw = buffer.slice(0, boundary);
+      buffer = buffer.slice(boundary).replace(/^\r?\n\r?\n/, '');
+      let name = 'message';
+      const data = [];
+      raw.split(/\r?\n/).forEach((line) => {
+        if (line.startsWith('event:')) name = line.slice(6).trim();
+        else if (line.startsWith('data:')) data.push(line.slice(5).replace(/^ /, ''));
+      });
+      if (data.length > 0) {
+        onEvent(name, JSON.parse(data.join('\n')));
+      }
+    }
+  }
+};
@@ -0,0 +1,62 @@
+import axios from './axios';
+
+// 1MB chunks: small enough that a dropped mobile connection loses little, large enough
+// that a 10MB file is only ten requests
+const CHUNK_SIZE = 1024 * 1024;
+const MAX_RETRIES = 5;
+
+const wait = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
+// Where the server says the upload is; used after a failed or conflicting chunk
+const fetchOffset = async (id) => {
+  const response = await axios.get(`/uploads/${id}`);
+  return response.data.offset;
+};
+
+/**
+ * Uploads a file through /uploads in chunks and resolves to { url, filename }, like
+ * /assignments/upload-file. A chunk that fails on a network error or a 5xx is retried from
+ * the offset the server reports, with backoff, instead of restarting the whole file.
+ */
+export const resumableUpload = async (file, onProgress) => {
+  const { data: session } = await axios.post('/uploads', {
+    filename: file.name,
+    contentType: file.type,
+    size: file.size,
+  });
+
+  let offset = session.offset;
+  let retries = 0;
+  while (offset < file.size) {
+    try {
+      const response = await axios.put(`/uploads/${session.id}`, file.slice(offset, offset + CHUNK_SIZE), {
+        headers: {
+          'Content-Type': 'application/offset+octet-stream',
+          'Upload-Offset': String(offset),
+        },
+      });
+      offset = response.data.offset;
+      retries = 0;
+      onProgress?.(offset / file.size);
+    } catch (error) {
+      const status = error.response?.status;
+      if (status === 409) {
+        offset = Number(error.response.headers['upload-offset']);
+        continue;
+      }
+      if ((status && status < 500) || retries >= MAX_RETRIES) {
+        throw error;
+      }
+      retries += 1;
+      await wait(Math.min(1000 * 2 ** retries, 15000));
+      try {
+        offset = await fetchOffset(session.id);
+      } catch {
+        // Still offline; the next attempt retries from the last known offset
+      }
+    }
+  }
+
+  const { data } = await axios.post(`/uploads/${session.id}/complete`);
+  return data;
+};
@@ -2,6 +2,7 @@ import { useState, useEffect } from 'react';
 import { useNavigate, useParams } from 'react-router-dom';
 import { useAuth } from '../context/AuthContext';
 import axios from '../api/axios';
+import { resumableUpload } from '../api/resumableUpload';
 
 // Format date to IST timezone
 const formatToIST = (dateString) => {
@@ -30,7 +31,10 @@ const AssignmentDetail = () => {
   const [loading, setLoading] = useState(true);
   const [submitting, setSubmitting] = useState(false);
   const [selectedFile, setSelectedFile] = useState(null);
+  // Photos of handwritten pages; the server combines them into one PDF
+  const [selectedPhotos, setSelectedPhotos] = useState([]);
   const [uploading, setUploading] = useState(false);
+  const [downloadingArchive, setDownloadingArchive] = useState(false);
   const [formData, setFormData] = useState({
     submissionText: '',
     attachmentUrl: ''
@@ -87,12 +91,31 @@ const AssignmentDetail = () => {
   };
 
   const handleFileChange = (e) => {
-    const file = e.target.files[0];
+    const files = Array.from(e.target.files);
+    const photoTypes = ['image/jpeg', 'image/png', 'image/heic', 'image/heif'];
+    if (files.length > 0 && files.every((f) => photoTypes.includes(f.type))) {
+      if (files.length > 20) {
+        setMessage('Select at most 20 photos');
+        e.target.value = '';
+        return;
+      }
+      if (files.some((f) => f.size > 10 * 1024 * 1024)) {
+        setMessage('Each photo must be less than 10MB');
+        e.target.value = '';
+        return;
+      }
+      setSelectedPhotos(files);
+      setSelectedFile(null);
+      setMessage('');
+      return;
+    }
+
+    const file = files[0];
     if (file) {
       // Validate file type
       const validTypes = ['application/pdf', 'application/msword', 'application/vnd.openxmlformats-officedocument.wordprocessingml.document'];
       if (!validTypes.includes(file.type)) {
-        setMessage('Please select a PDF or Word document');
+        setMessage('Please select a PDF or Word document, or photos of your work');
         e.target.value = '';
         return;
       }
@@ -105,27 +128,40 @@ const AssignmentDetail = () => {
       }
       
       setSelectedFile(file);
+      setSelectedPhotos([]);
       setMessage('');
     }
   };
 
   const uploadFile = async () => {
-    if (!selectedFile) return null;
+    if (!selectedFile && selectedPhotos.length === 0) return null;
 
     setUploading(true);
-    const uploadFormData = new FormData();
-    uploadFormData.append('file', selectedFile);
-    uploadFormData.append('folder', 'submissions');
 
     try {
-      const response = await axios.post('/assignments/upload-file', uploadFormData, {
-        headers: {
-          'Content-Type': 'multipart/form-data',
-        },
+      if (selectedPhotos.length > 0) {
+        const data = new FormData();
+        selectedPhotos.forEach((photo) => data.append('files', photo));
+        data.append('folder', 'submissions');
+        const response = await axios.post('/assignments/upload-photos', data, {
+          headers: { 'Content-Type': 'multipart/form-data' },
+          onUploadProgress: (event) => {
+            if (event.total) {
+              setMessage(`Uploading photos... ${Math.round((event.loaded / event.total) * 100)}%`);
+            }
+          },
+        });
+        return response.data.url;
+      }
+
+
+      // Resumable, so a dropped mobile connection picks up where it stopped
+      const response = await resumableUpload(selectedFile, (progress) => {
+        setMessage(`Uploading file... ${Math.round(progress * 100)}%`);
       });
-      return response.data.url;
+      return response.url;
     } catch (error) {
-      throw new Error(error.response?.data?.error || 'Failed to upload file');
+      throw new Error(error.response?.data?.error || error.response?.data?.message || 'Failed to upload file');
     } finally {
       setUploading(false);
     }
@@ -135,7 +171,7 @@ const AssignmentDetail = () => {
     e.preventDefault();
     
     // Validate that at least one content field is provided
-    if (!formData.submissionText.trim() && !formData.attachmentUrl.trim() && !selectedFile) {
+    if (!formData.submissionText.trim() && !formData.attachmentUrl.trim() && !selectedFile && selectedPhotos.length === 0) {
       setMessage('Please provide either submission text, an attachment URL, or upload a file');
       return;
     }
@@ -146,7 +182,7 @@ const AssignmentDetail = () => {
     try {
       // Upload file if selected
       let fileUrl = formData.attachmentUrl;
-      if (selectedFile) {
+      if (selectedFile || selectedPhotos.length > 0) {
         setMessage('Uploading file...');
         fileUrl = await uploadFile();
       }
@@ -165,6 +201,25 @@ const AssignmentDetail = () => {
     }
   };
 
+  // Attachments plus a manifest.csv of marks and feedback, built by the server as it streams
+  const handleDownloadArchive = async () => {
+    setDownloadingArchive(true);
+    try {
+      const response = await axios.get(`/assignments/${id}/submissions/archive`, { responseType: 'blob' });
+      const filename = response.headers['content-disposition']?.match(/filename="?([^"]+)"?/)?.[1]
+        || `assignment-${id}-submissions.zip`;
+      const link = document.createElement('a');
+      link.href = URL.createObjectURL(response.data);
+      link.download = filename;
+      link.click();
+      URL.revokeObjectURL(link.href);
+    } catch {
+      setMessage('Failed to download submissions');
+    } finally {
+      setDownloadingArchive(false);
+    }
+  };
+
   const handleDelete = async () => {
     if (!window.confirm('Are you sure you want to delete this assignment?')) return;
 
@@ -515,7 +570,7 @@ const AssignmentDetail = () => {
                     onChange={handleChange}
                     placeholder="https://drive.google.com/..."
                     className="w-full px-3 py-2 border border-gray-300 rounded-md focus:outline-none focus:ring-2 focus:ring-indigo-500"
-                    disabled={selectedFile !== null}
+                    disabled={selectedFile !== null || selectedPhotos.length > 0}
                   />
                   <p className="text-xs text-gray-500 mt-1">
                     Add a link to your work (Google Drive, Dropbox, etc.)
@@ -532,26 +587,32 @@ const AssignmentDetail = () => {
                         <p className="mb-1 text-sm text-gray-500">
                           <span className="font-semibold">Click to upload</span> or drag and drop
                         </p>
-                        <p className="text-xs text-gray-500">PDF or Word document (Max 10MB)</p>
+                        <p className="text-xs text-gray-500">PDF or Word document, or photos of your pages (Max 10MB each)</p>
                         {selectedFile && (
                           <p className="mt-2 text-sm text-green-600 font-medium">
                             ✓ {selectedFile.name}
                           </p>
                         )}
+                        {selectedPhotos.length > 0 && (
+                          <p className="mt-2 text-sm text-green-600 font-medium">
+                            ✓ {selectedPhotos.length} photo{selectedPhotos.length > 1 ? 's' : ''} (combined into one PDF)
+                          </p>
+                        )}
                       </div>
                       <input
                         type="file"
                         className="hidden"
-                        accept=".pdf,.doc,.docx"
+                        accept=".pdf,.doc,.docx,image/jpeg,image/png,image/heic,image/heif"
+                        multiple
                         onChange={handleFileChange}
                         disabled={formData.attachmentUrl !== ''}
                       />
                     </label>
                   </div>
-                  {selectedFile && (
+                  {(selectedFile || selectedPhotos.length > 0) && (
                     <button
                       type="button"
-                      onClick={() => setSelectedFile(null)}
+                      onClick={() => { setSelectedFile(null); setSelectedPhotos([]); }}
                       className="absolute top-2 right-2 bg-red-500 text-white rounded-full p-1 hover:bg-red-600"
                     >
                       <svg className="w-4 h-4" fill="none" stroke="currentColor" viewBox="0 0 24 24">
@@ -579,9 +640,20 @@ const AssignmentDetail = () => {
         {/* Teacher View - Submissions */}
         {user.role === 'TEACHER' && (
           <div className="bg-white rounded-lg shadow-md p-6">
-            <h3 className="text-xl font-bold text-gray-800 mb-4">
-              Submissions ({submissions.length})
-            </h3>
+            <div className="flex flex-col md:flex-row md:items-center md:justify-between gap-3 mb-4">
+              <h3 className="text-xl font-bold text-gray-800">
+                Submissions ({submissions.length})
+              </h3>
+              {submissions.length > 0 && (
+                <button
+                  onClick={handleDownloadArchive}
+                  disabled={downloadingArchive}
+                  className="px-4 py-3 md:py-2 min-h-[44px] bg-indigo-600 text-white rounded-lg hover:bg-indigo-700 disabled:opacity-50"
+                >
+                  {downloadingArchive ? 'Preparing ZIP...' : 'Download all (ZIP)'}
+                </button>
+              )}
+            </div>
 
             {submissions.length === 0 ? (
               <p className="text-gray-600">No submissions yet</p>
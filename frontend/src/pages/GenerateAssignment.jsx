@@ -1,6 +1,7 @@
-import { useState } from 'react';
+import { useEffect, useRef, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
 import axios from '../api/axios';
+import { postEventStream } from '../api/eventStream';
 
 // Convert datetime-local input to IST ISO string
 const convertLocalDateTimeToISTISO = (datetimeLocalValue) => {
@@ -19,6 +20,13 @@ const GenerateAssignment = () => {
   const navigate = useNavigate();
   const [loading, setLoading] = useState(false);
   const [generatedContent, setGeneratedContent] = useState('');
+  const generation = useRef(null);
+  // Set when the server answered from an earlier generation of the same request
+  const [fromCache, setFromCache] = useState(false);
+  // Variants the server left out because they failed or ran out of time
+  const [missingVariants, setMissingVariants] = useState([]);
+  // Set after building from the question bank: { fromBank, generated } question counts
+  const [assembledFrom, setAssembledFrom] = useState(null);
   const [isEditing, setIsEditing] = useState(false);
   const [showPostModal, setShowPostModal] = useState(false);
   const [posting, setPosting] = useState(false);
@@ -34,20 +42,24 @@ const GenerateAssignment = () => {
     twoMarkQuestions: 0,
     threeMarkQuestions: 0,
     fiveMarkQuestions: 0,
-    complexity: 'MEDIUM'
+    complexity: 'MEDIUM',
+    variants: 1
   });
 
+  // Leaving the page stops the generation on the server too
+  useEffect(() => () => generation.current?.abort(), []);
+
   const handleChange = (e) => {
     const { name, value } = e.target;
     setFormData(prev => ({
       ...prev,
-      [name]: name.includes('Questions') || name === 'classGrade' 
+      [name]: name.includes('Questions') || name === 'classGrade' || name === 'variants'
         ? (value === '' ? 0 : parseInt(value)) 
         : value
     }));
   };
 
-  const handleGenerate = async (e) => {
+  const handleGenerate = async (e, regenerate = false) => {
     e.preventDefault();
     
     // Validate at least one question type is selected
@@ -60,11 +72,57 @@ const GenerateAssignment = () => {
     }
     
     setLoading(true);
+    setGeneratedContent('');
+    setFromCache(false);
+    setMissingVariants([]);
+    setAssembledFrom(null);
+    generation.current = new AbortController();
     try {
-      const response = await axios.post('/assignments/generate', formData);
+      // Text appears as the model writes it instead of after the whole assignment is done
+      const path = `/assignments/generate/stream${regenerate ? '?regenerate=true' : ''}`;
+      await postEventStream(path, formData, (event, data) => {
+        if (event === 'content') {
+          setGeneratedContent(prev => prev + data.text);
+        } else if (event === 'done') {
+          setFromCache(data.cached);
+          setMissingVariants(data.missingVariants || []);
+        } else if (event === 'error') {
+          throw new Error(data.error);
+        }
+      }, generation.current.signal);
+    } catch (error) {
+      if (error.name !== 'AbortError') {
+        alert(error.message || 'Failed to generate assignment');
+      }
+    } finally {
+      setLoading(false);
+    }
+  };
+
+  // Reuses questions generated earlier for the same class, topic and complexity; only the
+  // questions the bank doesn't have are generated
+  const handleAssemble = async () => {
+    const totalQuestions = formData.oneMarkQuestions + formData.twoMarkQuestions +
+                          formData.threeMarkQuestions + formData.fiveMarkQuestions;
+    if (!formData.topic || totalQuestions === 0) {
+      alert('Please enter a topic and select at least one question type');
+      return;
+    }
+
+    setLoading(true);
+    setGeneratedContent('');
+    setFromCache(false);
+    setMissingVariants([]);
+    setAssembledFrom(null);
+    try {
+      const response = await axios.post('/assignments/assemble', formData);
       setGeneratedContent(response.data.content);
+      setAssembledFrom({
+        fromBank: Number(response.data.fromBank),
+        generated: Number(response.data.generated),
+      });
     } catch (error) {
-      alert(error.response?.data?.error || 'Failed to generate assignment');
+      alert(error.response?.data?.error || 'Failed to build assignment from the question bank');
     } finally {
       setLoading(false);
     }
@@ -225,6 +283,23 @@ const GenerateAssignment = () => {
                 </select>
               </div>
 
+              {/* Variants */}
+              <div>
+                <label className="block text-sm font-medium text-gray-700 mb-2">
+                  Variants
+                </label>
+                <select
+                  name="variants"
+                  value={formData.variants}
+                  onChange={handleChange}
+                  className="w-full px-4 py-2 border border-gray-300 rounded-lg focus:ring-2 focus:ring-purple-500 focus:border-transparent"
+                >
+                  <option value={1}>One version</option>
+                  <option value={2}>A/B (different questions each)</option>
+                  <option value={3}>A/B/C (different questions each)</option>
+                </select>
+              </div>
+
               {/* Question Distribution */}
               <div className="border-t pt-4">
                 <h3 className="text-sm font-medium text-gray-700 mb-3">Question Distribution</h3>
@@ -307,6 +382,14 @@ const GenerateAssignment = () => {
                   </>
                 )}
               </button>
+              <button
+                type="button"
+                onClick={handleAssemble}
+                disabled={loading}
+                className="w-full mt-2 py-2 rounded-lg font-medium text-purple-700 bg-purple-50 hover:bg-purple-100 transition-colors disabled:opacity-50 disabled:cursor-not-allowed"
+              >
+                Build from Question Bank
+              </button>
             </form>
 
             {/* Info Box */}
@@ -321,6 +404,25 @@ const GenerateAssignment = () => {
           <div className="bg-white rounded-lg shadow-lg p-6">
             <div className="flex items-center justify-between mb-4">
               <h2 className="text-xl font-bold text-gray-800">Generated Assignment</h2>
+              {assembledFrom && !loading && (
+                <span className="px-3 py-1 bg-purple-50 text-purple-700 rounded-lg text-sm">
+                  {assembledFrom.fromBank} from bank · {assembledFrom.generated} new
+                </span>
+              )}
+              {missingVariants.length > 0 && !loading && (
+                <span className="px-3 py-1 bg-amber-50 text-amber-700 rounded-lg text-sm">
+                  Variant {missingVariants.join(', ')} not generated
+                </span>
+              )}
+              {fromCache && !loading && (
+                <button
+                  onClick={(e) => handleGenerate(e, true)}
+                  title="This was generated earlier for the same topic, class and questions"
+                  className="px-3 py-1 bg-purple-100 text-purple-700 rounded-lg hover:bg-purple-200 transition-colors text-sm"
+                >
+                  Saved version · Regenerate
+                </button>
+              )}
               {generatedContent && (
                 <div className="flex gap-2">
                   <button
@@ -10,6 +10,7 @@ const StudentMaterials = () => {
   const [studentProfile, setStudentProfile] = useState(null);
   const [loading, setLoading] = useState(true);
   const [message, setMessage] = useState('');
+  const [downloadingBundle, setDownloadingBundle] = useState(false);
 
   useEffect(() => {
     fetchData();
@@ -31,6 +32,27 @@ const StudentMaterials = () => {
     }
   };
 
+  // One prebuilt ZIP of every material for the class instead of a download per file
+  const handleDownloadBundle = async () => {
+    setDownloadingBundle(true);
+    setMessage('');
+    try {
+      const grade = studentProfile.classGrade;
+      const response = await axios.get(`/learning-materials/class/${grade}/bundle`, { responseType: 'blob' });
+      const link = document.createElement('a');
+      link.href = URL.createObjectURL(response.data);
+      link.download = `class-${grade}-materials.zip`;
+      link.click();
+      URL.revokeObjectURL(link.href);
+    } catch (error) {
+      setMessage(error.response?.status === 503
+        ? 'The download is being prepared. Please try again in a minute.'
+        : 'Failed to download materials');
+    } finally {
+      setDownloadingBundle(false);
+    }
+  };
+
   return (
     <div className="min-h-screen bg-gray-50">
       <nav className="bg-indigo-600 text-white p-4 shadow-lg">
@@ -60,13 +82,24 @@ const StudentMaterials = () => {
           </div>
         )}
 
-        <div className="mb-6">
-          <h2 className="text-2xl font-bold text-gray-800">
-            Learning Materials - Class {studentProfile?.classGrade}
-          </h2>
-          <p className="text-gray-600 mt-1">
-            Download study materials and resources shared by your teacher
-          </p>
+        <div className="mb-6 flex flex-col md:flex-row md:items-end md:justify-between gap-3">
+          <div>
+            <h2 className="text-2xl font-bold text-gray-800">
+              Learning Materials - Class {studentProfile?.classGrade}
+            </h2>
+            <p className="text-gray-600 mt-1">
+              Download study materials and resources shared by your teacher
+            </p>
+          </div>
+          {materials.length > 0 && (
+            <button
+              onClick={handleDownloadBundle}
+              disabled={downloadingBundle}
+              className="px-4 py-3 md:py-2 min-h-[44px] bg-indigo-600 text-white rounded-lg hover:bg-indigo-700 disabled:opacity-50"
+            >
+              {downloadingBundle ? 'Downloading...' : 'Download all (ZIP)'}
+            </button>
+          )}
         </div>
 
         {loading ? (
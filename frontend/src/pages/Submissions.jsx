@@ -1,4 +1,4 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { useAuth } from '../context/AuthContext';
 import axios from '../api/axios';
@@ -18,6 +18,58 @@ const formatToIST = (dateString) => {
   }).format(date);
 };
 
+// Refresh interval for picking up new submissions and grades while the page is open
+const GRADEBOOK_POLL_MS = 30000;
+
+// Turn the column-oriented gradebook into assignment objects and per-assignment submission lists
+const readGradebook = (gradebook) => {
+  const a = gradebook.assignments;
+  const assignments = a.id.map((id, i) => ({
+    id,
+    title: a.title[i],
+    description: a.description[i],
+    totalMarks: a.totalMarks[i],
+    dueDate: a.dueDate[i],
+    classGrade: gradebook.classGrade
+  }));
+
+  const students = {};
+  gradebook.students.id.forEach((id, i) => {
+    students[id] = { name: gradebook.students.name[i], email: gradebook.students.email[i] };
+  });
+
+  const s = gradebook.submissions;
+  const submissions = s.id.map((id, i) => ({
+    id,
+    assignmentId: s.assignmentId[i],
+    studentId: s.studentId[i],
+    studentName: students[s.studentId[i]]?.name,
+    studentEmail: students[s.studentId[i]]?.email,
+    status: s.status[i],
+    marksObtained: s.marks[i],
+    isLate: s.late[i],
+    submittedAt: s.submittedAt[i],
+    attachmentUrl: s.attachmentUrl[i],
+    hasFeedback: s.hasFeedback[i],
+    submissionText: s.preview[i]
+  }));
+
+  return { assignments, submissions };
+};
+
+// Upsert submissions into the per-assignment lists, keyed by submission id
+const mergeSubmissions = (current, submissions) => {
+  const merged = { ...current };
+  submissions.forEach((submission) => {
+    const list = merged[submission.assignmentId] || [];
+    const index = list.findIndex((existing) => existing.id === submission.id);
+    merged[submission.assignmentId] = index === -1
+      ? [...list, submission]
+      : list.map((existing, i) => (i === index ? submission : existing));
+  });
+  return merged;
+};
+
 const Submissions = () => {
   const { user, logout } = useAuth();
   const navigate = useNavigate();
@@ -25,29 +77,24 @@ const Submissions = () => {
   const [assignments, setAssignments] = useState([]);
   const [submissionsByAssignment, setSubmissionsByAssignment] = useState({});
   const [loading, setLoading] = useState(true);
+  const asOfRef = useRef(null);
 
   useEffect(() => {
     fetchData();
+    const timer = setInterval(refreshData, GRADEBOOK_POLL_MS);
+    return () => clearInterval(timer);
   }, [selectedClass]);
 
   const fetchData = async () => {
     setLoading(true);
+    asOfRef.current = null;
     try {
-      // Fetch assignments for selected class
-      const assignmentsRes = await axios.get(`/assignments/class/${selectedClass}`);
-      setAssignments(assignmentsRes.data);
-
-      // Fetch submissions for each assignment
-      const submissionsData = {};
-      for (const assignment of assignmentsRes.data) {
-        try {
-          const submissionsRes = await axios.get(`/assignments/${assignment.id}/submissions`);
-          submissionsData[assignment.id] = submissionsRes.data;
-        } catch (error) {
-          submissionsData[assignment.id] = [];
-        }
-      }
-      setSubmissionsByAssignment(submissionsData);
+      // One request for the whole class instead of one per assignment
+      const res = await axios.get(`/assignments/class/${selectedClass}/gradebook`);
+      const { assignments, submissions } = readGradebook(res.data);
+      setAssignments(assignments);
+      setSubmissionsByAssignment(mergeSubmissions({}, submissions));
+      asOfRef.current = res.data.asOf;
     } catch (error) {
       console.error('Failed to fetch submissions', error);
     } finally {
@@ -55,6 +102,22 @@ const Submissions = () => {
     }
   };
 
+  // Fetch only submissions created or graded since the last response
+  const refreshData = async () => {
+    if (!asOfRef.current) return;
+    try {
+      const res = await axios.get(`/assignments/class/${selectedClass}/gradebook`, {
+        params: { since: asOfRef.current }
+      });
+      const { assignments, submissions } = readGradebook(res.data);
+      setAssignments(assignments);
+      setSubmissionsByAssignment((current) => mergeSubmissions(current, submissions));
+      asOfRef.current = res.data.asOf;
+    } catch (error) {
+      console.error('Failed to refresh submissions', error);
+    }
+  };
+
   const getSubmissionCount = (assignmentId) => {
     return submissionsByAssignment[assignmentId]?.length || 0;
   };
@@ -187,7 +250,7 @@ const Submissions = () => {
                                       <p className="text-sm font-semibold text-green-800">
                                         Score: {submission.marksObtained}/{assignment.totalMarks} marks
                                       </p>
-                                      {submission.feedback && (
+                                      {submission.hasFeedback && (
                                         <p className="text-xs text-green-700 mt-1 italic">
                                           Feedback provided
                                         </p>
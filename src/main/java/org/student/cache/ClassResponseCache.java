@@ -0,0 +1,94 @@
+package org.student.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Cache for responses that are identical for every student of a class. Entries are tagged with the
+ * {@link ClassVersions} counter read before loading and are served only while that counter is
+ * unchanged; the TTL is just a backstop. Typical values are pre-serialized JSON bytes so a hit
+ * skips both the database and Jackson.
+ */
+@Component
+public class ClassResponseCache {
+
+    private final ClassVersions versions;
+    private final ObjectMapper objectMapper;
+    private final ExpiringCache<String, Versioned> entries;
+    private final Duration ttl;
+
+    public ClassResponseCache(ClassVersions versions,
+                              ObjectMapper objectMapper,
+                              @Value("${cache.class-response.max-entries:500}") int maxEntries,
+                              @Value("${cache.class-response.ttl-seconds:600}") long ttlSeconds) {
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.entries = new ExpiringCache<>(maxEntries);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    /**
+     * Returns the JSON for a class-wide response, serializing {@code loader}'s result on a miss.
+     */
+    public byte[] json(ClassScope scope, Integer classGrade, Supplier<?> loader) {
+        return get(scope, classGrade, () -> toJson(loader.get()));
+    }
+
+    /**
+     * Conditional GET for a class-wide response: 304 straight from the in-memory counter when the
+     * client's copy is current, otherwise the cached (or freshly serialized) JSON with its ETag.
+     */
+    public ResponseEntity<byte[]> respond(WebRequest request, ClassScope scope, Integer classGrade, Supplier<?> loader) {
+        return ConditionalResponses.json(request, versions.stamp(scope, classGrade),
+            () -> json(scope, classGrade, loader));
+    }
+
+    public <T> T get(ClassScope scope, Integer classGrade, Supplier<T> loader) {
+        return lookup(scope.name() + ":" + classGrade, versions.current(scope, classGrade), loader);
+    }
+
+    /**
+     * Per-student data overlaid on a shared class response; invalidated by the student's own counter.
+     */
+    public <T> T getForStudent(ClassScope scope, Long studentId, Integer classGrade, Supplier<T> loader) {
+        return lookup("student:" + scope.name() + ":" + studentId + ":" + classGrade,
+            versions.currentForStudent(studentId), loader);
+    }
+
+    public byte[] toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize cached response", e);
+        }
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public ClassVersions getVersions() {
+        return versions;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(String key, long version, Supplier<T> loader) {
+        Versioned cached = entries.get(key);
+        if (cached != null && cached.version() == version) {
+            return (T) cached.value();
+        }
+        T value = loader.get();
+        entries.put(key, new Versioned(version, value), ttl);
+        return value;
+    }
+
+    private record Versioned(long version, Object value) {
+    }
+}
@@ -0,0 +1,13 @@
+package org.student.cache;
+
+/**
+ * Per-class read endpoints whose responses are shared by every student of a class.
+ * Each scope has its own version counter per class grade.
+ */
+public enum ClassScope {
+    ASSIGNMENTS,
+    LEARNING_MATERIALS,
+    TIMETABLE,
+    QUERIES,
+    VIRTUAL_CLASSROOM
+}
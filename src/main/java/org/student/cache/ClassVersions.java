@@ -0,0 +1,161 @@
+package org.student.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.student.event.ClassDataChangedEvent;
+import org.student.event.StudentSubmissionsChangedEvent;
+import org.student.repository.ClassVersionRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Version counters per (scope, class grade) and per student. A cached response is valid only
+ * while the counter it was built under is unchanged; write paths move the counter forward by
+ * publishing {@link ClassDataChangedEvent} or {@link StudentSubmissionsChangedEvent}.
+ * Reads are served from memory. Bumped counters are written to {@code class_versions} in batches
+ * once a second and the table is loaded at startup, so the ETags built from these counters keep
+ * counting forward after a restart.
+ */
+@Component
+public class ClassVersions {
+
+    private final ClassVersionRepository versionRepository;
+    private final ConcurrentHashMap<String, Stamp> stamps = new ConcurrentHashMap<>();
+    // Bumped but not yet written to class_versions
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    // Last-Modified for counters that have never been bumped
+    private final Instant startedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    public ClassVersions(ClassVersionRepository versionRepository) {
+        this.versionRepository = versionRepository;
+    }
+
+    @PostConstruct
+    void loadPersistedVersions() {
+        try {
+            versionRepository.findAll().forEach(row -> stamps.merge(row.getVersionKey(),
+                new Stamp(row.getVersion(), row.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant()),
+                (a, b) -> a.version() >= b.version() ? a : b));
+        } catch (RuntimeException e) {
+            System.err.println("Could not load class versions, starting from zero: " + e.getMessage());
+        }
+    }
+
+    public long current(ClassScope scope, Integer classGrade) {
+        return read(classKey(scope, classGrade)).version();
+    }
+
+    public long currentForStudent(Long studentId) {
+        return read(studentKey(studentId)).version();
+    }
+
+    public Instant lastModified(ClassScope scope, Integer classGrade) {
+        return read(classKey(scope, classGrade)).modifiedAt();
+    }
+
+    public Instant lastModifiedForStudent(Long studentId) {
+        return read(studentKey(studentId)).modifiedAt();
+    }
+
+    /**
+     * Validators for a response that depends only on one class-wide counter.
+     */
+    public ResponseStamp stamp(ClassScope scope, Integer classGrade) {
+        Stamp stamp = read(classKey(scope, classGrade));
+        return new ResponseStamp(scope.name().toLowerCase() + "-" + classGrade + "-" + stamp.version(),
+            stamp.modifiedAt());
+    }
+
+    public void bump(ClassScope scope, Integer classGrade) {
+        increment(classKey(scope, classGrade));
+    }
+
+    public void bumpStudent(Long studentId) {
+        increment(studentKey(studentId));
+    }
+
+    // Bumped after commit: a reader that starts earlier caches the old rows under the old version,
+    // which this bump then invalidates
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClassDataChanged(ClassDataChangedEvent event) {
+        if (event.getClassGrade() != null) {
+            bump(event.getScope(), event.getClassGrade());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentSubmissionsChanged(StudentSubmissionsChangedEvent event) {
+        if (event.getStudentId() != null) {
+            bumpStudent(event.getStudentId());
+        }
+    }
+
+    private Stamp read(String key) {
+        Stamp stamp = stamps.get(key);
+        return stamp != null ? stamp : new Stamp(0L, startedAt);
+    }
+
+    private void increment(String key) {
+        // Whole seconds, the precision of Last-Modified / If-Modified-Since
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        stamps.compute(key, (k, old) -> new Stamp(old != null ? old.version() + 1 : 1L,
+            old != null && old.modifiedAt().isAfter(now) ? old.modifiedAt() : now));
+        dirty.add(key);
+    }
+
+    /**
+     * Writes the counters bumped since the last flush, all in one transaction. Bumps happen after
+     * the writing transaction has committed while its connection is still bound, so writing each
+     * one there would take a second pooled connection per event; a burst of submissions could
+     * empty the pool. A restart within a second of a bump can lose that bump, which only means an
+     * ETag number is reused for data that clients will revalidate anyway.
+     */
+    @Scheduled(fixedDelay = 1000)
+    @Transactional
+    public void flushVersions() {
+        List<String> keys = new ArrayList<>(dirty);
+        if (keys.isEmpty()) {
+            return;
+        }
+        dirty.removeAll(keys);
+        try {
+            for (String key : keys) {
+                Stamp stamp = stamps.get(key);
+                versionRepository.upsertVersion(key, stamp.version(),
+                    LocalDateTime.ofInstant(stamp.modifiedAt(), ZoneId.systemDefault()));
+            }
+        } catch (RuntimeException e) {
+            // The in-memory counters already moved on; try again on the next flush
+            dirty.addAll(keys);
+            System.err.println("Failed to persist class versions: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushVersions();
+    }
+
+    private static String classKey(ClassScope scope, Integer classGrade) {
+        return scope.name() + ":" + classGrade;
+    }
+
+    private static String studentKey(Long studentId) {
+        return "student:" + studentId;
+    }
+
+    private record Stamp(long version, Instant modifiedAt) {
+    }
+}
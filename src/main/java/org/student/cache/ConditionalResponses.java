@@ -0,0 +1,31 @@
+package org.student.cache;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Answers conditional GETs from a {@link ResponseStamp}. The body supplier is only invoked when
+ * the client's If-None-Match / If-Modified-Since does not match, so a 304 does no loading at all.
+ */
+public final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    public static ResponseEntity<byte[]> json(WebRequest request, ResponseStamp stamp, Supplier<byte[]> body) {
+        // Sets ETag and Last-Modified on the response either way
+        if (request.checkNotModified(stamp.getEtag(), stamp.getLastModified().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+        }
+        // no-cache rather than the default no-store, so browsers keep the body and revalidate it
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body.get());
+    }
+}
@@ -0,0 +1,73 @@
+package org.student.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small bounded in-memory cache where every entry carries its own expiry time.
+ * Entries are evicted in least-recently-used order once {@code maxEntries} is reached,
+ * and expired entries are treated as absent on read.
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxEntries;
+    private final LinkedHashMap<K, CachedValue<V>> entries;
+
+    public ExpiringCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > ExpiringCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value, or {@code null} if there is no live entry for the key.
+     */
+    public synchronized V get(K key) {
+        CachedValue<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value, Instant expiresAt) {
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new CachedValue<>(value, expiresAtMillis));
+    }
+
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, Instant.now().plus(ttl));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record CachedValue<V>(V value, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,149 @@
+package org.student.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.student.dto.GenerateAssignmentRequest;
+import org.student.entity.GeneratedAssignment;
+import org.student.repository.GeneratedAssignmentRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated assignments by normalized request, so generating "Fractions, Class 6, Medium" again
+ * for the next batch costs no Groq call. Recently used entries are kept in memory in LRU order;
+ * every entry is also in {@code generated_assignments}, so hits survive a restart. Entries older
+ * than {@code ai-cache.max-age-days} count as misses and are regenerated.
+ *
+ * <p>The cache never fails a generation: if the table cannot be read or written, the request
+ * simply goes to Groq.
+ */
+@Component
+public class GeneratedAssignmentCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneratedAssignmentCache.class);
+
+    private final GeneratedAssignmentRepository repository;
+    private final ExpiringCache<String, String> memory;
+    private final Duration maxAge;
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+    private final Counter regenerations;
+
+    public GeneratedAssignmentCache(GeneratedAssignmentRepository repository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${ai-cache.max-entries:200}") int maxEntries,
+                                    @Value("${ai-cache.max-age-days:30}") long maxAgeDays) {
+        this.repository = repository;
+        this.memory = new ExpiringCache<>(maxEntries);
+        this.maxAge = Duration.ofDays(maxAgeDays);
+
+        this.memoryHits = lookups(meterRegistry, "memory_hit");
+        this.databaseHits = lookups(meterRegistry, "database_hit");
+        this.misses = lookups(meterRegistry, "miss");
+        this.regenerations = lookups(meterRegistry, "regenerate");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ai.assignment.cache")
+            .description("Generated assignment lookups by result")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * The request with everything that does not change the output normalized away: topic
+     * trimmed, case-folded and with single spaces, complexity upper-cased.
+     */
+    public static String requestKey(GenerateAssignmentRequest request, String model) {
+        String topic = request.getTopic() == null ? "" : request.getTopic().trim().replaceAll("\\s+", " ")
+            .toLowerCase(Locale.ROOT);
+        String complexity = request.getComplexity() == null ? "" : request.getComplexity().trim().toUpperCase(Locale.ROOT);
+        return String.join("|", model, String.valueOf(request.getClassGrade()), topic, complexity,
+            String.valueOf(request.getOneMarkQuestions()), String.valueOf(request.getTwoMarkQuestions()),
+            String.valueOf(request.getThreeMarkQuestions()), String.valueOf(request.getFiveMarkQuestions()));
+    }
+
+    /**
+     * The cached assignment for a request key, from memory or else from the table.
+     */
+    public Optional<String> get(String requestKey) {
+        String content = memory.get(requestKey);
+        if (content != null) {
+            memoryHits.increment();
+            return Optional.of(content);
+        }
+        String cacheKey = sha256(requestKey);
+        try {
+            Optional<GeneratedAssignment> stored = repository.findById(cacheKey)
+                .filter(entry -> entry.getCreatedAt().isAfter(LocalDateTime.now().minus(maxAge)));
+            if (stored.isPresent()) {
+                repository.touch(cacheKey, LocalDateTime.now());
+                memory.put(requestKey, stored.get().getContent(), expiresAt(stored.get().getCreatedAt()));
+                databaseHits.increment();
+                return Optional.of(stored.get().getContent());
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not read generated assignment cache: {}", e.getMessage());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Records that the cache was skipped on purpose, for a teacher who wants a fresh version.
+     */
+    public void recordRegenerate() {
+        regenerations.increment();
+    }
+
+    /**
+     * Stores a generated assignment, replacing any earlier one for the same request.
+     */
+    public void put(String requestKey, String content) {
+        LocalDateTime now = LocalDateTime.now();
+        memory.put(requestKey, content, expiresAt(now));
+        try {
+            repository.upsert(sha256(requestKey), requestKey, content, now);
+        } catch (DataAccessException e) {
+            logger.warn("Could not store generated assignment in cache: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 24, timeUnit = TimeUnit.HOURS, initialDelay = 1)
+    public void purgeExpired() {
+        int deleted = repository.deleteCreatedBefore(LocalDateTime.now().minus(maxAge));
+        if (deleted > 0) {
+            logger.info("Removed {} expired generated assignments", deleted);
+        }
+    }
+
+    private Instant expiresAt(LocalDateTime createdAt) {
+        return createdAt.plus(maxAge).atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.student.cache;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Validators for a cacheable GET response: a strong ETag (unquoted) and the time the
+ * underlying data last changed. Both are computed without touching the database.
+ */
+@Value
+public class ResponseStamp {
+    String etag;
+    Instant lastModified;
+}
@@ -7,6 +7,7 @@ import org.student.dto.ApiResponse;
 import org.student.dto.ApprovalRequest;
 import org.student.dto.EnrolledStudentDTO;
 import org.student.dto.PendingStudentDTO;
+import org.student.pagination.CursorPagination;
 import org.student.service.AdminService;
 
 import java.util.List;
@@ -16,9 +17,11 @@ import java.util.List;
 public class AdminController {
     
     private final AdminService adminService;
+    private final CursorPagination pagination;
     
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, CursorPagination pagination) {
         this.adminService = adminService;
+        this.pagination = pagination;
     }
     
     @GetMapping("/pending-registrations")
@@ -34,9 +37,10 @@ public class AdminController {
     }
     
     @GetMapping("/enrolled-students")
-    public ResponseEntity<List<EnrolledStudentDTO>> getEnrolledStudents() {
-        List<EnrolledStudentDTO> students = adminService.getEnrolledStudents();
-        return ResponseEntity.ok(students);
+    public ResponseEntity<?> getEnrolledStudents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return pagination.respond(cursor, limit, adminService::getEnrolledStudentsPage);
     }
     
     @GetMapping("/enrolled-students/class/{classGrade}")
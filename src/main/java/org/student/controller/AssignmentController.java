@@ -1,72 +1,81 @@
 package org.student.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.student.cache.ConditionalResponses;
 import org.student.dto.*;
-import org.student.entity.User;
-import org.student.exception.ResourceNotFoundException;
-import org.student.repository.UserRepository;
+import org.student.image.ImagePipeline;
+import org.student.pagination.CursorPagination;
+import org.student.security.UserPrincipal;
 import org.student.service.AIAssignmentGeneratorService;
 import org.student.service.AssignmentService;
 import org.student.service.FileStorageService;
+import org.student.service.GenerationJobService;
+import org.student.service.QuestionBankService;
+import org.student.service.SubmissionArchiveService;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/assignments")
 public class AssignmentController {
     
+    private static final long GENERATION_STREAM_TIMEOUT_MS = 3 * 60 * 1000;
+    
     private final AssignmentService assignmentService;
-    private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
     private final AIAssignmentGeneratorService aiAssignmentGeneratorService;
+    private final CursorPagination pagination;
+    private final SubmissionArchiveService submissionArchiveService;
+    private final ImagePipeline imagePipeline;
+    private final GenerationJobService generationJobService;
+    private final QuestionBankService questionBankService;
     
     public AssignmentController(AssignmentService assignmentService, 
-                               UserRepository userRepository,
                                FileStorageService fileStorageService,
-                               AIAssignmentGeneratorService aiAssignmentGeneratorService) {
+                               AIAssignmentGeneratorService aiAssignmentGeneratorService,
+                               CursorPagination pagination,
+                               SubmissionArchiveService submissionArchiveService,
+                               ImagePipeline imagePipeline,
+                               GenerationJobService generationJobService,
+                               QuestionBankService questionBankService) {
         this.assignmentService = assignmentService;
-        this.userRepository = userRepository;
         this.fileStorageService = fileStorageService;
         this.aiAssignmentGeneratorService = aiAssignmentGeneratorService;
+        this.pagination = pagination;
+        this.submissionArchiveService = submissionArchiveService;
+        this.imagePipeline = imagePipeline;
+        this.generationJobService = generationJobService;
+        this.questionBankService = questionBankService;
     }
     
     @PostMapping
     public ResponseEntity<AssignmentDTO> createAssignment(
-            @Valid @RequestBody CreateAssignmentRequest request) {
-        
-        // Get authentication from SecurityContextHolder instead of method parameter
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        
-        System.out.println("=== CREATE ASSIGNMENT DEBUG ===");
-        System.out.println("Authentication object: " + authentication);
-        if (authentication != null) {
-            System.out.println("Principal: " + authentication.getPrincipal());
-            System.out.println("Is authenticated: " + authentication.isAuthenticated());
-            System.out.println("Authorities: " + authentication.getAuthorities());
-        }
-        System.out.println("===============================");
-        
-        if (authentication == null || !authentication.isAuthenticated()) {
-            System.err.println("ERROR: User not authenticated in createAssignment!");
-            System.err.println("THROWING EXCEPTION");
-            throw new RuntimeException("User not authenticated");
-        }
-        
-        String email = authentication.getName();
-        System.out.println("Creating assignment - authenticated user: " + email);
-        
-        User teacher = userRepository.findByEmail(email)
-            .orElseThrow(() -> new ResourceNotFoundException("Teacher not found: " + email));
+            @Valid @RequestBody CreateAssignmentRequest request,
+            UserPrincipal teacher) {
         
         AssignmentDTO assignment = assignmentService.createAssignment(request, teacher.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(assignment);
@@ -74,23 +83,46 @@ public class AssignmentController {
     
     @GetMapping("/class/{classGrade}")
     @PreAuthorize("hasRole('STUDENT') or hasRole('TEACHER')")
-    public ResponseEntity<List<AssignmentDTO>> getAssignmentsByClass(
+    public ResponseEntity<byte[]> getAssignmentsByClass(
             @PathVariable Integer classGrade,
-            Authentication authentication) {
+            UserPrincipal user,
+            WebRequest request) {
         
-        User user = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        Long studentId = user.isStudent() ? user.getId() : null;
+        return ConditionalResponses.json(request, assignmentService.getAssignmentsStamp(classGrade, studentId),
+            () -> assignmentService.getAssignmentsByClassJson(classGrade, studentId));
+    }
+    
+    @GetMapping("/class/{classGrade}/gradebook")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<GradebookDTO> getGradebook(
+            @PathVariable Integer classGrade,
+            @RequestParam(required = false) String since) {
         
-        Long studentId = user.getRole() == User.Role.STUDENT ? user.getId() : null;
-        List<AssignmentDTO> assignments = assignmentService.getAssignmentsByClass(classGrade, studentId);
-        return ResponseEntity.ok(assignments);
+        return ResponseEntity.ok(assignmentService.getGradebook(classGrade, parseSince(since)));
+    }
+    
+    // Accepts the gradebook's asOf value, an ISO-8601 UTC instant such as 2024-05-01T10:15:30.000Z
+    private LocalDateTime parseSince(String since) {
+        if (since == null || since.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.ofInstant(Instant.parse(since), ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid 'since' timestamp: " + since);
+        }
     }
     
     @GetMapping
-    public ResponseEntity<List<AssignmentDTO>> getAllAssignments() {
+    public ResponseEntity<?> getAllAssignments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<AssignmentDTO> assignments = assignmentService.getAllAssignments();
-            return ResponseEntity.ok(assignments);
+            return pagination.respond(cursor, limit, assignmentService::getAssignmentsPage);
+        } catch (IllegalArgumentException e) {
+            // Bad cursor or limit is the caller's mistake, report it as such
+            throw e;
         } catch (Exception e) {
             // Log the error and return empty list instead of 500
             System.err.println("Error fetching assignments: " + e.getMessage());
@@ -117,10 +149,7 @@ public class AssignmentController {
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<SubmissionDTO> submitAssignment(
             @Valid @RequestBody SubmitAssignmentRequest request,
-            Authentication authentication) {
-        
-        User student = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
+            UserPrincipal student) {
         
         SubmissionDTO submission = assignmentService.submitAssignment(request, student.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(submission);
@@ -133,14 +162,25 @@ public class AssignmentController {
         return ResponseEntity.ok(submissions);
     }
     
+    // ZIP of every attachment plus manifest.csv, streamed as it is built
+    @GetMapping("/{assignmentId}/submissions/archive")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<StreamingResponseBody> downloadSubmissionsArchive(@PathVariable Long assignmentId) {
+        SubmissionArchiveService.SubmissionArchive archive = submissionArchiveService.prepareArchive(assignmentId);
+        StreamingResponseBody body = out -> submissionArchiveService.writeArchive(archive, out);
+        
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(archive.filename()).build().toString())
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .body(body);
+    }
+    
     @GetMapping("/{assignmentId}/my-submission")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<SubmissionDTO> getMySubmission(
             @PathVariable Long assignmentId,
-            Authentication authentication) {
-        
-        User student = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
+            UserPrincipal student) {
         
         SubmissionDTO submission = assignmentService.getStudentSubmission(assignmentId, student.getId());
         return ResponseEntity.ok(submission);
@@ -148,14 +188,20 @@ public class AssignmentController {
     
     @GetMapping("/my-submissions")
     @PreAuthorize("hasRole('STUDENT')")
-    public ResponseEntity<List<SubmissionDTO>> getMySubmissions(Authentication authentication) {
-        User student = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
-        
+    public ResponseEntity<List<SubmissionDTO>> getMySubmissions(UserPrincipal student) {
         List<SubmissionDTO> submissions = assignmentService.getStudentSubmissions(student.getId());
         return ResponseEntity.ok(submissions);
     }
     
+    @PostMapping("/{assignmentId}/grades:batch")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<BatchGradeResponse> gradeSubmissions(
+            @PathVariable Long assignmentId,
+            @Valid @RequestBody BatchGradeRequest request) {
+        
+        return ResponseEntity.ok(assignmentService.gradeSubmissions(assignmentId, request.getGrades()));
+    }
+    
     @PostMapping("/grade")
     @PreAuthorize("hasRole('TEACHER')")
     public ResponseEntity<SubmissionDTO> gradeSubmission(
@@ -175,21 +221,18 @@ public class AssignmentController {
     public ResponseEntity<Map<String, String>> uploadFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("folder") String folder,
-            Authentication authentication) {
+            UserPrincipal user) {
         
         try {
-            User user = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
             // Validate folder based on role
-            if (user.getRole() == User.Role.TEACHER && !folder.equals("assignments")) {
+            if (user.isTeacher() && !folder.equals("assignments")) {
                 throw new IllegalArgumentException("Invalid folder");
             }
-            if (user.getRole() == User.Role.STUDENT && !folder.equals("submissions")) {
+            if (user.isStudent() && !folder.equals("submissions")) {
                 throw new IllegalArgumentException("Invalid folder");
             }
             
-            String fileUrl = fileStorageService.uploadFile(file, folder);
+            String fileUrl = fileStorageService.uploadFile(file);
             
             Map<String, String> response = new HashMap<>();
             response.put("url", fileUrl);
@@ -208,28 +251,246 @@ public class AssignmentController {
         }
     }
     
+    /**
+     * Photographed pages (JPEG, PNG) combined into one PDF in the order given. The photos are
+     * processed off the request thread; the response comes once the PDF is stored.
+     */
+    @PostMapping("/upload-photos")
+    @PreAuthorize("hasRole('TEACHER') or hasRole('STUDENT')")
+    public CompletableFuture<ResponseEntity<Map<String, String>>> uploadPhotos(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam("folder") String folder,
+            UserPrincipal user) {
+        
+        CompletableFuture<String> pdfUrl;
+        try {
+            if (user.isTeacher() && !folder.equals("assignments")) {
+                throw new IllegalArgumentException("Invalid folder");
+            }
+            if (user.isStudent() && !folder.equals("submissions")) {
+                throw new IllegalArgumentException("Invalid folder");
+            }
+            pdfUrl = imagePipeline.toPdf(files);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(errorResponse(HttpStatus.BAD_REQUEST, e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(errorResponse(HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many photo uploads are being processed. Please try again in a minute"));
+        }
+        
+        String filename = ImagePipeline.pdfName(files);
+        return pdfUrl.handle((url, failure) -> {
+            if (failure == null) {
+                Map<String, String> response = new HashMap<>();
+                response.put("url", url);
+                response.put("filename", filename);
+                return ResponseEntity.ok(response);
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+            if (cause instanceof IllegalArgumentException) {
+                return errorResponse(HttpStatus.BAD_REQUEST, cause.getMessage());
+            }
+            return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Could not process photos: " + cause.getMessage());
+        });
+    }
+    
+    private static ResponseEntity<Map<String, String>> errorResponse(HttpStatus status, String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(status).body(error);
+    }
+    
+    /**
+     * Generates an assignment and answers when it is done. The generation goes through the same
+     * queue as {@link #submitGenerationJob}, so the request thread is released while it waits.
+     */
     @PostMapping("/generate")
     @PreAuthorize("hasRole('TEACHER')")
-    public ResponseEntity<Map<String, String>> generateAssignment(
-            @Valid @RequestBody GenerateAssignmentRequest request) {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> generateAssignment(
+            @Valid @RequestBody GenerateAssignmentRequest request,
+            @RequestParam(defaultValue = "false") boolean regenerate,
+            UserPrincipal teacher) {
         
+        GenerationJobService.GenerationJob job;
         try {
-            System.out.println("Generating assignment for topic: " + request.getTopic() + ", grade: " + request.getClassGrade());
-            String generatedAssignment = aiAssignmentGeneratorService.generateAssignment(request);
-            
+            job = generationJobService.submit(teacher.getId(), request, regenerate);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(errorResponse(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+        }
+        return job.result().handle((generated, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+                return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, cause.getMessage());
+            }
             Map<String, String> response = new HashMap<>();
-            response.put("content", generatedAssignment);
+            response.put("content", generated.content());
+            response.put("cached", String.valueOf(generated.cached()));
+            if (!generated.missingVariants().isEmpty()) {
+                response.put("missingVariants", String.join(",", generated.missingVariants()));
+            }
             response.put("topic", request.getTopic());
             response.put("classGrade", String.valueOf(request.getClassGrade()));
-            
             return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            System.err.println("Error generating assignment: " + e.getMessage());
-            e.printStackTrace();
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Failed to generate assignment: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        });
+    }
+    
+    /**
+     * Builds an assignment from the question bank: questions from earlier generations with the
+     * same class, topic, complexity and marks. Only the questions the bank cannot fill are
+     * generated, through the same queue as {@link #generateAssignment}; when the bank has them
+     * all, Groq is not called. The response says how many came from each.
+     */
+    @PostMapping("/assemble")
+    @PreAuthorize("hasRole('TEACHER')")
+    public CompletableFuture<ResponseEntity<Map<String, String>>> assembleAssignment(
+            @Valid @RequestBody GenerateAssignmentRequest request,
+            UserPrincipal teacher) {
+        
+        QuestionBankService.Selection selection = questionBankService.select(request);
+        if (selection.shortfall() == null) {
+            return CompletableFuture.completedFuture(
+                assembledResponse(request, questionBankService.assemble(selection, null)));
+        }
+        GenerationJobService.GenerationJob job;
+        try {
+            // Regenerate: a cached answer for the shortfall could hold the very questions just picked
+            job = generationJobService.submit(teacher.getId(), selection.shortfall(), true);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(errorResponse(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+        }
+        return job.result().handle((generated, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+                return errorResponse(HttpStatus.INTERNAL_SERVER_ERROR, cause.getMessage());
+            }
+            return assembledResponse(request, questionBankService.assemble(selection, generated.content()));
+        });
+    }
+    
+    private static ResponseEntity<Map<String, String>> assembledResponse(GenerateAssignmentRequest request,
+                                                                        QuestionBankService.Assembled assembled) {
+        Map<String, String> response = new HashMap<>();
+        response.put("content", assembled.content());
+        response.put("fromBank", String.valueOf(assembled.fromBank()));
+        response.put("generated", String.valueOf(assembled.generated()));
+        response.put("topic", request.getTopic());
+        response.put("classGrade", String.valueOf(request.getClassGrade()));
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Queues a generation and answers 202 straight away with the job; poll
+     * {@code GET /generate/jobs/{jobId}} or follow {@code /generate/jobs/{jobId}/events} for the
+     * result. 429 when the teacher already has too many jobs waiting.
+     */
+    @PostMapping("/generate/jobs")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<?> submitGenerationJob(
+            @Valid @RequestBody GenerateAssignmentRequest request,
+            @RequestParam(defaultValue = "false") boolean regenerate,
+            UserPrincipal teacher) {
+        try {
+            GenerationJobService.GenerationJob job = generationJobService.submit(teacher.getId(), request, regenerate);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/assignments/generate/jobs/" + job.getId()))
+                .body(job.toDTO());
+        } catch (RejectedExecutionException e) {
+            return errorResponse(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+    }
+    
+    @GetMapping("/generate/jobs/{jobId}")
+    @PreAuthorize("hasRole('TEACHER')")
+    public ResponseEntity<GenerationJobDTO> getGenerationJob(@PathVariable String jobId, UserPrincipal teacher) {
+        return ResponseEntity.ok(generationJobService.getJob(jobId, teacher.getId()));
+    }
+    
+    /**
+     * A job's progress as server-sent events: a {@code status} event with the job now and on
+     * every change, ending after the one with status SUCCEEDED or FAILED.
+     */
+    @GetMapping(value = "/generate/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('TEACHER')")
+    public SseEmitter streamGenerationJob(@PathVariable String jobId, UserPrincipal teacher) {
+        SseEmitter emitter = new SseEmitter(GENERATION_STREAM_TIMEOUT_MS);
+        Runnable unsubscribe = generationJobService.subscribe(jobId, teacher.getId(), job -> {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(job, MediaType.APPLICATION_JSON));
+                if (job.getFinishedAt() != null) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(failure -> unsubscribe.run());
+        return emitter;
+    }
+    
+    /**
+     * The same generation as {@link #generateAssignment}, sent as server-sent events while the
+     * model writes it: {@code content} events with {@code {"text": ...}}, then {@code done}, or
+     * {@code error} with {@code {"error": ...}}. The request thread is released straight away.
+     * {@code done} carries {@code {"cached": true}} when the text came from the cache.
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('TEACHER')")
+    public SseEmitter streamGeneratedAssignment(
+            @Valid @RequestBody GenerateAssignmentRequest request,
+            @RequestParam(defaultValue = "false") boolean regenerate) {
+        SseEmitter emitter = new SseEmitter(GENERATION_STREAM_TIMEOUT_MS);
+        CompletableFuture<AIAssignmentGeneratorService.Generation> generation;
+        try {
+            generation = aiAssignmentGeneratorService.streamAssignment(request, regenerate, text -> {
+                try {
+                    emitter.send(SseEmitter.event().name("content").data(Map.of("text", text), MediaType.APPLICATION_JSON));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            sendGenerationError(emitter, "Failed to generate assignment: " + e.getMessage());
+            return emitter;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendGenerationError(emitter, "Failed to generate assignment: interrupted");
+            return emitter;
+        }
+        
+        // Browser gone or stream timed out: stop paying for tokens nobody will read
+        emitter.onTimeout(() -> generation.cancel(true));
+        emitter.onError(failure -> generation.cancel(true));
+        generation.whenComplete((generated, failure) -> {
+            if (failure == null) {
+                try {
+                    emitter.send(SseEmitter.event().name("done").data(Map.of("cached", generated.cached(),
+                        "missingVariants", generated.missingVariants()),
+                        MediaType.APPLICATION_JSON));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+            } else if (!(failure instanceof CancellationException)) {
+                Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+                sendGenerationError(emitter, "Failed to generate assignment: " + cause.getMessage());
+            } else {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+    
+    private static void sendGenerationError(SseEmitter emitter, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("error", message), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
         }
     }
 }
@@ -3,9 +3,9 @@ package org.student.controller;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.student.dto.*;
+import org.student.security.UserPrincipal;
 import org.student.service.AuthService;
 import org.student.service.PasswordResetService;
 
@@ -39,10 +39,8 @@ public class AuthController {
     }
     
     @GetMapping("/profile")
-    public ResponseEntity<ProfileResponse> getProfile(Authentication authentication) {
-        // authentication.getPrincipal() now returns email (not supabaseUserId)
-        String email = (String) authentication.getPrincipal();
-        ProfileResponse response = authService.getProfileByEmail(email);
+    public ResponseEntity<ProfileResponse> getProfile(UserPrincipal user) {
+        ProfileResponse response = authService.getProfileByEmail(user.getEmail());
         return ResponseEntity.ok(response);
     }
     
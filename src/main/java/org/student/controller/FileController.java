@@ -0,0 +1,139 @@
+package org.student.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.student.entity.StoredBlob;
+import org.student.repository.StoredBlobRepository;
+import org.student.storage.LocalStorageBackend;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Downloads for files kept by {@link LocalStorageBackend}. Public like the Supabase bucket it
+ * replaces; object keys are unguessable and files are never rewritten in place.
+ *
+ * <p>The content type is the one recorded in {@code stored_blobs} when the upload was validated,
+ * never one guessed from the key, and only PDFs and images are shown inline; everything else is
+ * sent as an attachment so an uploaded file can never run as a page on this origin.
+ */
+@RestController
+@RequestMapping("/files")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class FileController {
+
+    // Tomcat sends the file with sendfile(2) after the servlet returns when these are set
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalStorageBackend storageBackend;
+    private final StoredBlobRepository blobRepository;
+
+    public FileController(LocalStorageBackend storageBackend, StoredBlobRepository blobRepository) {
+        this.storageBackend = storageBackend;
+        this.blobRepository = blobRepository;
+    }
+
+    @GetMapping("/{*objectKey}")
+    public void download(@PathVariable String objectKey,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        String key = objectKey.startsWith("/") ? objectKey.substring(1) : objectKey;
+        Path file = storageBackend.locate(key);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(file);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+            CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue());
+        // Files from before stored_blobs have no recorded type and are only offered for download
+        MediaType contentType = blobRepository.findByObjectKey(key)
+            .map(StoredBlob::getContentType)
+            .map(MediaType::parseMediaType)
+            .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setContentType(contentType.toString());
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (!isInline(contentType)) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString());
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // Multi-range requests are answered with the whole file, which RFC 9110 allows
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || end < start) {
+                        throw new IllegalArgumentException("Range not satisfiable");
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        // Without sendfile, transferTo still lets the channel move the bytes without an
+        // application-level copy loop
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long sent = 0;
+            while (sent < count) {
+                long transferred = channel.transferTo(start + sent, count - sent, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                sent += transferred;
+            }
+        }
+    }
+
+    // SVG is an image that can carry script
+    private static boolean isInline(MediaType contentType) {
+        return MediaType.APPLICATION_PDF.equalsTypeAndSubtype(contentType)
+            || (contentType.getType().equals("image") && !contentType.getSubtype().contains("svg"));
+    }
+}
@@ -4,15 +4,13 @@ import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.student.dto.ApiResponse;
 import org.student.dto.CreateLateSubmissionRequest;
 import org.student.dto.LateSubmissionRequestDTO;
 import org.student.dto.RespondToLateSubmissionRequest;
-import org.student.entity.User;
-import org.student.exception.ResourceNotFoundException;
-import org.student.repository.UserRepository;
+import org.student.pagination.CursorPagination;
+import org.student.security.UserPrincipal;
 import org.student.service.LateSubmissionService;
 
 import java.util.List;
@@ -22,22 +20,18 @@ import java.util.List;
 public class LateSubmissionController {
     
     private final LateSubmissionService lateSubmissionService;
-    private final UserRepository userRepository;
+    private final CursorPagination pagination;
     
-    public LateSubmissionController(LateSubmissionService lateSubmissionService,
-                                   UserRepository userRepository) {
+    public LateSubmissionController(LateSubmissionService lateSubmissionService, CursorPagination pagination) {
         this.lateSubmissionService = lateSubmissionService;
-        this.userRepository = userRepository;
+        this.pagination = pagination;
     }
     
     @PostMapping("/request")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<LateSubmissionRequestDTO> createRequest(
             @Valid @RequestBody CreateLateSubmissionRequest request,
-            Authentication authentication) {
-        
-        User student = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
+            UserPrincipal student) {
         
         LateSubmissionRequestDTO created = lateSubmissionService.createRequest(request, student.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
@@ -52,19 +46,17 @@ public class LateSubmissionController {
     
     @GetMapping("/all")
     @PreAuthorize("hasRole('TEACHER')")
-    public ResponseEntity<List<LateSubmissionRequestDTO>> getAllRequests() {
-        List<LateSubmissionRequestDTO> requests = lateSubmissionService.getAllRequests();
-        return ResponseEntity.ok(requests);
+    public ResponseEntity<?> getAllRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return pagination.respond(cursor, limit, lateSubmissionService::getRequestsPage);
     }
     
     @GetMapping("/assignment/{assignmentId}/my-request")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<LateSubmissionRequestDTO> getMyRequest(
             @PathVariable Long assignmentId,
-            Authentication authentication) {
-        
-        User student = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
+            UserPrincipal student) {
         
         LateSubmissionRequestDTO request = lateSubmissionService
             .getRequestByAssignmentAndStudent(assignmentId, student.getId());
@@ -94,10 +86,7 @@ public class LateSubmissionController {
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<ApiResponse> checkApproval(
             @PathVariable Long assignmentId,
-            Authentication authentication) {
-        
-        User student = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
+            UserPrincipal student) {
         
         boolean isApproved = lateSubmissionService.isLateSubmissionApproved(assignmentId, student.getId());
         
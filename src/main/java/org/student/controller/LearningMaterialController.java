@@ -1,50 +1,61 @@
 package org.student.controller;
 
 import jakarta.validation.Valid;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.student.cache.ClassResponseCache;
+import org.student.cache.ClassScope;
 import org.student.dto.ApiResponse;
 import org.student.dto.LearningMaterialDTO;
 import org.student.dto.UploadMaterialRequest;
-import org.student.entity.User;
-import org.student.exception.ResourceNotFoundException;
-import org.student.repository.UserRepository;
+import org.student.pagination.CursorPagination;
+import org.student.security.UserPrincipal;
 import org.student.service.FileStorageService;
 import org.student.service.LearningMaterialService;
+import org.student.service.MaterialBundleService;
 
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/learning-materials")
 public class LearningMaterialController {
     
     private final LearningMaterialService materialService;
-    private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
+    private final CursorPagination pagination;
+    private final ClassResponseCache responseCache;
+    private final MaterialBundleService bundleService;
     
     public LearningMaterialController(LearningMaterialService materialService,
-                                     UserRepository userRepository,
-                                     FileStorageService fileStorageService) {
+                                     FileStorageService fileStorageService,
+                                     CursorPagination pagination,
+                                     ClassResponseCache responseCache,
+                                     MaterialBundleService bundleService) {
         this.materialService = materialService;
-        this.userRepository = userRepository;
         this.fileStorageService = fileStorageService;
+        this.pagination = pagination;
+        this.responseCache = responseCache;
+        this.bundleService = bundleService;
     }
     
     @PostMapping
     @PreAuthorize("hasRole('TEACHER')")
     public ResponseEntity<LearningMaterialDTO> uploadMaterial(
             @Valid @RequestBody UploadMaterialRequest request,
-            Authentication authentication) {
-        
-        User teacher = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Teacher not found"));
+            UserPrincipal teacher) {
         
         LearningMaterialDTO material = materialService.uploadMaterial(request, teacher.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(material);
@@ -52,16 +63,42 @@ public class LearningMaterialController {
     
     @GetMapping("/class/{classGrade}")
     @PreAuthorize("hasRole('STUDENT') or hasRole('TEACHER')")
-    public ResponseEntity<List<LearningMaterialDTO>> getMaterialsByClass(@PathVariable Integer classGrade) {
-        List<LearningMaterialDTO> materials = materialService.getMaterialsByClass(classGrade);
-        return ResponseEntity.ok(materials);
+    public ResponseEntity<byte[]> getMaterialsByClass(@PathVariable Integer classGrade, WebRequest request) {
+        return responseCache.respond(request, ClassScope.LEARNING_MATERIALS, classGrade,
+            () -> materialService.getMaterialsByClass(classGrade));
+    }
+    
+    // Every material of the class in one prebuilt ZIP; Range requests resume an interrupted download
+    @GetMapping("/class/{classGrade}/bundle")
+    @PreAuthorize("hasRole('STUDENT') or hasRole('TEACHER')")
+    public ResponseEntity<?> getMaterialsBundle(@PathVariable Integer classGrade, WebRequest request) {
+        Optional<MaterialBundleService.MaterialBundle> bundle = bundleService.getBundle(classGrade);
+        if (bundle.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "30")
+                .body(new ApiResponse(false, "The materials bundle is being prepared, try again shortly"));
+        }
+        
+        MaterialBundleService.MaterialBundle current = bundle.get();
+        // Sets ETag and Last-Modified on the response either way
+        if (request.checkNotModified(current.etag(), current.lastModified().toEpochMilli())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+        }
+        // A Resource body gets Accept-Ranges, and 206 for a Range request, from Spring MVC
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("class-" + classGrade + "-materials.zip").build().toString())
+            .body(new FileSystemResource(current.file()));
     }
     
     @GetMapping
     @PreAuthorize("hasRole('TEACHER')")
-    public ResponseEntity<List<LearningMaterialDTO>> getAllMaterials() {
-        List<LearningMaterialDTO> materials = materialService.getAllMaterials();
-        return ResponseEntity.ok(materials);
+    public ResponseEntity<?> getAllMaterials(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return pagination.respond(cursor, limit, materialService::getMaterialsPage);
     }
     
     @GetMapping("/{id}")
@@ -81,14 +118,10 @@ public class LearningMaterialController {
     @PostMapping("/upload-file")
     @PreAuthorize("hasRole('TEACHER')")
     public ResponseEntity<Map<String, String>> uploadFile(
-            @RequestParam("file") MultipartFile file,
-            Authentication authentication) {
+            @RequestParam("file") MultipartFile file) {
         
         try {
-            User teacher = userRepository.findByEmail(authentication.getName())
-                .orElseThrow(() -> new ResourceNotFoundException("Teacher not found"));
-            
-            String fileUrl = fileStorageService.uploadFile(file, "materials");
+            String fileUrl = fileStorageService.uploadFile(file);
             
             Map<String, String> response = new HashMap<>();
             response.put("url", fileUrl);
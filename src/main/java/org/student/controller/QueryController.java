@@ -2,12 +2,13 @@ package org.student.controller;
 
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.student.cache.ClassResponseCache;
+import org.student.cache.ClassScope;
 import org.student.dto.*;
-import org.student.entity.User;
-import org.student.exception.ResourceNotFoundException;
-import org.student.repository.UserRepository;
+import org.student.pagination.CursorPagination;
+import org.student.security.UserPrincipal;
 import org.student.service.QueryService;
 
 import java.util.List;
@@ -18,41 +19,46 @@ import java.util.Map;
 public class QueryController {
     
     private final QueryService queryService;
-    private final UserRepository userRepository;
+    private final CursorPagination pagination;
+    private final ClassResponseCache responseCache;
     
-    public QueryController(QueryService queryService, UserRepository userRepository) {
+    public QueryController(QueryService queryService, CursorPagination pagination, ClassResponseCache responseCache) {
         this.queryService = queryService;
-        this.userRepository = userRepository;
+        this.pagination = pagination;
+        this.responseCache = responseCache;
     }
     
     @PostMapping
     public ResponseEntity<QueryDTO> createQuery(
             @Valid @RequestBody CreateQueryRequest request,
-            Authentication authentication) {
-        User student = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
+            UserPrincipal student) {
         QueryDTO query = queryService.createQuery(student.getId(), request);
         return ResponseEntity.ok(query);
     }
     
     @GetMapping("/my-class")
-    public ResponseEntity<List<QueryDTO>> getMyClassQueries(Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        List<QueryDTO> queries = queryService.getMyClassQueries(user.getId());
-        return ResponseEntity.ok(queries);
+    public ResponseEntity<byte[]> getMyClassQueries(UserPrincipal user, WebRequest request) {
+        if (!user.isStudent()) {
+            throw new IllegalArgumentException("Only students can view class queries");
+        }
+        return classQueries(user.getClassGrade(), request);
     }
     
     @GetMapping("/class/{classGrade}")
-    public ResponseEntity<List<QueryDTO>> getQueriesByClass(@PathVariable Integer classGrade) {
-        List<QueryDTO> queries = queryService.getQueriesByClass(classGrade);
-        return ResponseEntity.ok(queries);
+    public ResponseEntity<byte[]> getQueriesByClass(@PathVariable Integer classGrade, WebRequest request) {
+        return classQueries(classGrade, request);
+    }
+    
+    private ResponseEntity<byte[]> classQueries(Integer classGrade, WebRequest request) {
+        return responseCache.respond(request, ClassScope.QUERIES, classGrade,
+            () -> queryService.getQueriesByClass(classGrade));
     }
     
     @GetMapping("/all")
-    public ResponseEntity<List<QueryDTO>> getAllQueries() {
-        List<QueryDTO> queries = queryService.getAllQueries();
-        return ResponseEntity.ok(queries);
+    public ResponseEntity<?> getAllQueries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return pagination.respond(cursor, limit, queryService::getQueriesPage);
     }
     
     @GetMapping("/{queryId}")
@@ -65,9 +71,7 @@ public class QueryController {
     public ResponseEntity<QueryReplyDTO> addReply(
             @PathVariable Long queryId,
             @Valid @RequestBody CreateReplyRequest request,
-            Authentication authentication) {
-        User user = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+            UserPrincipal user) {
         QueryReplyDTO reply = queryService.addReply(queryId, user.getId(), request);
         return ResponseEntity.ok(reply);
     }
@@ -97,9 +101,7 @@ public class QueryController {
     }
     
     @GetMapping("/is-blocked")
-    public ResponseEntity<Map<String, Boolean>> isBlocked(Authentication authentication) {
-        User student = userRepository.findByEmail(authentication.getName())
-            .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
+    public ResponseEntity<Map<String, Boolean>> isBlocked(UserPrincipal student) {
         boolean blocked = queryService.isStudentBlocked(student.getId());
         return ResponseEntity.ok(Map.of("blocked", blocked));
     }
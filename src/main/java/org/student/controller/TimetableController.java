@@ -4,6 +4,9 @@ import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.student.cache.ClassResponseCache;
+import org.student.cache.ClassScope;
 import org.student.dto.ApiResponse;
 import org.student.dto.CreateTimetableRequest;
 import org.student.dto.TimetableDTO;
@@ -16,9 +19,11 @@ import java.util.List;
 public class TimetableController {
     
     private final TimetableService timetableService;
+    private final ClassResponseCache responseCache;
     
-    public TimetableController(TimetableService timetableService) {
+    public TimetableController(TimetableService timetableService, ClassResponseCache responseCache) {
         this.timetableService = timetableService;
+        this.responseCache = responseCache;
     }
     
     @PostMapping
@@ -45,9 +50,9 @@ public class TimetableController {
     }
     
     @GetMapping("/class/{classGrade}")
-    public ResponseEntity<List<TimetableDTO>> getTimetableByClass(@PathVariable Integer classGrade) {
-        List<TimetableDTO> timetables = timetableService.getTimetableByClass(classGrade);
-        return ResponseEntity.ok(timetables);
+    public ResponseEntity<byte[]> getTimetableByClass(@PathVariable Integer classGrade, WebRequest request) {
+        return responseCache.respond(request, ClassScope.TIMETABLE, classGrade,
+            () -> timetableService.getTimetableByClass(classGrade));
     }
     
     @GetMapping("/all")
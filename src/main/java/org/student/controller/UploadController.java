@@ -0,0 +1,91 @@
+package org.student.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.student.dto.CreateUploadRequest;
+import org.student.dto.UploadSessionDTO;
+import org.student.security.UserPrincipal;
+import org.student.service.UploadSessionService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resumable alternative to {@code POST /api/assignments/upload-file} for connections that drop:
+ * create a session, PUT the file in chunks with an {@code Upload-Offset} header, GET the session
+ * to find where to resume after a failure, then POST {@code /complete} for the file URL.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+@PreAuthorize("hasRole('TEACHER') or hasRole('STUDENT')")
+public class UploadController {
+    
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+    
+    private final UploadSessionService uploadSessionService;
+    
+    public UploadController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+    
+    @PostMapping
+    public ResponseEntity<UploadSessionDTO> createUpload(
+            @Valid @RequestBody CreateUploadRequest request,
+            UserPrincipal user) throws IOException {
+        
+        UploadSessionDTO session = uploadSessionService.createSession(
+            user.getId(), request.getFilename(), request.getContentType(), request.getSize());
+        return ResponseEntity.created(URI.create("/api/uploads/" + session.getId())).body(session);
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDTO> getUpload(@PathVariable String id, UserPrincipal user) {
+        UploadSessionDTO session = uploadSessionService.getSession(user.getId(), id);
+        return ResponseEntity.ok()
+            .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+            .body(session);
+    }
+    
+    // The body is the raw chunk, read straight from the request stream
+    @PutMapping("/{id}")
+    public ResponseEntity<UploadSessionDTO> uploadChunk(
+            @PathVariable String id,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request,
+            UserPrincipal user) throws IOException {
+        
+        UploadSessionDTO session;
+        try (InputStream body = request.getInputStream()) {
+            session = uploadSessionService.appendChunk(user.getId(), id, offset, body);
+        }
+        return ResponseEntity.ok()
+            .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+            .body(session);
+    }
+    
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<Map<String, String>> completeUpload(@PathVariable String id, UserPrincipal user)
+            throws IOException {
+        
+        String filename = uploadSessionService.getSession(user.getId(), id).getFilename();
+        String fileUrl = uploadSessionService.complete(user.getId(), id);
+        
+        Map<String, String> response = new HashMap<>();
+        response.put("url", fileUrl);
+        response.put("filename", filename);
+        return ResponseEntity.ok(response);
+    }
+    
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable String id, UserPrincipal user) throws IOException {
+        uploadSessionService.cancel(user.getId(), id);
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+}
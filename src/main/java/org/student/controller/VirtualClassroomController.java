@@ -4,6 +4,9 @@ import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.student.cache.ClassResponseCache;
+import org.student.cache.ClassScope;
 import org.student.dto.UpdateMeetingLinkRequest;
 import org.student.dto.VirtualClassroomDTO;
 import org.student.service.VirtualClassroomService;
@@ -15,16 +18,19 @@ import java.util.List;
 public class VirtualClassroomController {
     
     private final VirtualClassroomService virtualClassroomService;
+    private final ClassResponseCache responseCache;
     
-    public VirtualClassroomController(VirtualClassroomService virtualClassroomService) {
+    public VirtualClassroomController(VirtualClassroomService virtualClassroomService,
+                                      ClassResponseCache responseCache) {
         this.virtualClassroomService = virtualClassroomService;
+        this.responseCache = responseCache;
     }
     
     @GetMapping("/my-classroom/{classGrade}")
     @PreAuthorize("hasRole('STUDENT') or hasRole('TEACHER')")
-    public ResponseEntity<VirtualClassroomDTO> getMyClassroom(@PathVariable Integer classGrade) {
-        VirtualClassroomDTO classroom = virtualClassroomService.getClassroomByGrade(classGrade);
-        return ResponseEntity.ok(classroom);
+    public ResponseEntity<byte[]> getMyClassroom(@PathVariable Integer classGrade, WebRequest request) {
+        return responseCache.respond(request, ClassScope.VIRTUAL_CLASSROOM, classGrade,
+            () -> virtualClassroomService.getClassroomByGrade(classGrade));
     }
     
     @GetMapping("/all")
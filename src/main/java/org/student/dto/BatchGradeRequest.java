@@ -0,0 +1,20 @@
+package org.student.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGradeRequest {
+    
+    // Items are validated one by one in the service so a bad mark only fails its own entry
+    @NotEmpty(message = "At least one grade is required")
+    @Size(max = 500, message = "At most 500 grades can be submitted at once")
+    private List<GradeSubmissionRequest> grades;
+}
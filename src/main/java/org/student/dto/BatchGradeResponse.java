@@ -0,0 +1,20 @@
+package org.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch grading request: valid items are applied, invalid ones are reported
+ * in {@code results} (in request order) without affecting the rest.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGradeResponse {
+    private int graded;
+    private int failed;
+    private List<BatchGradeResult> results;
+}
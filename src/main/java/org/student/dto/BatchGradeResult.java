@@ -0,0 +1,14 @@
+package org.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGradeResult {
+    private Long submissionId;
+    private boolean success;
+    private String message;
+}
@@ -0,0 +1,24 @@
+package org.student.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateUploadRequest {
+    
+    @NotBlank(message = "File name is required")
+    private String filename;
+    
+    @NotBlank(message = "File type is required")
+    private String contentType;
+    
+    @NotNull(message = "File size is required")
+    @Positive(message = "File size must be positive")
+    private Long size;
+}
@@ -0,0 +1,32 @@
+package org.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.student.pagination.PageCursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    /**
+     * Builds a page from rows fetched with {@code limit + 1}: the extra row only signals that
+     * another page exists and is dropped, and the cursor points at the last row kept.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int limit,
+                                          Function<E, T> mapper, Function<E, PageCursor> cursorOf) {
+        boolean hasMore = rows.size() > limit;
+        List<E> kept = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(kept.get(kept.size() - 1)).encode() : null;
+        return new CursorPage<>(kept.stream().map(mapper).toList(), nextCursor);
+    }
+}
@@ -0,0 +1,16 @@
+package org.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A row that points at a stored file: its id (for paging) and the URL column.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileReference {
+    private Long id;
+    private String url;
+}
@@ -39,4 +39,13 @@ public class GenerateAssignmentRequest {
     
     @NotBlank(message = "Complexity is required")
     private String complexity; // EASY, MEDIUM, HARD
+    
+    // A/B/C... versions with different questions, generated at the same time; empty means one
+    @Min(value = 1, message = "At least one variant")
+    @Max(value = 4, message = "At most 4 variants")
+    private Integer variants;
+    
+    public int variantCount() {
+        return variants == null ? 1 : variants;
+    }
 }
@@ -0,0 +1,30 @@
+package org.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationJobDTO {
+    private String id;
+    // QUEUED, RUNNING, SUCCEEDED or FAILED
+    private String status;
+    private String topic;
+    private Integer classGrade;
+    // Set once SUCCEEDED
+    private String content;
+    private Boolean cached;
+    // Requested variants left out of content because they failed or missed the deadline
+    private List<String> missingVariants;
+    // Set once FAILED
+    private String error;
+    // Groq calls made so far, including ones that were rate limited
+    private Integer attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,62 @@
+package org.student.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Student x assignment matrix for one class in a column-oriented layout: every
+ * field of a section is a parallel array, so row i is read across the arrays.
+ * When {@code incremental} is true only submissions changed since the requested
+ * timestamp are included; pass {@code asOf} back as {@code since} on the next poll.
+ */
+@Data
+public class GradebookDTO {
+    private Integer classGrade;
+    private boolean incremental;
+    
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private LocalDateTime asOf;
+    
+    private AssignmentColumns assignments = new AssignmentColumns();
+    private StudentColumns students = new StudentColumns();
+    private SubmissionColumns submissions = new SubmissionColumns();
+    
+    @Data
+    public static class AssignmentColumns {
+        private List<Long> id = new ArrayList<>();
+        private List<String> title = new ArrayList<>();
+        private List<String> description = new ArrayList<>();
+        private List<Integer> totalMarks = new ArrayList<>();
+        
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+        private List<LocalDateTime> dueDate = new ArrayList<>();
+    }
+    
+    @Data
+    public static class StudentColumns {
+        private List<Long> id = new ArrayList<>();
+        private List<String> name = new ArrayList<>();
+        private List<String> email = new ArrayList<>();
+    }
+    
+    @Data
+    public static class SubmissionColumns {
+        private List<Long> id = new ArrayList<>();
+        private List<Long> assignmentId = new ArrayList<>();
+        private List<Long> studentId = new ArrayList<>();
+        private List<String> status = new ArrayList<>();
+        private List<Integer> marks = new ArrayList<>();
+        private List<Boolean> late = new ArrayList<>();
+        
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+        private List<LocalDateTime> submittedAt = new ArrayList<>();
+        
+        private List<String> attachmentUrl = new ArrayList<>();
+        private List<Boolean> hasFeedback = new ArrayList<>();
+        private List<String> preview = new ArrayList<>();
+    }
+}
@@ -0,0 +1,29 @@
+package org.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.student.entity.AssignmentSubmission;
+
+import java.time.LocalDateTime;
+
+/**
+ * One submission cell of the gradebook, as read by the set-based gradebook query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradebookRow {
+    private Long submissionId;
+    private Long assignmentId;
+    private Long studentId;
+    private String studentName;
+    private String studentEmail;
+    private AssignmentSubmission.SubmissionStatus status;
+    private Integer marksObtained;
+    private Boolean isLate;
+    private LocalDateTime submittedAt;
+    private String attachmentUrl;
+    private Boolean hasFeedback;
+    private String preview;
+}
@@ -0,0 +1,14 @@
+package org.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.student.entity.AssignmentSubmission;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionStatusDTO {
+    private Long assignmentId;
+    private AssignmentSubmission.SubmissionStatus status;
+}
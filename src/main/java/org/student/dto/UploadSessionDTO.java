@@ -0,0 +1,16 @@
+package org.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDTO {
+    private String id;
+    private String filename;
+    private Long size;
+    // Bytes received so far; the next chunk starts here
+    private Long offset;
+}
@@ -4,11 +4,14 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "assignment_submissions")
+@Table(name = "assignment_submissions",
+       uniqueConstraints = @UniqueConstraint(name = "uk_assignment_submissions_assignment_student",
+                                             columnNames = {"assignment_id", "student_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,6 +46,10 @@ public class AssignmentSubmission {
     @Column(columnDefinition = "TEXT")
     private String feedback;
     
+    // Touched on submit and on every grade change; drives incremental gradebook refresh
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+    
     public enum SubmissionStatus {
         PENDING, SUBMITTED, GRADED
     }
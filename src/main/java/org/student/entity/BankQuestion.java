@@ -0,0 +1,48 @@
+package org.student.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One question taken out of a Groq-generated assignment, tagged so it can be reused when a
+ * teacher assembles a new assignment from the question bank.
+ */
+@Entity
+@Table(name = "bank_questions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankQuestion {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Integer classGrade;
+    
+    // Trimmed, lower case, single spaces, so "Algebra " and "algebra" are the same topic
+    @Column(nullable = false)
+    private String topic;
+    
+    // EASY, MEDIUM, HARD
+    @Column(nullable = false, length = 10)
+    private String complexity;
+    
+    @Column(nullable = false)
+    private Integer marks;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String text;
+    
+    // Lower-case hex SHA-256 of the tags and the text; the same question is stored once
+    @Column(nullable = false, unique = true, length = 64)
+    private String contentHash;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
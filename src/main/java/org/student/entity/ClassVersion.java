@@ -0,0 +1,31 @@
+package org.student.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last persisted value of a {@code ClassVersions} counter, so ETags keep counting forward
+ * across restarts instead of starting again from zero.
+ */
+@Entity
+@Table(name = "class_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassVersion {
+    
+    // e.g. "ASSIGNMENTS:8" or "student:42"
+    @Id
+    @Column(length = 64)
+    private String versionKey;
+    
+    @Column(nullable = false)
+    private Long version;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,38 @@
+package org.student.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Groq-generated assignment kept so the same request (topic, class, complexity, question
+ * counts, model) is answered without calling Groq again.
+ */
+@Entity
+@Table(name = "generated_assignments")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeneratedAssignment {
+    
+    // Lower-case hex SHA-256 of requestKey
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+    
+    // The normalized request, e.g. "llama-3.3-70b-versatile|6|fractions|MEDIUM|5|3|2|1"
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String requestKey;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String content;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime lastUsedAt;
+}
@@ -0,0 +1,46 @@
+package org.student.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An uploaded file stored once under its SHA-256. {@code refCount} counts the assignment,
+ * submission and learning material rows whose URL points at it.
+ */
+@Entity
+@Table(name = "stored_blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+    
+    // Lower-case hex SHA-256 of the content
+    @Id
+    @Column(length = 64)
+    private String sha256;
+    
+    @Column(nullable = false, length = 512)
+    private String objectKey;
+    
+    @Column(nullable = false, unique = true, length = 1024)
+    private String url;
+    
+    @Column(nullable = false)
+    private Long sizeBytes;
+    
+    private String contentType;
+    
+    @Column(nullable = false)
+    private Integer refCount = 0;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Last upload or reference change; unreferenced blobs are judged from here
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
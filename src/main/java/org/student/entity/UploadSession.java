@@ -0,0 +1,47 @@
+package org.student.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload in progress. The bytes received so far sit in a temp file named after the
+ * session id; {@code receivedBytes} is the offset the next chunk has to start at.
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+    
+    // Random UUID, also the temp file name
+    @Id
+    @Column(length = 36)
+    private String id;
+    
+    @Column(nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private String filename;
+    
+    @Column(nullable = false)
+    private String contentType;
+    
+    @Column(nullable = false)
+    private Long totalSize;
+    
+    @Column(nullable = false)
+    private Long receivedBytes;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Last chunk received; sessions idle past the expiry are purged
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
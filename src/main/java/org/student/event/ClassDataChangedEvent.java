@@ -0,0 +1,13 @@
+package org.student.event;
+
+import lombok.Value;
+import org.student.cache.ClassScope;
+
+/**
+ * Published by write paths whenever data shown on a per-class endpoint changes.
+ */
+@Value
+public class ClassDataChangedEvent {
+    ClassScope scope;
+    Integer classGrade;
+}
@@ -0,0 +1,12 @@
+package org.student.event;
+
+import lombok.Value;
+
+/**
+ * Published when a student's submission is created or graded, which changes that
+ * student's hasSubmitted / isGraded flags on the assignment list.
+ */
+@Value
+public class StudentSubmissionsChangedEvent {
+    Long studentId;
+}
@@ -0,0 +1,12 @@
+package org.student.event;
+
+import lombok.Value;
+
+/**
+ * Published whenever a user is created, changes status or is removed,
+ * so anything caching that user can drop its copy once the transaction commits.
+ */
+@Value
+public class UserChangedEvent {
+    String supabaseUserId;
+}
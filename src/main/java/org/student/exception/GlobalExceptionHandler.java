@@ -46,6 +46,13 @@ public class GlobalExceptionHandler {
             .body(new ApiResponse(false, ex.getMessage()));
     }
     
+    @ExceptionHandler(UploadOffsetConflictException.class)
+    public ResponseEntity<ApiResponse> handleUploadOffsetConflictException(UploadOffsetConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .header("Upload-Offset", String.valueOf(ex.getCurrentOffset()))
+            .body(new ApiResponse(false, ex.getMessage()));
+    }
+    
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
         return ResponseEntity.badRequest()
@@ -0,0 +1,21 @@
+package org.student.exception;
+
+import java.time.Duration;
+
+/**
+ * An upstream API answered 429. {@link #getRetryAfter()} is how long it asked us to wait, or a
+ * default when it did not say.
+ */
+public class RateLimitedException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public RateLimitedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
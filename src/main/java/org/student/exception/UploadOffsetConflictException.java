@@ -0,0 +1,19 @@
+package org.student.exception;
+
+/**
+ * A chunk was sent for an offset other than the one the upload session is at. The client
+ * resumes from {@link #getCurrentOffset()}.
+ */
+public class UploadOffsetConflictException extends RuntimeException {
+    
+    private final long currentOffset;
+    
+    public UploadOffsetConflictException(long currentOffset) {
+        super("Upload is at offset " + currentOffset);
+        this.currentOffset = currentOffset;
+    }
+    
+    public long getCurrentOffset() {
+        return currentOffset;
+    }
+}
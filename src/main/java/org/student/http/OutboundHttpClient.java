@@ -0,0 +1,435 @@
+package org.student.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.SSLSession;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one {@link HttpClient} for calls leaving the application (Supabase Storage, Groq), with a
+ * policy per destination so a slow or failing service only affects its own callers.
+ *
+ * <p>Each destination has:
+ * <ul>
+ *   <li>a bulkhead: at most {@code max-concurrent} calls in flight, and a caller waits at most
+ *       {@code acquire-timeout-ms} for a slot. A destination that stops answering ties up that
+ *       many request threads, not all of Tomcat's.</li>
+ *   <li>a request timeout, used when the request does not set its own.</li>
+ *   <li>retries with jittered exponential backoff on connection errors and 502/503/504, for
+ *       idempotent calls only.</li>
+ *   <li>a circuit breaker: after {@code failure-threshold} failures in a row, calls fail
+ *       immediately for {@code open-seconds}, then a single trial call decides whether it closes.</li>
+ * </ul>
+ *
+ * <p>Settings come from {@code outbound-http.destinations.<name>.*}. Every attempt is timed in
+ * {@code http.client.outbound} (a histogram tagged by destination, method and outcome).
+ */
+@Component
+public class OutboundHttpClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboundHttpClient.class);
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "PUT", "DELETE", "OPTIONS");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(502, 503, 504);
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+
+    public OutboundHttpClient(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        // Runs the client's connection and body handling; callers of send() still block on their own thread
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "outbound-http-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // HTTP/2 where the server offers it over TLS, so concurrent calls share one connection
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(environment.getProperty("outbound-http.connect-timeout-seconds", Integer.class, 10)))
+            .executor(executor)
+            .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * The destination with the given name, created with its configured policy on first use.
+     */
+    public Destination destination(String name) {
+        return destinations.computeIfAbsent(name, Destination::new);
+    }
+
+    /**
+     * One downstream service. Shared by all callers of that service, so the limits apply across them.
+     */
+    public final class Destination {
+
+        private final String name;
+        private final int maxConcurrent;
+        private final Semaphore permits;
+        private final Duration acquireTimeout;
+        private final Duration requestTimeout;
+        private final int maxAttempts;
+        private final long backoffMillis;
+        private final int failureThreshold;
+        private final Duration openDuration;
+        private final Counter retries;
+
+        // Circuit state, guarded by this
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private boolean open;
+        private boolean trialInFlight;
+
+        private Destination(String name) {
+            this.name = name;
+            String prefix = "outbound-http.destinations." + name + ".";
+            this.maxConcurrent = environment.getProperty(prefix + "max-concurrent", Integer.class, 10);
+            this.permits = new Semaphore(maxConcurrent, true);
+            this.acquireTimeout = Duration.ofMillis(environment.getProperty(prefix + "acquire-timeout-ms", Long.class, 2000L));
+            this.requestTimeout = Duration.ofSeconds(environment.getProperty(prefix + "request-timeout-seconds", Long.class, 30L));
+            this.maxAttempts = Math.max(1, environment.getProperty(prefix + "max-attempts", Integer.class, 3));
+            this.backoffMillis = environment.getProperty(prefix + "backoff-ms", Long.class, 200L);
+            this.failureThreshold = environment.getProperty(prefix + "failure-threshold", Integer.class, 5);
+            this.openDuration = Duration.ofSeconds(environment.getProperty(prefix + "open-seconds", Long.class, 30L));
+
+            this.retries = Counter.builder("http.client.outbound.retries")
+                .description("Outbound calls sent again after a failed attempt")
+                .tag("destination", name)
+                .register(meterRegistry);
+            Gauge.builder("http.client.outbound.in-flight", permits, p -> maxConcurrent - p.availablePermits())
+                .description("Outbound calls currently holding a bulkhead slot")
+                .tag("destination", name)
+                .register(meterRegistry);
+            Gauge.builder("http.client.outbound.circuit-open", this, d -> d.isOpen() ? 1 : 0)
+                .description("1 while calls to the destination are failing fast")
+                .tag("destination", name)
+                .register(meterRegistry);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Sends the request, retrying only if its method is idempotent. A body handled as an
+         * {@link InputStream} keeps the call's slot, and its time in {@code http.client.outbound},
+         * until the stream is closed, so the caller must always close it.
+         */
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+                throws IOException, InterruptedException {
+            return send(request, handler, IDEMPOTENT_METHODS.contains(request.method()));
+        }
+
+        /**
+         * Sends the request. Pass {@code idempotent} for a POST that only reads, such as a search;
+         * its body publisher must then be able to send the body more than once.
+         *
+         * @throws OutboundRejectedException if the circuit is open or no slot frees up in time
+         */
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler, boolean idempotent)
+                throws IOException, InterruptedException {
+            HttpRequest timed = withTimeout(request);
+            int attempts = idempotent ? maxAttempts : 1;
+            for (int attempt = 1; ; attempt++) {
+                boolean last = attempt >= attempts;
+                try {
+                    // Bodies of responses that will be retried are discarded instead of read
+                    HttpResponse<T> response = attempt(timed, last ? handler : discardingRetryable(handler));
+                    if (last || !RETRYABLE_STATUSES.contains(response.statusCode())) {
+                        return response;
+                    }
+                    logger.debug("{} {} to {} returned {}, retrying", timed.method(), timed.uri().getPath(), name,
+                        response.statusCode());
+                } catch (OutboundRejectedException e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (last) {
+                        throw e;
+                    }
+                    logger.debug("{} {} to {} failed ({}), retrying", timed.method(), timed.uri().getPath(), name,
+                        e.toString());
+                }
+                retries.increment();
+                Thread.sleep(backoff(attempt));
+            }
+        }
+
+        private <T> HttpResponse<T> attempt(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+                throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            String outcome = "REJECTED";
+            String status = "NONE";
+            boolean trial = false;
+            boolean streaming = false;
+            try {
+                trial = enterCircuit(request);
+                if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new OutboundRejectedException(name + " already has " + maxConcurrent + " calls in flight");
+                }
+                try {
+                    outcome = "IO_ERROR";
+                    HttpResponse<T> response = httpClient.send(request, handler);
+                    status = String.valueOf(response.statusCode());
+                    outcome = outcomeOf(response.statusCode());
+                    recordResult(trial, response.statusCode() < 500);
+                    trial = false;
+                    if (response.body() instanceof InputStream body) {
+                        // Only the headers have arrived; the slot and the timer are given up when
+                        // the caller closes the stream
+                        streaming = true;
+                        return holdUntilClosed(response, body, request, outcome, status, start);
+                    }
+                    return response;
+                } catch (IOException e) {
+                    recordResult(trial, false);
+                    trial = false;
+                    throw e;
+                } finally {
+                    if (!streaming) {
+                        permits.release();
+                    }
+                }
+            } finally {
+                if (trial) {
+                    abandonTrial(); // Rejected or interrupted before the trial call got an answer
+                }
+                if (!streaming) {
+                    record(request, outcome, status, start);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> HttpResponse<T> holdUntilClosed(HttpResponse<T> response, InputStream body, HttpRequest request,
+                                                    String outcome, String status, long start) {
+            AtomicBoolean closed = new AtomicBoolean();
+            InputStream held = new FilterInputStream(body) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        if (closed.compareAndSet(false, true)) {
+                            permits.release();
+                            record(request, outcome, status, start);
+                        }
+                    }
+                }
+            };
+            return new StreamedResponse<>(response, (T) held);
+        }
+
+        /**
+         * Sends the request without waiting for it, for responses that are consumed as they arrive
+         * such as a token stream. The call holds its bulkhead slot until the returned future
+         * completes, which for a streaming body handler is when the last byte has been handled.
+         * Cancelling the future aborts the call. Never retried.
+         *
+         * @throws OutboundRejectedException if the circuit is open or no slot frees up in time
+         */
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+                throws OutboundRejectedException, InterruptedException {
+            HttpRequest timed = withTimeout(request);
+            long start = System.nanoTime();
+            boolean trial = enterCircuit(timed);
+            try {
+                if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new OutboundRejectedException(name + " already has " + maxConcurrent + " calls in flight");
+                }
+            } catch (OutboundRejectedException | InterruptedException e) {
+                if (trial) {
+                    abandonTrial();
+                }
+                record(timed, "REJECTED", "NONE", start);
+                throw e;
+            }
+
+            CompletableFuture<HttpResponse<T>> call = httpClient.sendAsync(timed, handler);
+            call.whenComplete((response, failure) -> {
+                permits.release();
+                if (failure instanceof CancellationException) {
+                    // Given up by the caller, which says nothing about the destination
+                    if (trial) {
+                        abandonTrial();
+                    }
+                    record(timed, "CANCELLED", "NONE", start);
+                } else if (failure != null) {
+                    recordResult(trial, false);
+                    record(timed, "IO_ERROR", "NONE", start);
+                } else {
+                    recordResult(trial, response.statusCode() < 500);
+                    record(timed, outcomeOf(response.statusCode()), String.valueOf(response.statusCode()), start);
+                }
+            });
+            return call;
+        }
+
+        private HttpRequest withTimeout(HttpRequest request) {
+            return request.timeout().isPresent()
+                ? request
+                : HttpRequest.newBuilder(request, (header, value) -> true).timeout(requestTimeout).build();
+        }
+
+        private void record(HttpRequest request, String outcome, String status, long startNanos) {
+            Timer.builder("http.client.outbound")
+                .description("Outbound HTTP call attempts")
+                .tag("destination", name)
+                .tag("method", request.method())
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Lets a call through or fails it fast. Returns whether the call is the trial that decides
+         * if an open circuit closes.
+         */
+        private synchronized boolean enterCircuit(HttpRequest request) throws OutboundRejectedException {
+            if (!open) {
+                return false;
+            }
+            if (System.nanoTime() - openUntilNanos < 0 || trialInFlight) {
+                throw new OutboundRejectedException(name + " is failing; not calling " + request.uri().getPath()
+                    + " for now");
+            }
+            trialInFlight = true;
+            return true;
+        }
+
+        private synchronized void recordResult(boolean trial, boolean success) {
+            if (trial) {
+                trialInFlight = false;
+            }
+            if (success) {
+                if (open) {
+                    logger.info("Calls to {} are succeeding again; circuit closed", name);
+                }
+                open = false;
+                consecutiveFailures = 0;
+                return;
+            }
+            consecutiveFailures++;
+            if (trial || (!open && consecutiveFailures >= failureThreshold)) {
+                if (!open) {
+                    logger.warn("{} failed {} times in a row; failing calls fast for {}s", name, consecutiveFailures,
+                        openDuration.toSeconds());
+                }
+                open = true;
+                openUntilNanos = System.nanoTime() + openDuration.toNanos();
+            }
+        }
+
+        private synchronized void abandonTrial() {
+            trialInFlight = false;
+        }
+
+        private synchronized boolean isOpen() {
+            return open;
+        }
+
+        // Exponential, with the delay drawn from the upper half so concurrent callers spread out
+        private long backoff(int attempt) {
+            long ceiling = backoffMillis << Math.min(attempt - 1, 10);
+            return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+        }
+    }
+
+    // A response whose body is replaced by one that holds the call's slot
+    private record StreamedResponse<T>(HttpResponse<T> response, T body) implements HttpResponse<T> {
+
+        @Override
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return response.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return response.previousResponse();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return response.headers();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return response.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return response.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return response.version();
+        }
+    }
+
+    private static <T> HttpResponse.BodyHandler<T> discardingRetryable(HttpResponse.BodyHandler<T> handler) {
+        return info -> RETRYABLE_STATUSES.contains(info.statusCode())
+            ? HttpResponse.BodySubscribers.replacing(null)
+            : handler.apply(info);
+    }
+
+    private static String outcomeOf(int status) {
+        if (status >= 500) {
+            return "SERVER_ERROR";
+        }
+        if (status >= 400) {
+            return "CLIENT_ERROR";
+        }
+        if (status >= 300) {
+            return "REDIRECTION";
+        }
+        return "SUCCESS";
+    }
+}
@@ -0,0 +1,14 @@
+package org.student.http;
+
+import java.io.IOException;
+
+/**
+ * A call that was never sent: the destination's circuit is open or all of its concurrent calls
+ * are in use. An {@link IOException} so callers handle it like the destination being unreachable.
+ */
+public class OutboundRejectedException extends IOException {
+
+    public OutboundRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,92 @@
+package org.student.image;
+
+import java.awt.geom.AffineTransform;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the EXIF orientation tag from the start of a JPEG. Phones store photos in sensor order
+ * and record the rotation here, so once the metadata is dropped the rotation has to be applied
+ * to the pixels or the page comes out sideways.
+ */
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    private static final int ORIENTATION_TAG = 0x0112;
+    private static final int SOI = 0xFFD8;
+    private static final int APP1 = 0xFFE1;
+    private static final int SOS = 0xFFDA;
+
+    private ExifOrientation() {
+    }
+
+    /**
+     * The orientation (1-8), or {@link #NORMAL} if the stream is not a JPEG or has no tag.
+     */
+    static int read(InputStream jpeg) throws IOException {
+        DataInputStream in = new DataInputStream(jpeg);
+        if (in.readUnsignedShort() != SOI) {
+            return NORMAL;
+        }
+        while (true) {
+            int marker = in.readUnsignedShort();
+            if ((marker & 0xFF00) != 0xFF00 || marker == SOS) {
+                return NORMAL; // Image data starts; EXIF always comes before it
+            }
+            int length = in.readUnsignedShort() - 2;
+            if (length < 0) {
+                return NORMAL;
+            }
+            byte[] segment = new byte[length];
+            in.readFully(segment);
+            if (marker == APP1 && length > 14 && new String(segment, 0, 4, "US-ASCII").equals("Exif")) {
+                return fromTiff(ByteBuffer.wrap(segment, 6, length - 6).slice());
+            }
+        }
+    }
+
+    private static int fromTiff(ByteBuffer tiff) {
+        try {
+            tiff.order(tiff.getShort(0) == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN); // "II" or "MM"
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                    int value = tiff.getShort(entry + 8) & 0xFFFF;
+                    return value >= 1 && value <= 8 ? value : NORMAL;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated or malformed EXIF; treat as upright
+        }
+        return NORMAL;
+    }
+
+    /**
+     * The transform that turns a {@code width} x {@code height} image as stored into the upright
+     * picture. Orientations 5-8 swap width and height.
+     */
+    static AffineTransform transform(int orientation, int width, int height) {
+        AffineTransform t = new AffineTransform();
+        switch (orientation) {
+            case 2 -> { t.translate(width, 0); t.scale(-1, 1); }
+            case 3 -> { t.translate(width, height); t.rotate(Math.PI); }
+            case 4 -> { t.translate(0, height); t.scale(1, -1); }
+            case 5 -> { t.rotate(-Math.PI / 2); t.scale(-1, 1); }
+            case 6 -> { t.translate(height, 0); t.rotate(Math.PI / 2); }
+            case 7 -> { t.translate(height, width); t.rotate(Math.PI / 2); t.scale(-1, 1); }
+            case 8 -> { t.translate(0, width); t.rotate(3 * Math.PI / 2); }
+            default -> { }
+        }
+        return t;
+    }
+
+    static boolean swapsDimensions(int orientation) {
+        return orientation >= 5 && orientation <= 8;
+    }
+}
@@ -0,0 +1,306 @@
+package org.student.image;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+import org.student.service.FileStorageService;
+
+import javax.imageio.IIOException;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns photographed pages of a submission into one PDF. Each photo is decoded at roughly the
+ * size it will be shown, turned upright from its EXIF orientation, scaled so the long edge is at
+ * most {@code images.max-dimension}, and re-encoded as a JPEG page. Re-encoding drops all photo
+ * metadata (location, device), and a 12MP phone photo ends up a few hundred KB.
+ *
+ * <p>Decoding a full-size photo takes tens of MB of heap, so the work runs on a small fixed pool
+ * with a bounded queue instead of request threads. When the queue is full the set is refused with
+ * {@link RejectedExecutionException} rather than piling up in memory.
+ */
+@Component
+public class ImagePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImagePipeline.class);
+
+    private static final Set<String> IMAGE_TYPES = Set.of("image/jpeg", "image/png", "image/heic", "image/heif");
+    private static final long MAX_PHOTO_SIZE = 10 * 1024 * 1024; // 10MB, same as any upload
+    private static final long MAX_PIXELS = 100_000_000L; // Decoded even with subsampling; refuse decompression bombs
+    private static final float PAGE_MARGIN = 18; // Quarter inch, in PDF points
+
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolExecutor workers;
+    private final int maxDimension;
+    private final float jpegQuality;
+    private final int maxPhotos;
+
+    private final Timer processingTime;
+    private final Counter pages;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final DistributionSummary sizeRatio;
+
+    @Autowired
+    public ImagePipeline(FileStorageService fileStorageService,
+                         MeterRegistry meterRegistry,
+                         @Value("${images.workers:0}") int workers,
+                         @Value("${images.queue-capacity:20}") int queueCapacity,
+                         @Value("${images.max-dimension:2000}") int maxDimension,
+                         @Value("${images.jpeg-quality:0.75}") float jpegQuality,
+                         @Value("${images.max-photos:20}") int maxPhotos) {
+        this.fileStorageService = fileStorageService;
+        this.maxDimension = maxDimension;
+        this.jpegQuality = jpegQuality;
+        this.maxPhotos = maxPhotos;
+
+        // Decoding is CPU-bound; 0 means one worker per core, but at least two
+        int poolSize = workers > 0 ? workers : Math.max(2, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "image-pipeline-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.processingTime = Timer.builder("images.processing")
+            .description("Time to turn one set of photos into a PDF")
+            .register(meterRegistry);
+        this.pages = Counter.builder("images.pages")
+            .description("Photos processed into PDF pages")
+            .register(meterRegistry);
+        this.bytesIn = Counter.builder("images.bytes.in")
+            .description("Size of the photos as uploaded")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.bytesOut = Counter.builder("images.bytes.out")
+            .description("Size of the PDFs stored for them")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.sizeRatio = DistributionSummary.builder("images.size.ratio")
+            .description("Stored PDF size as a fraction of the uploaded photos")
+            .register(meterRegistry);
+        Gauge.builder("images.queue.size", this.workers, executor -> executor.getQueue().size())
+            .description("Photo sets waiting for a worker")
+            .register(meterRegistry);
+        Gauge.builder("images.workers.active", this.workers, ThreadPoolExecutor::getActiveCount)
+            .description("Workers processing a photo set")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    public static boolean isImage(String contentType) {
+        return contentType != null && IMAGE_TYPES.contains(contentType.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Checks the set on the calling thread, then builds and stores the PDF on a worker. The
+     * future completes with the stored PDF's URL, or with an {@link IllegalArgumentException} for
+     * a photo that cannot be read.
+     *
+     * @throws IllegalArgumentException if the set is empty, too large, or has a file that is not a photo
+     * @throws RejectedExecutionException if too many sets are already waiting
+     */
+    public CompletableFuture<String> toPdf(List<MultipartFile> photos) {
+        validate(photos);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return processingTime.recordCallable(() -> buildAndStore(photos));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, workers);
+    }
+
+    /**
+     * The name a stitched set is stored under: the first photo's name with a .pdf extension.
+     */
+    public static String pdfName(List<MultipartFile> photos) {
+        String name = photos.isEmpty() ? null : photos.get(0).getOriginalFilename();
+        if (name == null || name.isBlank()) {
+            return "photos.pdf";
+        }
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".pdf";
+    }
+
+    private void validate(List<MultipartFile> photos) {
+        if (photos == null || photos.isEmpty()) {
+            throw new IllegalArgumentException("No photos were uploaded");
+        }
+        if (photos.size() > maxPhotos) {
+            throw new IllegalArgumentException("At most " + maxPhotos + " photos can be combined into one submission");
+        }
+        for (MultipartFile photo : photos) {
+            if (photo.isEmpty()) {
+                throw new IllegalArgumentException("File is empty");
+            }
+            if (photo.getSize() > MAX_PHOTO_SIZE) {
+                throw new IllegalArgumentException("File size exceeds 10MB limit");
+            }
+            String contentType = photo.getContentType() == null ? "" : photo.getContentType().toLowerCase(Locale.ROOT);
+            if (!isImage(contentType)) {
+                throw new IllegalArgumentException("Invalid file type. Only JPEG, PNG and HEIC photos are allowed");
+            }
+            if ((contentType.equals("image/heic") || contentType.equals("image/heif"))
+                    && !ImageIO.getImageReadersByMIMEType(contentType).hasNext()) {
+                throw new IllegalArgumentException("HEIC photos can't be read yet. On iPhone choose Settings > "
+                    + "Camera > Formats > Most Compatible, or share the photo as JPEG");
+            }
+        }
+    }
+
+    private String buildAndStore(List<MultipartFile> photos) throws IOException {
+        long uploaded = photos.stream().mapToLong(MultipartFile::getSize).sum();
+        Path pdf = Files.createTempFile("photos-", ".pdf");
+        try {
+            // Pages are spooled to a temp file rather than kept on the heap until save
+            try (PDDocument document = new PDDocument(IOUtils.createTempFileOnlyStreamCache())) {
+                for (MultipartFile photo : photos) {
+                    addPage(document, readUpright(photo));
+                }
+                document.save(pdf.toFile());
+            }
+            long stored = Files.size(pdf);
+            String url = fileStorageService.uploadFile(pdf, pdfName(photos), "application/pdf");
+
+            pages.increment(photos.size());
+            bytesIn.increment(uploaded);
+            bytesOut.increment(stored);
+            sizeRatio.record((double) stored / uploaded);
+            logger.debug("Combined {} photos ({} bytes) into a {} byte PDF", photos.size(), uploaded, stored);
+            return url;
+        } finally {
+            Files.deleteIfExists(pdf);
+        }
+    }
+
+    private void addPage(PDDocument document, BufferedImage image) throws IOException {
+        PDImageXObject pageImage = JPEGFactory.createFromImage(document, image, jpegQuality);
+        PDRectangle size = image.getWidth() > image.getHeight()
+            ? new PDRectangle(PDRectangle.A4.getHeight(), PDRectangle.A4.getWidth())
+            : PDRectangle.A4;
+        PDPage page = new PDPage(size);
+        document.addPage(page);
+
+        float scale = Math.min((size.getWidth() - 2 * PAGE_MARGIN) / image.getWidth(),
+            (size.getHeight() - 2 * PAGE_MARGIN) / image.getHeight());
+        float width = image.getWidth() * scale;
+        float height = image.getHeight() * scale;
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.drawImage(pageImage, (size.getWidth() - width) / 2, (size.getHeight() - height) / 2, width, height);
+        }
+    }
+
+    /**
+     * Decodes a photo upright, on white, with its long edge at most {@code maxDimension}.
+     */
+    BufferedImage readUpright(MultipartFile photo) throws IOException {
+        int orientation;
+        try (InputStream in = photo.getInputStream()) {
+            orientation = ExifOrientation.read(in);
+        } catch (IOException e) {
+            orientation = ExifOrientation.NORMAL; // Not a JPEG, or no EXIF; the decoder decides below
+        }
+
+        BufferedImage decoded;
+        try (InputStream in = photo.getInputStream(); ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            // The reader is chosen from the content, not the declared type
+            Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException(photo.getOriginalFilename() + " is not a readable image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IllegalArgumentException(photo.getOriginalFilename() + " has too many pixels");
+                }
+                // Skip whole rows and columns while decoding, so a 4000px photo never exists at full size
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / maxDimension);
+                param.setSourceSubsampling(step, step, 0, 0);
+                decoded = reader.read(0, param);
+            } catch (IIOException e) {
+                throw new IllegalArgumentException(photo.getOriginalFilename() + " is not a readable image", e);
+            } finally {
+                reader.dispose();
+            }
+        }
+        return upright(decoded, orientation);
+    }
+
+    private BufferedImage upright(BufferedImage image, int orientation) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(image.getWidth(), image.getHeight()));
+        boolean swap = ExifOrientation.swapsDimensions(orientation);
+        int width = (int) Math.round((swap ? image.getHeight() : image.getWidth()) * scale);
+        int height = (int) Math.round((swap ? image.getWidth() : image.getHeight()) * scale);
+
+        AffineTransform transform = AffineTransform.getScaleInstance(scale, scale);
+        transform.concatenate(ExifOrientation.transform(orientation, image.getWidth(), image.getHeight()));
+
+        // RGB on white: JPEG has no alpha, and a transparent PNG would otherwise turn black
+        BufferedImage result = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, result.getWidth(), result.getHeight());
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+    }
+}
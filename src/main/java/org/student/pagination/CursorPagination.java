@@ -0,0 +1,54 @@
+package org.student.pagination;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.student.dto.CursorPage;
+
+import java.util.function.BiFunction;
+
+/**
+ * Shared request handling for the cursor-paginated list endpoints.
+ * A request with {@code cursor} or {@code limit} gets a {@link CursorPage}. A request with neither is
+ * served in compatibility mode: the plain JSON array older clients expect, capped at
+ * {@code pagination.compat-max-items}, with an {@code X-Next-Cursor} header when items were cut off.
+ */
+@Component
+public class CursorPagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    @Value("${pagination.default-page-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${pagination.max-page-size:200}")
+    private int maxPageSize = 200;
+
+    @Value("${pagination.compat-max-items:1000}")
+    private int compatMaxItems = 1000;
+
+    public <T> ResponseEntity<?> respond(String cursor, Integer limit,
+                                         BiFunction<String, Integer, CursorPage<T>> loader) {
+        if (cursor != null || limit != null) {
+            return ResponseEntity.ok(loader.apply(cursor, pageSize(limit)));
+        }
+
+        CursorPage<T> page = loader.apply(null, compatMaxItems);
+        if (page.getNextCursor() == null) {
+            return ResponseEntity.ok(page.getItems());
+        }
+        return ResponseEntity.ok()
+            .header(NEXT_CURSOR_HEADER, page.getNextCursor())
+            .body(page.getItems());
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null) {
+            return defaultPageSize;
+        }
+        if (requested < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+}
@@ -0,0 +1,110 @@
+package org.student.questionbank;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Question bank tags as bitmaps: question {@code i} is bit {@code i} in the set for its class,
+ * topic, complexity and marks. A lookup such as "Class 8, algebra, HARD, 3 marks" ANDs four
+ * bitmaps, so it takes microseconds however many questions there are. Questions are only ever
+ * added; the whole bank is a few MB even at tens of thousands of questions.
+ */
+public class QuestionIndex {
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // All guarded by lock
+    private final List<String> texts = new ArrayList<>();
+    private final Set<String> hashes = new HashSet<>();
+    private final Map<Integer, BitSet> byGrade = new HashMap<>();
+    private final Map<String, BitSet> byTopic = new HashMap<>();
+    private final Map<String, BitSet> byComplexity = new HashMap<>();
+    private final Map<Integer, BitSet> byMarks = new HashMap<>();
+    
+    /**
+     * Adds a question unless one with the same hash is already in. Tags are expected normalized.
+     *
+     * @return whether it was added
+     */
+    public boolean add(int classGrade, String topic, String complexity, int marks, String text, String contentHash) {
+        lock.writeLock().lock();
+        try {
+            if (!hashes.add(contentHash)) {
+                return false;
+            }
+            int bit = texts.size();
+            texts.add(text);
+            byGrade.computeIfAbsent(classGrade, key -> new BitSet()).set(bit);
+            byTopic.computeIfAbsent(topic, key -> new BitSet()).set(bit);
+            byComplexity.computeIfAbsent(complexity, key -> new BitSet()).set(bit);
+            byMarks.computeIfAbsent(marks, key -> new BitSet()).set(bit);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean contains(String contentHash) {
+        lock.readLock().lock();
+        try {
+            return hashes.contains(contentHash);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return texts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Up to {@code count} questions with all four tags, chosen at random so two assignments
+     * assembled from the same bank differ.
+     */
+    public List<String> pick(int classGrade, String topic, String complexity, int marks, int count) {
+        List<String> picked = new ArrayList<>();
+        if (count <= 0) {
+            return picked;
+        }
+        lock.readLock().lock();
+        try {
+            BitSet grade = byGrade.get(classGrade);
+            BitSet sameTopic = byTopic.get(topic);
+            BitSet sameComplexity = byComplexity.get(complexity);
+            BitSet sameMarks = byMarks.get(marks);
+            if (grade == null || sameTopic == null || sameComplexity == null || sameMarks == null) {
+                return picked;
+            }
+            BitSet matches = (BitSet) grade.clone();
+            matches.and(sameTopic);
+            matches.and(sameComplexity);
+            matches.and(sameMarks);
+            
+            // Partial Fisher-Yates: the first count entries end up a random sample
+            int[] candidates = matches.stream().toArray();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < Math.min(count, candidates.length); i++) {
+                int swap = i + random.nextInt(candidates.length - i);
+                int chosen = candidates[swap];
+                candidates[swap] = candidates[i];
+                candidates[i] = chosen;
+                picked.add(texts.get(chosen));
+            }
+            return picked;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.student.questionbank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits a generated assignment into its questions. The prompt asks for sections headed
+ * {@code SECTION A: 1-Mark Questions} and so on, with numbered questions under each; the model
+ * usually adds markdown around that, which is ignored. Lines under a question that are not a new
+ * number (options, sub-parts) belong to it. Anything outside a section, and answer keys or
+ * solutions after one, is skipped, as are the {@code VARIANT X} headings of a variant set.
+ */
+public final class QuestionParser {
+    
+    private static final Pattern SECTION = Pattern.compile("(?i)^section\\s+([a-d])\\b(.*)$");
+    private static final Pattern MARKS = Pattern.compile("(?i)(\\d{1,2})\\s*-?\\s*marks?\\b");
+    private static final Pattern QUESTION = Pattern.compile("(?i)^(?:q(?:uestion)?\\.?\\s*)?\\d{1,3}\\s*[.):]\\s+(.+)$");
+    private static final Pattern END_OF_SECTION = Pattern.compile(
+        "(?i)^(answers?|answer key|solutions?|marking scheme|hints?)\\s*(\\(.*\\))?\\s*:?$|^VARIANT [A-Z]$");
+    // The letters buildPrompt gives each section, for headings that lost their marks
+    private static final Map<String, Integer> SECTION_MARKS = Map.of("A", 1, "B", 2, "C", 3, "D", 5);
+    private static final int MIN_QUESTION_LENGTH = 5;
+    
+    private QuestionParser() {
+    }
+    
+    public record ParsedQuestion(int marks, String text) {
+    }
+    
+    public static List<ParsedQuestion> parse(String content) {
+        List<ParsedQuestion> questions = new ArrayList<>();
+        if (content == null) {
+            return questions;
+        }
+        Integer marks = null;
+        StringBuilder current = null;
+        for (String raw : content.split("\\R")) {
+            String line = clean(raw);
+            if (line.isEmpty()) {
+                continue;
+            }
+            Matcher section = SECTION.matcher(line);
+            if (section.matches()) {
+                add(questions, marks, current);
+                current = null;
+                Matcher sectionMarks = MARKS.matcher(section.group(2));
+                marks = sectionMarks.find() ? Integer.valueOf(sectionMarks.group(1))
+                    : SECTION_MARKS.get(section.group(1).toUpperCase(Locale.ROOT));
+                continue;
+            }
+            if (END_OF_SECTION.matcher(line).matches()) {
+                add(questions, marks, current);
+                current = null;
+                marks = null;
+                continue;
+            }
+            Matcher question = QUESTION.matcher(line);
+            if (question.matches()) {
+                add(questions, marks, current);
+                current = marks == null ? null : new StringBuilder(question.group(1));
+            } else if (current != null) {
+                current.append('\n').append(line);
+            }
+        }
+        add(questions, marks, current);
+        return questions;
+    }
+    
+    private static void add(List<ParsedQuestion> questions, Integer marks, StringBuilder text) {
+        if (marks != null && text != null && text.length() >= MIN_QUESTION_LENGTH) {
+            questions.add(new ParsedQuestion(marks, text.toString().trim()));
+        }
+    }
+    
+    // Markdown headings, bold and italics around otherwise plain lines
+    private static String clean(String line) {
+        return line.replaceFirst("^\\s*#+\\s*", "")
+            .replace("**", "")
+            .replace("__", "")
+            .trim();
+    }
+}
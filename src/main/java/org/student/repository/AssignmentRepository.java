@@ -1,13 +1,30 @@
 package org.student.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.student.dto.FileReference;
 import org.student.entity.Assignment;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     List<Assignment> findByClassGradeOrderByDueDateDesc(Integer classGrade);
     List<Assignment> findByClassGradeAndStatusOrderByDueDateDesc(Integer classGrade, Assignment.AssignmentStatus status);
+    
+    // Keyset pages ordered by (dueDate, id) descending
+    List<Assignment> findAllByOrderByDueDateDescIdDesc(Limit limit);
+    
+    @Query("SELECT a FROM Assignment a WHERE a.dueDate < :dueDate OR (a.dueDate = :dueDate AND a.id < :id) " +
+           "ORDER BY a.dueDate DESC, a.id DESC")
+    List<Assignment> findPageAfter(@Param("dueDate") LocalDateTime dueDate, @Param("id") Long id, Limit limit);
+    
+    // Storage reconciliation: file URLs in id order, one batch at a time
+    @Query("SELECT new org.student.dto.FileReference(a.id, a.attachmentUrl) FROM Assignment a " +
+           "WHERE a.id > :afterId AND a.attachmentUrl IS NOT NULL ORDER BY a.id")
+    List<FileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Limit limit);
 }
@@ -1,15 +1,93 @@
 package org.student.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.student.dto.FileReference;
+import org.student.dto.GradebookRow;
+import org.student.dto.SubmissionDTO;
+import org.student.dto.SubmissionStatusDTO;
+import org.student.entity.Assignment;
 import org.student.entity.AssignmentSubmission;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AssignmentSubmissionRepository extends JpaRepository<AssignmentSubmission, Long> {
+    
+    // Submission rows joined to the student's user and profile, mapped straight into SubmissionDTO
+    String SUBMISSION_DTO_SELECT =
+        "SELECT new org.student.dto.SubmissionDTO(s.id, s.assignmentId, s.studentId, " +
+        "COALESCE(p.fullName, 'Unknown'), COALESCE(u.email, 'Unknown'), s.submissionText, s.attachmentUrl, " +
+        "s.submittedAt, s.status, s.isLate, s.marksObtained, s.feedback) " +
+        "FROM AssignmentSubmission s LEFT JOIN User u ON u.id = s.studentId " +
+        "LEFT JOIN StudentProfile p ON p.user = u ";
+    
     List<AssignmentSubmission> findByAssignmentId(Long assignmentId);
     Optional<AssignmentSubmission> findByAssignmentIdAndStudentId(Long assignmentId, Long studentId);
     List<AssignmentSubmission> findByStudentId(Long studentId);
+    
+    // Single-statement submit: relies on uk_assignment_submissions_assignment_student and returns
+    // the new id, or nothing when the student has already submitted this assignment
+    @Query(value = "INSERT INTO assignment_submissions " +
+                   "(assignment_id, student_id, submission_text, attachment_url, submitted_at, updated_at, status, is_late) " +
+                   "VALUES (:assignmentId, :studentId, :submissionText, :attachmentUrl, :submittedAt, :submittedAt, " +
+                   ":status, :isLate) " +
+                   "ON CONFLICT (assignment_id, student_id) DO NOTHING RETURNING id",
+           nativeQuery = true)
+    Optional<Long> insertIfAbsent(@Param("assignmentId") Long assignmentId,
+                                  @Param("studentId") Long studentId,
+                                  @Param("submissionText") String submissionText,
+                                  @Param("attachmentUrl") String attachmentUrl,
+                                  @Param("submittedAt") LocalDateTime submittedAt,
+                                  @Param("status") String status,
+                                  @Param("isLate") boolean isLate);
+    
+    @Query(SUBMISSION_DTO_SELECT + "WHERE s.assignmentId = :assignmentId")
+    List<SubmissionDTO> findSubmissionDTOsByAssignmentId(@Param("assignmentId") Long assignmentId);
+    
+    @Query(SUBMISSION_DTO_SELECT + "WHERE s.studentId = :studentId")
+    List<SubmissionDTO> findSubmissionDTOsByStudentId(@Param("studentId") Long studentId);
+    
+    @Query(SUBMISSION_DTO_SELECT + "WHERE s.assignmentId = :assignmentId AND s.studentId = :studentId")
+    Optional<SubmissionDTO> findSubmissionDTOByAssignmentIdAndStudentId(@Param("assignmentId") Long assignmentId,
+                                                                        @Param("studentId") Long studentId);
+    
+    // One statement for a student's submission status across every matching assignment of a class
+    @Query("SELECT new org.student.dto.SubmissionStatusDTO(s.assignmentId, s.status) " +
+           "FROM AssignmentSubmission s, Assignment a " +
+           "WHERE a.id = s.assignmentId AND s.studentId = :studentId " +
+           "AND a.classGrade = :classGrade AND a.status = :assignmentStatus")
+    List<SubmissionStatusDTO> findStatusesByStudentAndClass(@Param("studentId") Long studentId,
+                                                            @Param("classGrade") Integer classGrade,
+                                                            @Param("assignmentStatus") Assignment.AssignmentStatus assignmentStatus);
+    
+    // Every submission of a class changed after :since, with student name and a short text preview, in one statement
+    @Query("SELECT new org.student.dto.GradebookRow(s.id, s.assignmentId, s.studentId, " +
+           "COALESCE(p.fullName, 'Unknown'), COALESCE(u.email, 'Unknown'), s.status, s.marksObtained, s.isLate, " +
+           "s.submittedAt, s.attachmentUrl, CASE WHEN s.feedback IS NULL THEN false ELSE true END, " +
+           "SUBSTRING(s.submissionText, 1, :previewLength)) " +
+           "FROM AssignmentSubmission s JOIN Assignment a ON a.id = s.assignmentId " +
+           "LEFT JOIN User u ON u.id = s.studentId LEFT JOIN StudentProfile p ON p.user = u " +
+           "WHERE a.classGrade = :classGrade AND a.status = :assignmentStatus " +
+           "AND COALESCE(s.updatedAt, s.submittedAt) > :since " +
+           "ORDER BY s.assignmentId, s.studentId")
+    List<GradebookRow> findGradebookRows(@Param("classGrade") Integer classGrade,
+                                         @Param("assignmentStatus") Assignment.AssignmentStatus assignmentStatus,
+                                         @Param("since") LocalDateTime since,
+                                         @Param("previewLength") int previewLength);
+    
+    // Storage reconciliation: file URLs in id order, one batch at a time
+    @Query("SELECT new org.student.dto.FileReference(s.id, s.attachmentUrl) FROM AssignmentSubmission s " +
+           "WHERE s.id > :afterId AND s.attachmentUrl IS NOT NULL ORDER BY s.id")
+    List<FileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Limit limit);
+    
+    // Attachments of the submissions the database deletes along with an assignment
+    @Query("SELECT s.attachmentUrl FROM AssignmentSubmission s " +
+           "WHERE s.assignmentId = :assignmentId AND s.attachmentUrl IS NOT NULL")
+    List<String> findAttachmentUrlsByAssignmentId(@Param("assignmentId") Long assignmentId);
 }
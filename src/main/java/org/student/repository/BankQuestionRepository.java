@@ -0,0 +1,9 @@
+package org.student.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.student.entity.BankQuestion;
+
+@Repository
+public interface BankQuestionRepository extends JpaRepository<BankQuestion, Long> {
+}
@@ -0,0 +1,29 @@
+package org.student.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.student.entity.ClassVersion;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ClassVersionRepository extends JpaRepository<ClassVersion, String> {
+    
+    // Joins the batch flush's transaction. GREATEST keeps the stored value from moving backwards
+    // when another instance wrote a higher one.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO class_versions (version_key, version, updated_at) " +
+                   "VALUES (:versionKey, :version, :updatedAt) " +
+                   "ON CONFLICT (version_key) DO UPDATE SET " +
+                   "version = GREATEST(class_versions.version, EXCLUDED.version), " +
+                   "updated_at = GREATEST(class_versions.updated_at, EXCLUDED.updated_at)",
+           nativeQuery = true)
+    int upsertVersion(@Param("versionKey") String versionKey,
+                      @Param("version") long version,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,38 @@
+package org.student.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.student.entity.GeneratedAssignment;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface GeneratedAssignmentRepository extends JpaRepository<GeneratedAssignment, String> {
+    
+    // A regenerate replaces the stored content; two teachers generating the same thing at once both succeed
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO generated_assignments (cache_key, request_key, content, created_at, last_used_at) " +
+                   "VALUES (:cacheKey, :requestKey, :content, :now, :now) " +
+                   "ON CONFLICT (cache_key) DO UPDATE SET content = EXCLUDED.content, " +
+                   "created_at = EXCLUDED.created_at, last_used_at = EXCLUDED.last_used_at",
+           nativeQuery = true)
+    int upsert(@Param("cacheKey") String cacheKey,
+               @Param("requestKey") String requestKey,
+               @Param("content") String content,
+               @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE GeneratedAssignment g SET g.lastUsedAt = :now WHERE g.cacheKey = :cacheKey")
+    int touch(@Param("cacheKey") String cacheKey, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GeneratedAssignment g WHERE g.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
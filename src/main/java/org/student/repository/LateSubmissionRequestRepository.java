@@ -1,9 +1,13 @@
 package org.student.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.student.entity.LateSubmissionRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +21,13 @@ public interface LateSubmissionRequestRepository extends JpaRepository<LateSubmi
     List<LateSubmissionRequest> findByAssignmentId(Long assignmentId);
     
     List<LateSubmissionRequest> findByStudentId(Long studentId);
+    
+    // Keyset pages ordered by (requestedAt, id) descending
+    List<LateSubmissionRequest> findAllByOrderByRequestedAtDescIdDesc(Limit limit);
+    
+    @Query("SELECT r FROM LateSubmissionRequest r " +
+           "WHERE r.requestedAt < :requestedAt OR (r.requestedAt = :requestedAt AND r.id < :id) " +
+           "ORDER BY r.requestedAt DESC, r.id DESC")
+    List<LateSubmissionRequest> findPageAfter(@Param("requestedAt") LocalDateTime requestedAt,
+                                              @Param("id") Long id, Limit limit);
 }
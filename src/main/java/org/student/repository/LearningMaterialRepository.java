@@ -1,13 +1,30 @@
 package org.student.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.student.dto.FileReference;
 import org.student.entity.LearningMaterial;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface LearningMaterialRepository extends JpaRepository<LearningMaterial, Long> {
     List<LearningMaterial> findByClassGradeOrderByUploadedAtDesc(Integer classGrade);
     List<LearningMaterial> findAllByOrderByUploadedAtDesc();
+    
+    // Keyset pages ordered by (uploadedAt, id) descending
+    List<LearningMaterial> findAllByOrderByUploadedAtDescIdDesc(Limit limit);
+    
+    @Query("SELECT m FROM LearningMaterial m WHERE m.uploadedAt < :uploadedAt " +
+           "OR (m.uploadedAt = :uploadedAt AND m.id < :id) ORDER BY m.uploadedAt DESC, m.id DESC")
+    List<LearningMaterial> findPageAfter(@Param("uploadedAt") LocalDateTime uploadedAt, @Param("id") Long id, Limit limit);
+    
+    // Storage reconciliation: file URLs in id order, one batch at a time
+    @Query("SELECT new org.student.dto.FileReference(m.id, m.fileUrl) FROM LearningMaterial m " +
+           "WHERE m.id > :afterId AND m.fileUrl IS NOT NULL ORDER BY m.id")
+    List<FileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Limit limit);
 }
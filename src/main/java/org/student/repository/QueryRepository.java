@@ -1,9 +1,12 @@
 package org.student.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.student.entity.Query;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -11,4 +14,13 @@ public interface QueryRepository extends JpaRepository<Query, Long> {
     List<Query> findByClassGradeAndIsDeletedFalseOrderByCreatedAtDesc(Integer classGrade);
     List<Query> findByIsDeletedFalseOrderByCreatedAtDesc();
     List<Query> findByStudentIdAndIsDeletedFalseOrderByCreatedAtDesc(Long studentId);
+    
+    // Keyset pages ordered by (createdAt, id) descending
+    List<Query> findByIsDeletedFalseOrderByCreatedAtDescIdDesc(Limit limit);
+    
+    @org.springframework.data.jpa.repository.Query(
+        "SELECT q FROM Query q WHERE q.isDeleted = false " +
+        "AND (q.createdAt < :createdAt OR (q.createdAt = :createdAt AND q.id < :id)) " +
+        "ORDER BY q.createdAt DESC, q.id DESC")
+    List<Query> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
 }
@@ -0,0 +1,65 @@
+package org.student.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.student.entity.StoredBlob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+    
+    // Two identical uploads racing each other both store the same object; the first row wins
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stored_blobs " +
+                   "(sha256, object_key, url, size_bytes, content_type, ref_count, created_at, updated_at) " +
+                   "VALUES (:sha256, :objectKey, :url, :sizeBytes, :contentType, 0, :now, :now) " +
+                   "ON CONFLICT (sha256) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("sha256") String sha256,
+                       @Param("objectKey") String objectKey,
+                       @Param("url") String url,
+                       @Param("sizeBytes") long sizeBytes,
+                       @Param("contentType") String contentType,
+                       @Param("now") LocalDateTime now);
+    
+    Optional<StoredBlob> findByObjectKey(String objectKey);
+    
+    // Orphan collection candidates in sha256 order, one batch at a time
+    @Query("SELECT b FROM StoredBlob b WHERE b.refCount = 0 AND b.updatedAt < :cutoff AND b.sha256 > :afterSha256 " +
+           "ORDER BY b.sha256")
+    List<StoredBlob> findUnreferencedBefore(@Param("cutoff") LocalDateTime cutoff,
+                                            @Param("afterSha256") String afterSha256,
+                                            Limit limit);
+    
+    // A dedup hit moves updatedAt forward so the orphan collector's grace period starts over;
+    // 0 means the collector removed the row first and the file must be uploaded again
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.updatedAt = :now WHERE b.sha256 = :sha256")
+    int touch(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+    
+    // Removes the row only if no row references the blob and nothing uploaded, referenced or
+    // released it since the cutoff
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredBlob b WHERE b.sha256 = :sha256 AND b.refCount = 0 AND b.updatedAt < :cutoff")
+    int deleteIfUnreferencedSince(@Param("sha256") String sha256, @Param("cutoff") LocalDateTime cutoff);
+    
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1, b.updatedAt = :now WHERE b.url = :url")
+    int incrementRefCount(@Param("url") String url, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1, b.updatedAt = :now " +
+           "WHERE b.url = :url AND b.refCount > 0")
+    int decrementRefCount(@Param("url") String url, @Param("now") LocalDateTime now);
+}
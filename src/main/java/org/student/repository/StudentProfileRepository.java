@@ -1,6 +1,8 @@
 package org.student.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.student.entity.StudentProfile;
 
@@ -9,4 +11,8 @@ import java.util.Optional;
 @Repository
 public interface StudentProfileRepository extends JpaRepository<StudentProfile, Long> {
     Optional<StudentProfile> findBySupabaseUserId(String supabaseUserId);
+    
+    // The user comes back in the same query instead of one more for it and one for its inverse profile
+    @Query("SELECT p FROM StudentProfile p JOIN FETCH p.user u WHERE u.id = :userId")
+    Optional<StudentProfile> findByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,32 @@
+package org.student.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.student.entity.UploadSession;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    
+    Optional<UploadSession> findByIdAndUserId(String id, Long userId);
+    
+    List<UploadSession> findByUpdatedAtBefore(LocalDateTime cutoff);
+    
+    // Moves the offset only from the value the chunk was written at; 0 means another request
+    // for the same session got there first
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.receivedBytes = :next, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.receivedBytes = :expected")
+    int advanceOffset(@Param("id") String id,
+                      @Param("expected") long expected,
+                      @Param("next") long next,
+                      @Param("now") LocalDateTime now);
+}
@@ -1,10 +1,12 @@
 package org.student.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.student.entity.User;
+import org.student.security.UserPrincipal;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +21,29 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.studentProfile WHERE u.role = :role AND u.status = :status")
     List<User> findByRoleAndStatusWithProfile(@Param("role") User.Role role, @Param("status") User.RegistrationStatus status);
     
+    // Keyset pages of students with their profiles, ordered by (classGrade, id) ascending
+    @Query("SELECT u FROM User u JOIN FETCH u.studentProfile p WHERE u.role = :role AND u.status = :status " +
+           "ORDER BY p.classGrade, u.id")
+    List<User> findFirstPageWithProfile(@Param("role") User.Role role, @Param("status") User.RegistrationStatus status,
+                                        Limit limit);
+    
+    @Query("SELECT u FROM User u JOIN FETCH u.studentProfile p WHERE u.role = :role AND u.status = :status " +
+           "AND (p.classGrade > :classGrade OR (p.classGrade = :classGrade AND u.id > :id)) " +
+           "ORDER BY p.classGrade, u.id")
+    List<User> findPageWithProfileAfter(@Param("role") User.Role role, @Param("status") User.RegistrationStatus status,
+                                        @Param("classGrade") Integer classGrade, @Param("id") Long id, Limit limit);
+    
+    // findById costs a second query: the inverse one-to-one profile is always loaded eagerly
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.studentProfile WHERE u.id = :id")
     Optional<User> findByIdWithProfile(@Param("id") Long id);
+    
+    @Query("SELECT u FROM User u JOIN FETCH u.studentProfile p " +
+           "WHERE p.classGrade = :classGrade AND u.role = :role AND u.status = :status ORDER BY p.fullName")
+    List<User> findClassRosterWithProfile(@Param("classGrade") Integer classGrade,
+                                          @Param("role") User.Role role,
+                                          @Param("status") User.RegistrationStatus status);
+    
+    @Query("SELECT new org.student.security.UserPrincipal(u.id, u.email, u.role, u.status, p.classGrade) " +
+           "FROM User u LEFT JOIN u.studentProfile p WHERE u.supabaseUserId = :supabaseUserId")
+    Optional<UserPrincipal> findPrincipalBySupabaseUserId(@Param("supabaseUserId") String supabaseUserId);
 }
@@ -0,0 +1,35 @@
+package org.student.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.student.exception.AuthenticationException;
+
+/**
+ * Injects the {@link UserPrincipal} published by {@link JwtAuthenticationFilter} into any
+ * controller parameter of that type, so handlers get the caller's id, role and class grade
+ * without another database lookup.
+ */
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+    
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return UserPrincipal.class.isAssignableFrom(parameter.getParameterType());
+    }
+    
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
+        }
+        
+        throw new AuthenticationException("User not authenticated");
+    }
+}
@@ -10,8 +10,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.student.entity.User;
-import org.student.repository.UserRepository;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -20,11 +18,11 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final SupabaseJwtValidator supabaseJwtValidator;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
     
-    public JwtAuthenticationFilter(SupabaseJwtValidator supabaseJwtValidator, UserRepository userRepository) {
+    public JwtAuthenticationFilter(SupabaseJwtValidator supabaseJwtValidator, PrincipalCache principalCache) {
         this.supabaseJwtValidator = supabaseJwtValidator;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
     
     @Override
@@ -40,27 +38,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             final String jwt = authHeader.substring(7);
-            System.out.println("Validating JWT token...");
+            // Parse and verify once; repeat requests with the same token are served from the validator's cache
+            final VerifiedClaims claims = supabaseJwtValidator.verify(jwt);
             
-            if (supabaseJwtValidator.validateToken(jwt)) {
-                final String supabaseUserId = supabaseJwtValidator.extractUserId(jwt);
-                System.out.println("Token valid, user ID: " + supabaseUserId);
+            if (claims != null) {
+                final String supabaseUserId = claims.getSubject();
                 
                 if (supabaseUserId != null) {
-                    // Load user from database
-                    User user = userRepository.findBySupabaseUserId(supabaseUserId).orElse(null);
+                    // Load user from the principal cache, falling back to a single query on a miss
+                    UserPrincipal user = principalCache.get(supabaseUserId);
                     
                     if (user != null) {
-                        String role = user.getRole().name();
-                        System.out.println("Found user in DB: " + user.getEmail() + ", role: " + role);
+                        SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole().name());
                         
-                        SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
-                        System.out.println("Setting authority: " + authority.getAuthority());
-                        
-                        // Use email as principal so authentication.getName() returns email
+                        // UserPrincipal carries id, role and class grade; authentication.getName() still returns email
                         // The 3-parameter constructor automatically sets authenticated=true
                         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                                user.getEmail(),  // Use email as principal, not supabaseUserId
+                                user,
                                 null,
                                 Collections.singletonList(authority)
                         );
@@ -68,13 +62,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         // Always set authentication if we have a valid JWT, even if one already exists
                         SecurityContextHolder.getContext().setAuthentication(authToken);
-                        
-                        System.out.println("=== AUTHENTICATION DEBUG ===");
-                        System.out.println("Principal: " + user.getEmail());
-                        System.out.println("Authorities: " + authToken.getAuthorities());
-                        System.out.println("Authority string: " + authority.getAuthority());
-                        System.out.println("Is authenticated: " + authToken.isAuthenticated());
-                        System.out.println("===========================");
                     } else {
                         System.err.println("User not found in database for Supabase ID: " + supabaseUserId);
                     }
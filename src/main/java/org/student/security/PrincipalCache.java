@@ -0,0 +1,61 @@
+package org.student.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.student.cache.ExpiringCache;
+import org.student.event.UserChangedEvent;
+import org.student.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Caches the authenticated principal per Supabase user id so the JWT filter does not hit the
+ * database on every request. Unknown ids are cached too, for a shorter time, so that tokens for
+ * users without a profile cannot hammer the users table.
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final ExpiringCache<String, Optional<UserPrincipal>> principals;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${security.principal-cache.max-entries:5000}") int maxEntries,
+                          @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                          @Value("${security.principal-cache.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+        this.userRepository = userRepository;
+        this.principals = new ExpiringCache<>(maxEntries);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.negativeTtl = Duration.ofSeconds(negativeTtlSeconds);
+    }
+
+    /**
+     * Returns the principal for a Supabase user id, or {@code null} if no such user exists.
+     */
+    public UserPrincipal get(String supabaseUserId) {
+        Optional<UserPrincipal> cached = principals.get(supabaseUserId);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+
+        Optional<UserPrincipal> loaded = userRepository.findPrincipalBySupabaseUserId(supabaseUserId);
+        principals.put(supabaseUserId, loaded, loaded.isPresent() ? ttl : negativeTtl);
+        return loaded.orElse(null);
+    }
+
+    public void invalidate(String supabaseUserId) {
+        if (supabaseUserId != null) {
+            principals.invalidate(supabaseUserId);
+        }
+    }
+
+    // Runs after commit so a concurrent request cannot re-cache the pre-change row
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getSupabaseUserId());
+    }
+}
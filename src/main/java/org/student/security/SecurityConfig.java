@@ -2,6 +2,7 @@ package org.student.security;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -31,6 +32,9 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/create-profile").permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("TEACHER")
+                .requestMatchers(HttpMethod.GET, "/files/**").permitAll()  // Local storage backend, public like the Supabase bucket
                 .requestMatchers("OPTIONS", "/**").permitAll()  // Allow CORS preflight
                 .requestMatchers("/api/admin/**").hasRole("TEACHER")
                 .requestMatchers("/api/virtual-classroom/**").hasRole("TEACHER")
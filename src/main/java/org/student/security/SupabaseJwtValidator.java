@@ -3,144 +3,172 @@ package org.student.security;
 import com.nimbusds.jose.JWSVerifier;
 import com.nimbusds.jose.crypto.ECDSAVerifier;
 import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.student.cache.ExpiringCache;
 
-import java.security.interfaces.ECPublicKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.Map;
 
 @Component
 public class SupabaseJwtValidator {
-    
+
     @Value("${supabase.url}")
     private String supabaseUrl;
-    
+
     // Supabase JWT secret in JWK format (for ECC keys)
     @Value("${supabase.jwt.secret:}")
     private String jwtSecret;
-    
-    private ECPublicKey getSigningKey() {
+
+    // Maximum number of verified tokens kept in memory
+    @Value("${supabase.jwt.cache-size:10000}")
+    private int cacheSize = 10000;
+
+    // Parsed once at startup; ECDSAVerifier is thread-safe
+    private JWSVerifier verifier;
+
+    // Verified claims keyed by SHA-256 digest of the raw token, each entry expires at the token's exp
+    private ExpiringCache<String, VerifiedClaims> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        this.verifiedTokens = new ExpiringCache<>(cacheSize);
+        this.verifier = createVerifier();
+    }
+
+    private JWSVerifier createVerifier() {
         // If no JWT secret is configured, we can't validate signatures
         if (jwtSecret == null || jwtSecret.isEmpty()) {
+            System.out.println("WARNING: No public key configured, JWT signatures will not be verified");
             return null;
         }
-        
+
         try {
             // Parse the JWK (JSON Web Key) format
             ECKey ecKey = ECKey.parse(jwtSecret);
-            return ecKey.toECPublicKey();
+            return new ECDSAVerifier(ecKey.toECPublicKey());
         } catch (Exception e) {
             System.err.println("Error parsing ECC JWK: " + e.getMessage());
             e.printStackTrace();
             return null;
         }
     }
-    
-    private SignedJWT parseAndVerifyToken(String token) {
+
+    /**
+     * Parses and verifies a token once and returns its claims, or {@code null} if the token is
+     * malformed, badly signed, not issued by Supabase or expired. Successful results are cached
+     * until the token expires, so repeat requests with the same token skip the ES256 check.
+     */
+    public VerifiedClaims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String digest = digest(token);
+        VerifiedClaims cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedClaims claims = parseAndVerifyToken(token);
+        if (claims != null && claims.getExpiresAt() != null) {
+            verifiedTokens.put(digest, claims, claims.getExpiresAt());
+        }
+        return claims;
+    }
+
+    private VerifiedClaims parseAndVerifyToken(String token) {
         try {
-            // Parse the JWT
             SignedJWT signedJWT = SignedJWT.parse(token);
-            
-            ECPublicKey publicKey = getSigningKey();
-            
-            if (publicKey != null) {
-                // Verify the signature
-                JWSVerifier verifier = new ECDSAVerifier(publicKey);
-                
-                if (signedJWT.verify(verifier)) {
-                    System.out.println("JWT signature verified successfully with ES256");
-                    return signedJWT;
-                } else {
-                    System.err.println("JWT signature verification failed");
-                    throw new RuntimeException("Invalid JWT signature");
-                }
-            } else {
-                System.out.println("WARNING: No public key configured, skipping signature verification");
-                return signedJWT;
+
+            if (verifier != null && !signedJWT.verify(verifier)) {
+                System.err.println("JWT signature verification failed");
+                return null;
             }
+
+            JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
+
+            // Verify issuer
+            String issuer = claimsSet.getIssuer();
+            if (issuer == null || !issuer.contains("supabase")) {
+                System.err.println("Invalid issuer: " + issuer);
+                return null;
+            }
+
+            Date expirationTime = claimsSet.getExpirationTime();
+            VerifiedClaims claims = new VerifiedClaims(
+                claimsSet.getSubject(),
+                claimsSet.getStringClaim("email"),
+                extractRole(claimsSet),
+                issuer,
+                expirationTime != null ? expirationTime.toInstant() : null
+            );
+
+            // Check expiration
+            if (claims.isExpired()) {
+                System.err.println("Token is expired");
+                return null;
+            }
+
+            return claims;
         } catch (Exception e) {
-            System.err.println("Error parsing/verifying JWT: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("JWT validation failed", e);
+            System.err.println("Error parsing/verifying JWT: " + e.getClass().getName() + " - " + e.getMessage());
+            return null;
         }
     }
-    
-    public String extractUserId(String token) {
+
+    private String extractRole(JWTClaimsSet claimsSet) throws ParseException {
+        Map<String, Object> userMetadata = claimsSet.getJSONObjectClaim("user_metadata");
+        if (userMetadata != null && userMetadata.get("role") instanceof String role) {
+            return role;
+        }
+        return null;
+    }
+
+    private static String digest(String token) {
         try {
-            SignedJWT signedJWT = parseAndVerifyToken(token);
-            String userId = signedJWT.getJWTClaimsSet().getSubject();
-            System.out.println("Extracted user ID from token: " + userId);
-            return userId;
-        } catch (Exception e) {
-            System.err.println("Error extracting user ID: " + e.getMessage());
-            throw new RuntimeException("Failed to extract user ID", e);
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
-    
+
+    public String extractUserId(String token) {
+        VerifiedClaims claims = verify(token);
+        if (claims == null) {
+            throw new RuntimeException("Failed to extract user ID");
+        }
+        return claims.getSubject();
+    }
+
     public String extractEmail(String token) {
-        try {
-            SignedJWT signedJWT = parseAndVerifyToken(token);
-            return signedJWT.getJWTClaimsSet().getStringClaim("email");
-        } catch (Exception e) {
-            System.err.println("Error extracting email: " + e.getMessage());
-            throw new RuntimeException("Failed to extract email", e);
+        VerifiedClaims claims = verify(token);
+        if (claims == null) {
+            throw new RuntimeException("Failed to extract email");
         }
+        return claims.getEmail();
     }
-    
+
     public String extractRole(String token) {
-        try {
-            SignedJWT signedJWT = parseAndVerifyToken(token);
-            Map<String, Object> userMetadata = signedJWT.getJWTClaimsSet().getJSONObjectClaim("user_metadata");
-            
-            if (userMetadata != null) {
-                return (String) userMetadata.get("role");
-            }
-            
-            return null;
-        } catch (Exception e) {
-            System.err.println("Error extracting role: " + e.getMessage());
-            return null;
-        }
+        VerifiedClaims claims = verify(token);
+        return claims != null ? claims.getRole() : null;
     }
-    
+
     public boolean isTokenExpired(String token) {
-        try {
-            SignedJWT signedJWT = parseAndVerifyToken(token);
-            Date expirationTime = signedJWT.getJWTClaimsSet().getExpirationTime();
-            return expirationTime != null && expirationTime.before(new Date());
-        } catch (Exception e) {
-            return true;
-        }
+        VerifiedClaims claims = verify(token);
+        return claims == null || claims.isExpired();
     }
-    
+
     public boolean validateToken(String token) {
-        try {
-            System.out.println("Starting token validation...");
-            SignedJWT signedJWT = parseAndVerifyToken(token);
-            
-            // Verify issuer
-            String issuer = signedJWT.getJWTClaimsSet().getIssuer();
-            System.out.println("Token issuer: " + issuer);
-            
-            if (issuer == null || !issuer.contains("supabase")) {
-                System.err.println("Invalid issuer: " + issuer);
-                return false;
-            }
-            
-            // Check expiration
-            if (isTokenExpired(token)) {
-                System.err.println("Token is expired");
-                return false;
-            }
-            
-            System.out.println("Token validation successful");
-            return true;
-        } catch (Exception e) {
-            System.err.println("Token validation error: " + e.getClass().getName() + " - " + e.getMessage());
-            e.printStackTrace();
-            return false;
-        }
+        return verify(token) != null;
     }
 }
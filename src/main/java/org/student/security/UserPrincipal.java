@@ -0,0 +1,35 @@
+package org.student.security;
+
+import lombok.Value;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.student.entity.User;
+
+/**
+ * The slice of a {@link User} the security layer needs on every request.
+ * Built straight from a single query, so loading it never touches the lazy profile association.
+ * Published as the authentication principal; controllers receive it through
+ * {@link CurrentUserArgumentResolver} instead of re-loading the user by email.
+ */
+@Value
+public class UserPrincipal implements AuthenticatedPrincipal {
+    Long id;
+    String email;
+    User.Role role;
+    User.RegistrationStatus status;
+    Integer classGrade;
+    
+    // authentication.getName() keeps returning the email. Deliberately not a java.security.Principal:
+    // Spring MVC would otherwise resolve controller parameters of this type from the servlet request.
+    @Override
+    public String getName() {
+        return email;
+    }
+    
+    public boolean isStudent() {
+        return role == User.Role.STUDENT;
+    }
+    
+    public boolean isTeacher() {
+        return role == User.Role.TEACHER;
+    }
+}
@@ -0,0 +1,21 @@
+package org.student.security;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Claims of a Supabase access token whose signature, issuer and expiry have already been checked.
+ */
+@Value
+public class VerifiedClaims {
+    String subject;
+    String email;
+    String role;
+    String issuer;
+    Instant expiresAt;
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(Instant.now());
+    }
+}
@@ -6,20 +6,36 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.student.cache.GeneratedAssignmentCache;
 import org.student.dto.GenerateAssignmentRequest;
+import org.student.exception.RateLimitedException;
+import org.student.http.OutboundHttpClient;
 
+import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class AIAssignmentGeneratorService {
     
     private static final Logger logger = LoggerFactory.getLogger(AIAssignmentGeneratorService.class);
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(10);
     
-    private final HttpClient httpClient;
+    private final OutboundHttpClient.Destination groq;
+    private final GeneratedAssignmentCache cache;
+    private final QuestionBankService questionBank;
     private final ObjectMapper objectMapper;
     
     @Value("${groq.api.key}")
@@ -31,20 +47,62 @@ public class AIAssignmentGeneratorService {
     @Value("${groq.model:llama-3.3-70b-versatile}")
     private String groqModel;
     
-    public AIAssignmentGeneratorService() {
-        this.httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .build();
+    @Value("${groq.variants.deadline-seconds:45}")
+    private long variantDeadlineSeconds;
+    
+    public AIAssignmentGeneratorService(OutboundHttpClient outboundHttpClient, GeneratedAssignmentCache cache,
+                                        QuestionBankService questionBank) {
+        this.groq = outboundHttpClient.destination("groq");
+        this.cache = cache;
+        this.questionBank = questionBank;
         this.objectMapper = new ObjectMapper();
     }
     
     /**
-     * Generates math assignment questions using Groq AI
+     * A generated assignment, whether it came from the cache rather than a new Groq call, and the
+     * labels of any requested variants left out of it (see {@link #generateVariants}).
      */
-    public String generateAssignment(GenerateAssignmentRequest request) {
+    public record Generation(String content, boolean cached, List<String> missingVariants) {
+
+        public Generation(String content, boolean cached) {
+            this(content, cached, List.of());
+        }
+    }
+    
+    /**
+     * Generates math assignment questions using Groq AI. An earlier result for the same request
+     * is returned from the cache unless {@code regenerate} is set; a new result replaces it. With
+     * more than one variant requested, see {@link #generateVariants}.
+     *
+     * @throws RateLimitedException when Groq answered 429
+     */
+    public Generation generateAssignment(GenerateAssignmentRequest request, boolean regenerate) {
+        if (request.variantCount() > 1) {
+            try {
+                return generateVariants(request, regenerate).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        String requestKey = GeneratedAssignmentCache.requestKey(request, groqModel);
+        if (regenerate) {
+            cache.recordRegenerate();
+        } else {
+            Optional<String> cached = cache.get(requestKey);
+            if (cached.isPresent()) {
+                return new Generation(cached.get(), true);
+            }
+        }
+        String content = callGroq(request);
+        cache.put(requestKey, content);
+        questionBank.queueGenerated(request, content);
+        return new Generation(content, false);
+    }
+    
+    private String callGroq(GenerateAssignmentRequest request) {
         try {
             String prompt = buildPrompt(request);
-            String requestBody = buildGroqRequest(prompt);
+            String requestBody = buildGroqRequest(prompt, false);
             
             HttpRequest httpRequest = HttpRequest.newBuilder()
                 .uri(URI.create(groqApiUrl))
@@ -56,23 +114,342 @@ public class AIAssignmentGeneratorService {
             
             logger.info("Sending request to Groq API for assignment generation");
             
-            HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = groq.send(httpRequest, HttpResponse.BodyHandlers.ofString());
             
             if (response.statusCode() == 200) {
                 String generatedContent = parseGroqResponse(response.body());
                 logger.info("Successfully generated assignment from Groq API");
                 return generatedContent;
+            } else if (response.statusCode() == 429) {
+                Duration retryAfter = retryAfter(response);
+                logger.warn("Groq API rate limit reached, retry after {}s", retryAfter.toSeconds());
+                throw new RateLimitedException("Groq API rate limit reached", retryAfter);
             } else {
                 logger.error("Groq API returned error: {} - {}", response.statusCode(), response.body());
                 throw new RuntimeException("Failed to generate assignment. API returned status: " + response.statusCode());
             }
             
+        } catch (RateLimitedException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error generating assignment with Groq AI", e);
             throw new RuntimeException("Failed to generate assignment: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Generates {@code request.getVariants()} versions of the assignment at the same time, each a
+     * separate Groq call told to use different questions from the others, so the whole set takes
+     * about as long as the slowest call. The calls share one deadline
+     * ({@code groq.variants.deadline-seconds}): whichever variants have finished by then are
+     * returned as one document with a heading each, and the rest are cancelled. A variant that
+     * fails leaves the others running. Each variant is cached on its own, so asking for three
+     * variants after two reuses A and B. The deadline starts before the calls take their groq
+     * slots, so waiting for a slot counts against it; outbound-http.destinations.groq.max-concurrent
+     * is sized for every generation worker running a full set at once. Variants left out are named
+     * in {@link Generation#missingVariants()}.
+     *
+     * <p>Fails only when no variant finished; with a rate limit from Groq, so the caller can
+     * retry later.
+     */
+    private CompletableFuture<Generation> generateVariants(GenerateAssignmentRequest request, boolean regenerate) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(variantDeadlineSeconds);
+        String requestKey = GeneratedAssignmentCache.requestKey(request, groqModel);
+        List<CompletableFuture<Generation>> variants = new ArrayList<>();
+        for (int i = 0; i < request.variantCount(); i++) {
+            variants.add(generateVariant(request, requestKey, i, regenerate));
+        }
+        
+        CompletableFuture<Generation> result = CompletableFuture.allOf(variants.toArray(CompletableFuture[]::new))
+            .exceptionally(failure -> null) // One variant failing does not stop the others
+            .completeOnTimeout(null, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+            .thenApply(ignored -> {
+                StringBuilder content = new StringBuilder();
+                List<String> missing = new ArrayList<>();
+                RuntimeException rateLimited = null;
+                boolean cached = true;
+                for (int i = 0; i < variants.size(); i++) {
+                    CompletableFuture<Generation> variant = variants.get(i);
+                    if (!variant.isDone() || variant.isCompletedExceptionally()) {
+                        // Still running at the deadline, or failed
+                        variant.cancel(true);
+                        missing.add(variantLabel(i));
+                        try {
+                            variant.join();
+                        } catch (CompletionException e) {
+                            if (e.getCause() instanceof RateLimitedException cause) {
+                                rateLimited = cause;
+                            } else {
+                                logger.warn("Variant {} of {} failed: {}", variantLabel(i), request.getTopic(),
+                                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                            }
+                        } catch (CancellationException e) {
+                            // Cut off by the deadline
+                        }
+                        continue;
+                    }
+                    Generation generation = variant.join();
+                    if (content.length() > 0) {
+                        content.append("\n\n");
+                    }
+                    content.append("VARIANT ").append(variantLabel(i)).append("\n\n").append(generation.content());
+                    cached &= generation.cached();
+                }
+                if (missing.size() == variants.size()) {
+                    throw rateLimited != null ? rateLimited
+                        : new IllegalStateException("Failed to generate assignment: no variant finished within "
+                            + variantDeadlineSeconds + "s");
+                }
+                if (!missing.isEmpty()) {
+                    logger.warn("Variants {} of {} not generated in time", missing, request.getTopic());
+                }
+                return new Generation(content.toString(), cached, List.copyOf(missing));
+            });
+        // Abandoned by the caller: stop every call still running
+        result.whenComplete((ignored, failure) -> {
+            if (result.isCancelled()) {
+                variants.forEach(variant -> variant.cancel(true));
+            }
+        });
+        return result;
+    }
+    
+    private CompletableFuture<Generation> generateVariant(GenerateAssignmentRequest request, String requestKey,
+                                                          int index, boolean regenerate) {
+        String label = variantLabel(index);
+        String variantKey = requestKey + "|variant " + label;
+        if (regenerate) {
+            cache.recordRegenerate();
+        } else {
+            Optional<String> cached = cache.get(variantKey);
+            if (cached.isPresent()) {
+                return CompletableFuture.completedFuture(new Generation(cached.get(), true));
+            }
+        }
+        
+        CompletableFuture<HttpResponse<String>> call;
+        try {
+            String prompt = buildPrompt(request) + "\n\nThis is variant " + label + " of "
+                + request.variantCount() + " of this assignment for the same class. Keep the topic, structure, marks"
+                + " and difficulty, but use different questions and numbers from every other variant so that"
+                + " students cannot copy answers from each other.";
+            HttpRequest httpRequest = HttpRequest.newBuilder()
+                .uri(URI.create(groqApiUrl))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + groqApiKey)
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(buildGroqRequest(prompt, false)))
+                .build();
+            call = groq.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        CompletableFuture<Generation> result = call.thenApply(response -> {
+            if (response.statusCode() == 429) {
+                throw new RateLimitedException("Groq API rate limit reached", retryAfter(response));
+            }
+            if (response.statusCode() != 200) {
+                logger.error("Groq API returned error for variant {}: {} - {}", label, response.statusCode(), response.body());
+                throw new IllegalStateException("Failed to generate variant " + label + ". API returned status: "
+                    + response.statusCode());
+            }
+            String content;
+            try {
+                content = parseGroqResponse(response.body());
+            } catch (Exception e) {
+                throw new IllegalStateException("Invalid response format from Groq API", e);
+            }
+            cache.put(variantKey, content);
+            questionBank.queueGenerated(request, content);
+            return new Generation(content, false);
+        });
+        result.whenComplete((ignored, failure) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    private static String variantLabel(int index) {
+        return String.valueOf((char) ('A' + index));
+    }
+    
+    /**
+     * Groq's {@code retry-after} header in seconds, or a conservative default when it is missing.
+     */
+    private static Duration retryAfter(HttpResponse<?> response) {
+        return response.headers().firstValue("retry-after")
+            .flatMap(value -> {
+                try {
+                    return Optional.of(Duration.ofMillis((long) (Double.parseDouble(value) * 1000)));
+                } catch (NumberFormatException e) {
+                    return Optional.empty();
+                }
+            })
+            .orElse(DEFAULT_RETRY_AFTER);
+    }
+    
+    /**
+     * Same as {@link #generateAssignment} but with {@code "stream": true}: each piece of text is
+     * passed to {@code onContent} as Groq sends it. Nothing waits for the generation; the chunks
+     * are handled on the HTTP client's threads as they arrive, and the returned future completes
+     * when the model is done. Cancelling the future stops the generation. If {@code onContent}
+     * throws (the browser went away), the call is cancelled the same way. A cached result is
+     * passed to {@code onContent} in one piece, and so is a set of variants once it is done.
+     *
+     * @throws IOException if Groq is being failed fast or already has too many generations running
+     */
+    public CompletableFuture<Generation> streamAssignment(GenerateAssignmentRequest request, boolean regenerate,
+                                                          Consumer<String> onContent)
+            throws IOException, InterruptedException {
+        if (request.variantCount() > 1) {
+            // Separate calls finishing in any order; the set is sent in one piece when it is done
+            CompletableFuture<Generation> variants = generateVariants(request, regenerate);
+            CompletableFuture<Generation> result = variants.thenApply(generation -> {
+                onContent.accept(generation.content());
+                return generation;
+            });
+            result.whenComplete((ignored, failure) -> {
+                if (result.isCancelled()) {
+                    variants.cancel(true);
+                }
+            });
+            return result;
+        }
+        String requestKey = GeneratedAssignmentCache.requestKey(request, groqModel);
+        if (regenerate) {
+            cache.recordRegenerate();
+        } else {
+            Optional<String> cached = cache.get(requestKey);
+            if (cached.isPresent()) {
+                try {
+                    onContent.accept(cached.get());
+                } catch (RuntimeException e) {
+                    CompletableFuture<Generation> abandoned = new CompletableFuture<>();
+                    abandoned.cancel(false);
+                    return abandoned;
+                }
+                return CompletableFuture.completedFuture(new Generation(cached.get(), true));
+            }
+        }
+        
+        String requestBody;
+        try {
+            requestBody = buildGroqRequest(buildPrompt(request), true);
+        } catch (Exception e) {
+            throw new IOException("Could not build Groq request", e);
+        }
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+            .uri(URI.create(groqApiUrl))
+            .header("Content-Type", "application/json")
+            .header("Accept", "text/event-stream")
+            .header("Authorization", "Bearer " + groqApiKey)
+            // Until the response starts; the stream itself may run longer
+            .timeout(Duration.ofSeconds(60))
+            .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+            .build();
+        
+        CompletableFuture<CompletableFuture<?>> callHolder = new CompletableFuture<>();
+        CompletionStream stream = new CompletionStream(onContent,
+            () -> callHolder.thenAccept(call -> call.cancel(true)));
+        // Success streams through the line subscriber; an error status keeps its body for the message
+        HttpResponse.BodyHandler<String> handler = info -> info.statusCode() == 200
+            ? HttpResponse.BodySubscribers.fromLineSubscriber(stream, subscriber -> null, StandardCharsets.UTF_8, null)
+            : HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+        
+        logger.info("Streaming assignment generation from Groq API");
+        CompletableFuture<HttpResponse<String>> call = groq.sendAsync(httpRequest, handler);
+        callHolder.complete(call);
+        
+        CompletableFuture<Generation> result = call.thenApply(response -> {
+            if (response.statusCode() != 200) {
+                logger.error("Groq API returned error: {} - {}", response.statusCode(), response.body());
+                throw new IllegalStateException("Failed to generate assignment. API returned status: " + response.statusCode());
+            }
+            if (stream.failure != null) {
+                throw new IllegalStateException("Invalid response format from Groq API", stream.failure);
+            }
+            String content = stream.text.toString();
+            if (!content.isEmpty()) {
+                cache.put(requestKey, content);
+                questionBank.queueGenerated(request, content);
+            }
+            return new Generation(content, false);
+        });
+        result.whenComplete((ignored, failure) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Reads Groq's server-sent events line by line: {@code data: {...}} with the next piece of text
+     * in {@code choices[0].delta.content}, ending with {@code data: [DONE]}.
+     */
+    private class CompletionStream implements Flow.Subscriber<String> {
+        
+        private final Consumer<String> onContent;
+        private final Runnable abort;
+        private final StringBuilder text = new StringBuilder();
+        private Flow.Subscription subscription;
+        private volatile Exception failure;
+        
+        CompletionStream(Consumer<String> onContent, Runnable abort) {
+            this.onContent = onContent;
+            this.abort = abort;
+        }
+        
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+        
+        @Override
+        public void onNext(String line) {
+            if (failure != null || !line.startsWith("data:")) {
+                return; // Blank separators, comments, or anything after a failure
+            }
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) {
+                return;
+            }
+            String content;
+            try {
+                content = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content").asText("");
+            } catch (Exception e) {
+                failure = e;
+                return;
+            }
+            if (content.isEmpty()) {
+                return; // The role announcement and the final chunk carry no text
+            }
+            text.append(content);
+            try {
+                onContent.accept(content);
+            } catch (RuntimeException e) {
+                subscription.cancel();
+                abort.run();
+            }
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            // Surfaces through the response future
+        }
+        
+        @Override
+        public void onComplete() {
+        }
+    }
+    
     private String buildPrompt(GenerateAssignmentRequest request) {
         StringBuilder prompt = new StringBuilder();
         prompt.append("You are an expert mathematics teacher creating an assignment for Class ")
@@ -113,14 +490,15 @@ public class AIAssignmentGeneratorService {
         prompt.append("4. Ensure questions are aligned with the topic: ").append(request.getTopic()).append("\n");
         prompt.append("5. Difficulty should be: ").append(request.getComplexity()).append("\n");
         prompt.append("6. Number each question sequentially\n");
-        prompt.append("7. Format the output as a clean, ready-to-use assignment\n\n");
+        prompt.append("7. Format the output as a clean, ready-to-use assignment\n");
+        prompt.append("8. Start each section with its heading exactly as written above, followed by its numbered questions\n\n");
         
         prompt.append("Please generate the complete assignment now:");
         
         return prompt.toString();
     }
     
-    private String buildGroqRequest(String prompt) throws Exception {
+    private String buildGroqRequest(String prompt, boolean stream) throws Exception {
         String requestJson = String.format("""
             {
                 "model": "%s",
@@ -137,9 +515,9 @@ public class AIAssignmentGeneratorService {
                 "temperature": 0.7,
                 "max_tokens": 2000,
                 "top_p": 1,
-                "stream": false
+                "stream": %s
             }
-            """, groqModel, objectMapper.writeValueAsString(prompt));
+            """, groqModel, objectMapper.writeValueAsString(prompt), stream);
         
         return requestJson;
     }
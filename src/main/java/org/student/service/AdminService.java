@@ -1,14 +1,21 @@
 package org.student.service;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.student.dto.CursorPage;
 import org.student.dto.EnrolledStudentDTO;
 import org.student.dto.PendingStudentDTO;
+import org.student.entity.AssignmentSubmission;
 import org.student.entity.User;
+import org.student.event.UserChangedEvent;
 import org.student.exception.ResourceNotFoundException;
+import org.student.pagination.PageCursor;
 import org.student.repository.AssignmentSubmissionRepository;
 import org.student.repository.PasswordResetTokenRepository;
 import org.student.repository.UserRepository;
+import org.student.storage.BlobReferences;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,13 +26,19 @@ public class AdminService {
     private final UserRepository userRepository;
     private final AssignmentSubmissionRepository submissionRepository;
     private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final BlobReferences blobReferences;
+    private final ApplicationEventPublisher eventPublisher;
     
     public AdminService(UserRepository userRepository, 
                        AssignmentSubmissionRepository submissionRepository,
-                       PasswordResetTokenRepository passwordResetTokenRepository) {
+                       PasswordResetTokenRepository passwordResetTokenRepository,
+                       BlobReferences blobReferences,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.submissionRepository = submissionRepository;
         this.passwordResetTokenRepository = passwordResetTokenRepository;
+        this.blobReferences = blobReferences;
+        this.eventPublisher = eventPublisher;
     }
     
     public List<PendingStudentDTO> getPendingRegistrations() {
@@ -47,24 +60,27 @@ public class AdminService {
             .collect(Collectors.toList());
     }
     
-    public List<EnrolledStudentDTO> getEnrolledStudents() {
-        List<User> enrolledUsers = userRepository.findByRoleAndStatusWithProfile(
-            User.Role.STUDENT,
-            User.RegistrationStatus.APPROVED
+    public CursorPage<EnrolledStudentDTO> getEnrolledStudentsPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<User> rows = after == null
+            ? userRepository.findFirstPageWithProfile(User.Role.STUDENT, User.RegistrationStatus.APPROVED,
+                Limit.of(limit + 1))
+            : userRepository.findPageWithProfileAfter(User.Role.STUDENT, User.RegistrationStatus.APPROVED,
+                after.keyAsInteger(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, this::mapToEnrolledDTO,
+            user -> PageCursor.after(user.getStudentProfile().getClassGrade(), user.getId()));
+    }
+    
+    private EnrolledStudentDTO mapToEnrolledDTO(User user) {
+        return new EnrolledStudentDTO(
+            user.getId(),
+            user.getEmail(),
+            user.getStudentProfile().getFullName(),
+            user.getStudentProfile().getDateOfBirth(),
+            user.getStudentProfile().getGender(),
+            user.getStudentProfile().getClassGrade(),
+            user.getUpdatedAt()
         );
-        
-        return enrolledUsers.stream()
-            .map(user -> new EnrolledStudentDTO(
-                user.getId(),
-                user.getEmail(),
-                user.getStudentProfile().getFullName(),
-                user.getStudentProfile().getDateOfBirth(),
-                user.getStudentProfile().getGender(),
-                user.getStudentProfile().getClassGrade(),
-                user.getUpdatedAt()
-            ))
-            .sorted((a, b) -> a.getClassGrade().compareTo(b.getClassGrade()))
-            .collect(Collectors.toList());
     }
     
     public List<EnrolledStudentDTO> getEnrolledStudentsByClass(Integer classGrade) {
@@ -102,6 +118,7 @@ public class AdminService {
         
         user.setStatus(User.RegistrationStatus.APPROVED);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getSupabaseUserId()));
     }
     
     @Transactional
@@ -119,6 +136,7 @@ public class AdminService {
         
         user.setStatus(User.RegistrationStatus.REJECTED);
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getSupabaseUserId()));
     }
     
     @Transactional
@@ -131,12 +149,15 @@ public class AdminService {
         }
         
         // Delete all assignment submissions by this student
-        submissionRepository.deleteAll(submissionRepository.findByStudentId(studentId));
+        List<AssignmentSubmission> submissions = submissionRepository.findByStudentId(studentId);
+        submissionRepository.deleteAll(submissions);
+        submissions.forEach(submission -> blobReferences.release(submission.getAttachmentUrl()));
         
         // Delete all password reset tokens for this student
         passwordResetTokenRepository.deleteByEmail(user.getEmail());
         
         // Delete user (will cascade delete student profile)
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getSupabaseUserId()));
     }
 }
@@ -1,40 +1,86 @@
 package org.student.service;
 
-import org.springframework.security.core.Authentication;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.student.cache.ClassResponseCache;
+import org.student.cache.ClassScope;
+import org.student.cache.ClassVersions;
+import org.student.cache.ResponseStamp;
 import org.student.dto.AssignmentDTO;
+import org.student.dto.BatchGradeResponse;
+import org.student.dto.BatchGradeResult;
 import org.student.dto.CreateAssignmentRequest;
+import org.student.dto.CursorPage;
+import org.student.dto.GradebookDTO;
+import org.student.dto.GradebookRow;
+import org.student.dto.GradeSubmissionRequest;
 import org.student.dto.SubmissionDTO;
 import org.student.dto.SubmitAssignmentRequest;
 import org.student.entity.Assignment;
 import org.student.entity.AssignmentSubmission;
 import org.student.entity.User;
+import org.student.event.ClassDataChangedEvent;
+import org.student.event.StudentSubmissionsChangedEvent;
 import org.student.exception.ResourceNotFoundException;
+import org.student.pagination.PageCursor;
 import org.student.repository.AssignmentRepository;
 import org.student.repository.AssignmentSubmissionRepository;
 import org.student.repository.UserRepository;
+import org.student.storage.BlobReferences;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class AssignmentService {
     
+    // Characters of submission text shipped with each gradebook cell
+    private static final int GRADEBOOK_PREVIEW_LENGTH = 200;
+    
+    // Incremental gradebook reads look back this far past the client's asOf, so rows stamped
+    // just before asOf but committed after the previous read are not missed; clients upsert by id
+    private static final long GRADEBOOK_SINCE_OVERLAP_SECONDS = 5;
+    
+    private static final LocalDateTime GRADEBOOK_EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
     private final AssignmentRepository assignmentRepository;
     private final AssignmentSubmissionRepository submissionRepository;
     private final UserRepository userRepository;
     private final LateSubmissionService lateSubmissionService;
+    private final ClassResponseCache responseCache;
+    private final BlobReferences blobReferences;
+    private final ApplicationEventPublisher eventPublisher;
     
     public AssignmentService(AssignmentRepository assignmentRepository,
                            AssignmentSubmissionRepository submissionRepository,
                            UserRepository userRepository,
-                           LateSubmissionService lateSubmissionService) {
+                           LateSubmissionService lateSubmissionService,
+                           ClassResponseCache responseCache,
+                           BlobReferences blobReferences,
+                           ApplicationEventPublisher eventPublisher) {
         this.assignmentRepository = assignmentRepository;
         this.submissionRepository = submissionRepository;
         this.userRepository = userRepository;
         this.lateSubmissionService = lateSubmissionService;
+        this.responseCache = responseCache;
+        this.blobReferences = blobReferences;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional
@@ -50,35 +96,186 @@ public class AssignmentService {
         assignment.setCreatedBy(teacherId);
         
         Assignment saved = assignmentRepository.save(assignment);
+        blobReferences.retain(saved.getAttachmentUrl());
+        eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.ASSIGNMENTS, saved.getClassGrade()));
         return mapToDTO(saved, null, null);
     }
     
-    public List<AssignmentDTO> getAssignmentsByClass(Integer classGrade, Long studentId) {
-        List<Assignment> assignments = assignmentRepository
-            .findByClassGradeAndStatusOrderByDueDateDesc(classGrade, Assignment.AssignmentStatus.PUBLISHED);
-        
-        return assignments.stream()
-            .map(assignment -> {
-                boolean hasSubmitted = false;
-                boolean isGraded = false;
-                
-                if (studentId != null) {
-                    var submissionOpt = submissionRepository.findByAssignmentIdAndStudentId(assignment.getId(), studentId);
-                    if (submissionOpt.isPresent()) {
-                        hasSubmitted = true;
-                        isGraded = submissionOpt.get().getStatus() == AssignmentSubmission.SubmissionStatus.GRADED;
-                    }
+    /**
+     * JSON for the class assignment list. The class-wide part of every item is cached as
+     * pre-serialized bytes and shared by all students; isOverdue, hasSubmitted and isGraded
+     * are spliced in per request from the clock and the student's cached submission statuses.
+     */
+    public byte[] getAssignmentsByClassJson(Integer classGrade, Long studentId) {
+        List<AssignmentFragment> fragments = responseCache.get(ClassScope.ASSIGNMENTS, classGrade,
+            () -> loadAssignmentFragments(classGrade));
+        
+        Map<Long, AssignmentSubmission.SubmissionStatus> statuses = studentId == null || fragments.isEmpty()
+            ? Map.of()
+            : responseCache.getForStudent(ClassScope.ASSIGNMENTS, studentId, classGrade,
+                () -> loadSubmissionStatuses(studentId, classGrade));
+        
+        LocalDateTime now = LocalDateTime.now();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        for (int i = 0; i < fragments.size(); i++) {
+            AssignmentFragment fragment = fragments.get(i);
+            AssignmentSubmission.SubmissionStatus status = statuses.get(fragment.id());
+            if (i > 0) {
+                out.write(',');
+            }
+            String flags = "{\"isOverdue\":" + now.isAfter(fragment.dueDate())
+                + ",\"hasSubmitted\":" + (status != null)
+                + ",\"isGraded\":" + (status == AssignmentSubmission.SubmissionStatus.GRADED);
+            out.writeBytes(flags.getBytes(StandardCharsets.UTF_8));
+            if (fragment.body().length > 1) {
+                out.write(',');
+            }
+            out.writeBytes(fragment.body());
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+    
+    /**
+     * ETag and Last-Modified for {@link #getAssignmentsByClassJson}. Besides the class and student
+     * counters the tag counts the due dates already passed, because crossing one flips an isOverdue
+     * flag without any write. The due dates come from the cached class fragments, so once those are
+     * warm no query runs.
+     */
+    public ResponseStamp getAssignmentsStamp(Integer classGrade, Long studentId) {
+        ClassVersions versions = responseCache.getVersions();
+        StringBuilder etag = new StringBuilder("assignments-").append(classGrade)
+            .append('-').append(versions.current(ClassScope.ASSIGNMENTS, classGrade));
+        Instant lastModified = versions.lastModified(ClassScope.ASSIGNMENTS, classGrade);
+        if (studentId != null) {
+            etag.append("-s").append(studentId).append('-').append(versions.currentForStudent(studentId));
+            Instant studentModified = versions.lastModifiedForStudent(studentId);
+            if (studentModified.isAfter(lastModified)) {
+                lastModified = studentModified;
+            }
+        }
+        
+        List<AssignmentFragment> fragments = responseCache.get(ClassScope.ASSIGNMENTS, classGrade,
+            () -> loadAssignmentFragments(classGrade));
+        LocalDateTime now = LocalDateTime.now();
+        int overdue = 0;
+        for (AssignmentFragment fragment : fragments) {
+            if (now.isAfter(fragment.dueDate())) {
+                overdue++;
+                Instant passedAt = fragment.dueDate().atZone(ZoneId.systemDefault()).toInstant()
+                    .truncatedTo(ChronoUnit.SECONDS);
+                if (passedAt.isAfter(lastModified)) {
+                    lastModified = passedAt;
                 }
-                
-                return mapToDTO(assignment, hasSubmitted, isGraded);
-            })
-            .collect(Collectors.toList());
+            }
+        }
+        etag.append("-o").append(overdue);
+        return new ResponseStamp(etag.toString(), lastModified);
+    }
+    
+    // Class-wide JSON of each published assignment, without the per-request fields and without the
+    // opening brace so the flags can be written in front of it
+    private List<AssignmentFragment> loadAssignmentFragments(Integer classGrade) {
+        List<AssignmentFragment> fragments = new ArrayList<>();
+        for (Assignment assignment : assignmentRepository
+                .findByClassGradeAndStatusOrderByDueDateDesc(classGrade, Assignment.AssignmentStatus.PUBLISHED)) {
+            ObjectNode node = responseCache.getObjectMapper().valueToTree(mapToDTO(assignment, null, null));
+            node.remove(List.of("isOverdue", "hasSubmitted", "isGraded"));
+            byte[] json = responseCache.toJson(node);
+            byte[] body = Arrays.copyOfRange(json, 1, json.length);
+            fragments.add(new AssignmentFragment(assignment.getId(), assignment.getDueDate(), body));
+        }
+        return List.copyOf(fragments);
+    }
+    
+    // Fetch the student's submission statuses for the whole class in one query
+    private Map<Long, AssignmentSubmission.SubmissionStatus> loadSubmissionStatuses(Long studentId, Integer classGrade) {
+        Map<Long, AssignmentSubmission.SubmissionStatus> statuses = new HashMap<>();
+        submissionRepository.findStatusesByStudentAndClass(studentId, classGrade, Assignment.AssignmentStatus.PUBLISHED)
+            .forEach(s -> statuses.put(s.getAssignmentId(), s.getStatus()));
+        return Map.copyOf(statuses);
+    }
+    
+    /**
+     * Builds the student x assignment matrix for a class with a fixed number of queries.
+     * With {@code since} only submissions created or graded after that time are returned,
+     * along with the students they belong to; the roster is sent only on a full load.
+     */
+    @Transactional(readOnly = true)
+    public GradebookDTO getGradebook(Integer classGrade, LocalDateTime since) {
+        LocalDateTime asOf = LocalDateTime.now();
+        boolean incremental = since != null;
+        
+        GradebookDTO gradebook = new GradebookDTO();
+        gradebook.setClassGrade(classGrade);
+        gradebook.setIncremental(incremental);
+        gradebook.setAsOf(asOf);
+        
+        GradebookDTO.AssignmentColumns assignmentColumns = gradebook.getAssignments();
+        for (Assignment assignment : assignmentRepository
+                .findByClassGradeAndStatusOrderByDueDateDesc(classGrade, Assignment.AssignmentStatus.PUBLISHED)) {
+            assignmentColumns.getId().add(assignment.getId());
+            assignmentColumns.getTitle().add(assignment.getTitle());
+            assignmentColumns.getDescription().add(assignment.getDescription());
+            assignmentColumns.getTotalMarks().add(assignment.getTotalMarks());
+            assignmentColumns.getDueDate().add(assignment.getDueDate());
+        }
+        
+        LocalDateTime changedAfter = incremental
+            ? since.minusSeconds(GRADEBOOK_SINCE_OVERLAP_SECONDS)
+            : GRADEBOOK_EPOCH;
+        List<GradebookRow> rows = submissionRepository.findGradebookRows(
+            classGrade, Assignment.AssignmentStatus.PUBLISHED, changedAfter, GRADEBOOK_PREVIEW_LENGTH);
+        
+        // Students: the approved roster on a full load, plus anyone with a submission in this class
+        // (for example a student who has since moved class)
+        Map<Long, GradebookStudent> students = new HashMap<>();
+        LinkedHashSet<Long> studentOrder = new LinkedHashSet<>();
+        if (!incremental) {
+            for (User student : userRepository.findClassRosterWithProfile(
+                    classGrade, User.Role.STUDENT, User.RegistrationStatus.APPROVED)) {
+                studentOrder.add(student.getId());
+                students.put(student.getId(), new GradebookStudent(student.getStudentProfile().getFullName(), student.getEmail()));
+            }
+        }
+        
+        GradebookDTO.SubmissionColumns submissionColumns = gradebook.getSubmissions();
+        for (GradebookRow row : rows) {
+            if (studentOrder.add(row.getStudentId())) {
+                students.put(row.getStudentId(), new GradebookStudent(row.getStudentName(), row.getStudentEmail()));
+            }
+            submissionColumns.getId().add(row.getSubmissionId());
+            submissionColumns.getAssignmentId().add(row.getAssignmentId());
+            submissionColumns.getStudentId().add(row.getStudentId());
+            submissionColumns.getStatus().add(row.getStatus().name());
+            submissionColumns.getMarks().add(row.getMarksObtained());
+            submissionColumns.getLate().add(Boolean.TRUE.equals(row.getIsLate()));
+            submissionColumns.getSubmittedAt().add(row.getSubmittedAt());
+            submissionColumns.getAttachmentUrl().add(row.getAttachmentUrl());
+            submissionColumns.getHasFeedback().add(Boolean.TRUE.equals(row.getHasFeedback()));
+            submissionColumns.getPreview().add(row.getPreview());
+        }
+        
+        GradebookDTO.StudentColumns studentColumns = gradebook.getStudents();
+        for (Long studentId : studentOrder) {
+            GradebookStudent student = students.get(studentId);
+            studentColumns.getId().add(studentId);
+            studentColumns.getName().add(student.name());
+            studentColumns.getEmail().add(student.email());
+        }
+        
+        return gradebook;
     }
     
-    public List<AssignmentDTO> getAllAssignments() {
-        return assignmentRepository.findAll().stream()
-            .map(assignment -> mapToDTO(assignment, null, null))
-            .collect(Collectors.toList());
+    public CursorPage<AssignmentDTO> getAssignmentsPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Assignment> rows = after == null
+            ? assignmentRepository.findAllByOrderByDueDateDescIdDesc(Limit.of(limit + 1))
+            : assignmentRepository.findPageAfter(after.keyAsDateTime(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit,
+            assignment -> mapToDTO(assignment, null, null),
+            assignment -> PageCursor.after(assignment.getDueDate(), assignment.getId()));
     }
     
     public AssignmentDTO getAssignmentById(Long id) {
@@ -91,7 +288,12 @@ public class AssignmentService {
     public void deleteAssignment(Long id) {
         Assignment assignment = assignmentRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+        // Submissions go with the assignment, and so do their references to their files
+        List<String> submissionAttachments = submissionRepository.findAttachmentUrlsByAssignmentId(id);
         assignmentRepository.delete(assignment);
+        blobReferences.release(assignment.getAttachmentUrl());
+        submissionAttachments.forEach(blobReferences::release);
+        eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.ASSIGNMENTS, assignment.getClassGrade()));
     }
     
     @Transactional
@@ -99,12 +301,6 @@ public class AssignmentService {
         Assignment assignment = assignmentRepository.findById(request.getAssignmentId())
             .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
         
-        // Check if already submitted
-        submissionRepository.findByAssignmentIdAndStudentId(request.getAssignmentId(), studentId)
-            .ifPresent(s -> {
-                throw new IllegalStateException("Assignment already submitted");
-            });
-        
         // Check if assignment is overdue
         boolean isOverdue = LocalDateTime.now().isAfter(assignment.getDueDate());
         if (isOverdue) {
@@ -127,27 +323,35 @@ public class AssignmentService {
         submission.setStatus(AssignmentSubmission.SubmissionStatus.SUBMITTED);
         submission.setIsLate(isOverdue);
         
-        AssignmentSubmission saved = submissionRepository.save(submission);
-        return mapSubmissionToDTO(saved);
+        // Insert-on-conflict: the unique (assignment_id, student_id) constraint decides "already submitted",
+        // so concurrent submits cannot create duplicates and no existence check is needed first
+        Long id = submissionRepository.insertIfAbsent(
+                submission.getAssignmentId(),
+                submission.getStudentId(),
+                submission.getSubmissionText(),
+                submission.getAttachmentUrl(),
+                submission.getSubmittedAt(),
+                submission.getStatus().name(),
+                submission.getIsLate())
+            .orElseThrow(() -> new IllegalStateException("Assignment already submitted"));
+        blobReferences.retain(submission.getAttachmentUrl());
+        submission.setId(id);
+        submission.setUpdatedAt(submission.getSubmittedAt());
+        eventPublisher.publishEvent(new StudentSubmissionsChangedEvent(studentId));
+        return mapSubmissionToDTO(submission);
     }
     
     public List<SubmissionDTO> getSubmissionsByAssignment(Long assignmentId) {
-        return submissionRepository.findByAssignmentId(assignmentId).stream()
-            .map(this::mapSubmissionToDTO)
-            .collect(Collectors.toList());
+        return submissionRepository.findSubmissionDTOsByAssignmentId(assignmentId);
     }
     
     public SubmissionDTO getStudentSubmission(Long assignmentId, Long studentId) {
-        AssignmentSubmission submission = submissionRepository
-            .findByAssignmentIdAndStudentId(assignmentId, studentId)
+        return submissionRepository.findSubmissionDTOByAssignmentIdAndStudentId(assignmentId, studentId)
             .orElseThrow(() -> new ResourceNotFoundException("Submission not found"));
-        return mapSubmissionToDTO(submission);
     }
     
     public List<SubmissionDTO> getStudentSubmissions(Long studentId) {
-        return submissionRepository.findByStudentId(studentId).stream()
-            .map(this::mapSubmissionToDTO)
-            .collect(Collectors.toList());
+        return submissionRepository.findSubmissionDTOsByStudentId(studentId);
     }
     
     @Transactional
@@ -170,9 +374,80 @@ public class AssignmentService {
         submission.setStatus(AssignmentSubmission.SubmissionStatus.GRADED);
         
         AssignmentSubmission updated = submissionRepository.save(submission);
+        eventPublisher.publishEvent(new StudentSubmissionsChangedEvent(updated.getStudentId()));
         return mapSubmissionToDTO(updated);
     }
     
+    /**
+     * Grades many submissions of one assignment in a single transaction. The assignment and all
+     * referenced submissions are loaded with one query each, and the resulting UPDATEs are sent
+     * as one JDBC batch. Invalid items are skipped and reported; the valid ones are still applied.
+     */
+    @Transactional
+    public BatchGradeResponse gradeSubmissions(Long assignmentId, List<GradeSubmissionRequest> grades) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+            .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+        Integer totalMarks = assignment.getTotalMarks();
+        
+        Set<Long> submissionIds = new HashSet<>();
+        for (GradeSubmissionRequest grade : grades) {
+            if (grade.getSubmissionId() != null) {
+                submissionIds.add(grade.getSubmissionId());
+            }
+        }
+        Map<Long, AssignmentSubmission> submissions = new HashMap<>();
+        submissionRepository.findAllById(submissionIds).forEach(s -> submissions.put(s.getId(), s));
+        
+        List<BatchGradeResult> results = new ArrayList<>();
+        List<AssignmentSubmission> toSave = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (GradeSubmissionRequest grade : grades) {
+            Long submissionId = grade.getSubmissionId();
+            String error = validateGrade(grade, submissions.get(submissionId), assignmentId, totalMarks, seen);
+            if (error != null) {
+                results.add(new BatchGradeResult(submissionId, false, error));
+                continue;
+            }
+            
+            AssignmentSubmission submission = submissions.get(submissionId);
+            submission.setMarksObtained(grade.getMarksObtained());
+            submission.setFeedback(grade.getFeedback());
+            submission.setStatus(AssignmentSubmission.SubmissionStatus.GRADED);
+            toSave.add(submission);
+            results.add(new BatchGradeResult(submissionId, true, "Graded"));
+        }
+        
+        submissionRepository.saveAll(toSave);
+        toSave.stream()
+            .map(AssignmentSubmission::getStudentId)
+            .distinct()
+            .forEach(studentId -> eventPublisher.publishEvent(new StudentSubmissionsChangedEvent(studentId)));
+        return new BatchGradeResponse(toSave.size(), grades.size() - toSave.size(), results);
+    }
+    
+    private String validateGrade(GradeSubmissionRequest grade, AssignmentSubmission submission,
+                                 Long assignmentId, Integer totalMarks, Set<Long> seen) {
+        if (grade.getSubmissionId() == null) {
+            return "Submission ID is required";
+        }
+        if (!seen.add(grade.getSubmissionId())) {
+            return "Submission appears more than once in this batch";
+        }
+        if (submission == null || !submission.getAssignmentId().equals(assignmentId)) {
+            return "Submission not found for this assignment";
+        }
+        if (grade.getMarksObtained() == null) {
+            return "Marks obtained is required";
+        }
+        if (grade.getMarksObtained() < 0) {
+            return "Marks cannot be negative";
+        }
+        if (grade.getMarksObtained() > totalMarks) {
+            return "Marks obtained (" + grade.getMarksObtained() + ") cannot exceed total marks (" + totalMarks + ")";
+        }
+        return null;
+    }
+    
     private AssignmentDTO mapToDTO(Assignment assignment, Boolean hasSubmitted, Boolean isGraded) {
         boolean isOverdue = LocalDateTime.now().isAfter(assignment.getDueDate());
         return new AssignmentDTO(
@@ -212,4 +487,10 @@ public class AssignmentService {
             submission.getFeedback()
         );
     }
+    
+    private record AssignmentFragment(Long id, LocalDateTime dueDate, byte[] body) {
+    }
+    
+    private record GradebookStudent(String name, String email) {
+    }
 }
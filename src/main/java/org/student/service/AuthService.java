@@ -1,11 +1,13 @@
 package org.student.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.student.dto.*;
 import org.student.entity.StudentProfile;
 import org.student.entity.User;
+import org.student.event.UserChangedEvent;
 import org.student.exception.AuthenticationException;
 import org.student.exception.RegistrationException;
 import org.student.repository.StudentProfileRepository;
@@ -19,15 +21,18 @@ public class AuthService {
     private final StudentProfileRepository studentProfileRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final ApplicationEventPublisher eventPublisher;
     
     public AuthService(UserRepository userRepository, 
                       StudentProfileRepository studentProfileRepository,
                       PasswordEncoder passwordEncoder, 
-                      JwtUtil jwtUtil) {
+                      JwtUtil jwtUtil,
+                      ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.studentProfileRepository = studentProfileRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.eventPublisher = eventPublisher;
     }
     
     // New method for Supabase Auth
@@ -71,6 +76,9 @@ public class AuthService {
             studentProfileRepository.save(profile);
         }
         
+        // Drop any negative cache entry left by requests made before the profile existed
+        eventPublisher.publishEvent(new UserChangedEvent(request.getSupabaseUserId()));
+        
         return new ApiResponse(true, "Profile created successfully");
     }
     
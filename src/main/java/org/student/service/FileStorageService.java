@@ -1,80 +1,98 @@
 package org.student.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.student.entity.StoredBlob;
+import org.student.repository.StoredBlobRepository;
+import org.student.storage.StorageBackend;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
     
-    @Value("${supabase.url}")
-    private String supabaseUrl;
+    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
     
-    @Value("${supabase.key}")
-    private String supabaseKey;
+    private final StorageBackend storageBackend;
+    private final StoredBlobRepository blobRepository;
     
-    private static final String BUCKET_NAME = "assignments";
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    public FileStorageService(StorageBackend storageBackend, StoredBlobRepository blobRepository) {
+        this.storageBackend = storageBackend;
+        this.blobRepository = blobRepository;
+    }
     
-    private final HttpClient httpClient = HttpClient.newHttpClient();
+    /**
+     * Stores an upload under the SHA-256 of its content and returns its URL. Identical content
+     * uploaded again (the same worksheet for another grade, a resubmitted file) gets the existing
+     * URL back without any transfer to storage. The new blob starts unreferenced; saving the row
+     * that holds the URL retains it through {@link org.student.storage.BlobReferences}.
+     * Not transactional, so no connection is held while the file is transferred.
+     */
+    public String uploadFile(MultipartFile file) throws IOException {
+        return store(file, file.getSize(), file.getOriginalFilename(), file.getContentType());
+    }
     
-    public String uploadFile(MultipartFile file, String folder) throws IOException {
-        // Validate file
-        if (file.isEmpty()) {
+    /**
+     * Same as {@link #uploadFile(MultipartFile)} for a file that was assembled on disk, such as a
+     * completed resumable upload.
+     */
+    public String uploadFile(Path file, String originalFilename, String contentType) throws IOException {
+        return store(new FileSystemResource(file), Files.size(file), originalFilename, contentType);
+    }
+    
+    /**
+     * The checks every upload has to pass, exposed so a resumable upload can be refused before
+     * any of it is sent.
+     */
+    public void validateUpload(long size, String contentType) {
+        if (size <= 0) {
             throw new IllegalArgumentException("File is empty");
         }
         
-        if (file.getSize() > MAX_FILE_SIZE) {
+        if (size > MAX_FILE_SIZE) {
             throw new IllegalArgumentException("File size exceeds 10MB limit");
         }
         
-        String contentType = file.getContentType();
         if (!isValidFileType(contentType)) {
             throw new IllegalArgumentException("Invalid file type. Only PDF and Word documents are allowed");
         }
+    }
+    
+    private String store(InputStreamSource source, long size, String originalFilename, String contentType)
+            throws IOException {
+        validateUpload(size, contentType);
         
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename != null && originalFilename.contains(".") 
-            ? originalFilename.substring(originalFilename.lastIndexOf("."))
-            : "";
-        
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String uniqueFilename = folder + "/" + timestamp + "_" + UUID.randomUUID().toString() + extension;
+        // Content-addressed: a file that is already stored is not sent to storage again
+        String sha256 = sha256(source);
+        Optional<StoredBlob> existing = blobRepository.findById(sha256);
+        if (existing.isPresent() && blobRepository.touch(sha256, LocalDateTime.now()) == 1) {
+            return existing.get().getUrl();
+        }
         
-        try {
-            // Upload to Supabase Storage
-            String uploadUrl = supabaseUrl + "/storage/v1/object/" + BUCKET_NAME + "/" + uniqueFilename;
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(uploadUrl))
-                .header("Authorization", "Bearer " + supabaseKey)
-                .header("Content-Type", contentType)
-                .POST(HttpRequest.BodyPublishers.ofByteArray(file.getBytes()))
-                .build();
-            
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() != 200 && response.statusCode() != 201) {
-                throw new IOException("Failed to upload file to Supabase: " + response.body());
-            }
-            
-            // Return public URL
-            return supabaseUrl + "/storage/v1/object/public/" + BUCKET_NAME + "/" + uniqueFilename;
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("File upload interrupted", e);
+        // A new key for every upload, never the key of an earlier copy: the orphan collector may be
+        // deleting that copy right now (it drops the row first, then the file), and a re-upload
+        // written over it would be deleted with it
+        String objectKey = "blobs/" + sha256.substring(0, 2) + "/" + sha256 + "-"
+            + UUID.randomUUID().toString().substring(0, 8) + extensionOf(contentType);
+        String url;
+        try (InputStream content = source.getInputStream()) {
+            url = storageBackend.store(objectKey, content, size, contentType);
         }
+        blobRepository.insertIfAbsent(sha256, objectKey, url, size, contentType, LocalDateTime.now());
+        return url;
     }
     
     public void deleteFile(String fileUrl) throws IOException {
@@ -82,29 +100,36 @@ public class FileStorageService {
             return;
         }
         
+        String objectKey = storageBackend.objectKeyOf(fileUrl);
+        if (objectKey == null) {
+            return; // Not stored by the configured backend
+        }
+        storageBackend.delete(objectKey);
+    }
+    
+    // Reads the content once, from its spool file for a part above the multipart threshold
+    private static String sha256(InputStreamSource source) throws IOException {
+        MessageDigest digest;
         try {
-            // Extract filename from URL
-            String prefix = "/storage/v1/object/public/" + BUCKET_NAME + "/";
-            int index = fileUrl.indexOf(prefix);
-            if (index == -1) {
-                return; // Not a Supabase storage URL
-            }
-            
-            String filename = fileUrl.substring(index + prefix.length());
-            String deleteUrl = supabaseUrl + "/storage/v1/object/" + BUCKET_NAME + "/" + filename;
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(deleteUrl))
-                .header("Authorization", "Bearer " + supabaseKey)
-                .DELETE()
-                .build();
-            
-            httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("File deletion interrupted", e);
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (InputStream content = new DigestInputStream(source.getInputStream(), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
         }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    // From the validated content type, never the client's filename: a PDF named x.html must not
+    // end up stored, and perhaps served, as HTML
+    private static String extensionOf(String contentType) {
+        return switch (contentType) {
+            case "application/pdf" -> ".pdf";
+            case "application/msword" -> ".doc";
+            case "application/vnd.openxmlformats-officedocument.wordprocessingml.document" -> ".docx";
+            default -> "";
+        };
     }
     
     private boolean isValidFileType(String contentType) {
@@ -0,0 +1,411 @@
+package org.student.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.student.dto.GenerateAssignmentRequest;
+import org.student.dto.GenerationJobDTO;
+import org.student.exception.RateLimitedException;
+import org.student.exception.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Assignment generation as queued jobs, so a burst of teachers generating at once waits its turn
+ * instead of holding a request thread each for up to a minute and tripping Groq's rate limit.
+ *
+ * <p>A fixed number of workers ({@code generation-jobs.workers}) run jobs. Each teacher has their
+ * own queue and the workers take from the teachers in turn, so one teacher generating ten variants
+ * does not hold up everyone else. When Groq answers 429 the job goes back to the front of its
+ * teacher's queue and every worker waits out the {@code retry-after}, since the limit is for the
+ * whole API key; after {@code generation-jobs.max-attempts} rate-limited calls the job fails.
+ *
+ * <p>Jobs are kept in memory. Finished ones can be fetched for {@code generation-jobs.retention-minutes}.
+ */
+@Service
+public class GenerationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationJobService.class);
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    private final AIAssignmentGeneratorService generatorService;
+    private final int queueCapacity;
+    private final int maxQueuedPerTeacher;
+    private final int maxAttempts;
+    private final Duration retention;
+
+    private final Map<String, GenerationJob> jobs = new ConcurrentHashMap<>();
+
+    // Waiting jobs; everything below is guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Map<Long, Deque<GenerationJob>> queues = new HashMap<>();
+    // Teachers with waiting jobs, in the order they get a worker next
+    private final Deque<Long> rotation = new ArrayDeque<>();
+    private int queued;
+    private Instant pausedUntil = Instant.MIN;
+    private boolean running = true;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Timer queueWait;
+    private final Counter rateLimited;
+
+    public GenerationJobService(AIAssignmentGeneratorService generatorService,
+                                MeterRegistry meterRegistry,
+                                @Value("${generation-jobs.workers:2}") int workers,
+                                @Value("${generation-jobs.queue-capacity:100}") int queueCapacity,
+                                @Value("${generation-jobs.max-queued-per-teacher:5}") int maxQueuedPerTeacher,
+                                @Value("${generation-jobs.max-attempts:4}") int maxAttempts,
+                                @Value("${generation-jobs.retention-minutes:60}") long retentionMinutes) {
+        this.generatorService = generatorService;
+        this.queueCapacity = queueCapacity;
+        this.maxQueuedPerTeacher = maxQueuedPerTeacher;
+        this.maxAttempts = maxAttempts;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+
+        this.queueWait = Timer.builder("ai.generation.jobs.wait")
+            .description("Time a generation job waited for a worker")
+            .register(meterRegistry);
+        this.rateLimited = Counter.builder("ai.generation.jobs.rate-limited")
+            .description("Generation attempts Groq refused with 429")
+            .register(meterRegistry);
+        Gauge.builder("ai.generation.jobs.queued", this, GenerationJobService::queuedJobs)
+            .description("Generation jobs waiting for a worker")
+            .register(meterRegistry);
+
+        // Tests pass 0 and run jobs with runNext()
+        for (int i = 1; i <= workers; i++) {
+            Thread worker = new Thread(this::work, "generation-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        lock.lock();
+        try {
+            running = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queues a generation for a teacher.
+     *
+     * @throws RejectedExecutionException when the teacher already has
+     *         {@code generation-jobs.max-queued-per-teacher} jobs waiting, or the queue is full
+     */
+    public GenerationJob submit(Long teacherId, GenerateAssignmentRequest request, boolean regenerate) {
+        GenerationJob job = new GenerationJob(UUID.randomUUID().toString(), teacherId, request, regenerate);
+        lock.lock();
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("Assignment generation is shutting down");
+            }
+            if (queued >= queueCapacity) {
+                throw new RejectedExecutionException("Too many assignments are being generated, try again in a minute");
+            }
+            Deque<GenerationJob> queue = queues.get(teacherId);
+            if (queue != null && queue.size() >= maxQueuedPerTeacher) {
+                throw new RejectedExecutionException("You already have " + queue.size()
+                    + " assignments waiting to be generated");
+            }
+            jobs.put(job.id, job);
+            enqueue(job, false);
+        } finally {
+            lock.unlock();
+        }
+        return job;
+    }
+
+    /**
+     * A teacher's job, as long as it is queued, running or finished within the retention period.
+     */
+    public GenerationJobDTO getJob(String jobId, Long teacherId) {
+        return find(jobId, teacherId).toDTO();
+    }
+
+    /**
+     * Calls {@code listener} with the job as it is now and again on every change until it
+     * finishes. The listener is dropped if it throws. Returns a callback that stops the updates.
+     */
+    public Runnable subscribe(String jobId, Long teacherId, Consumer<GenerationJobDTO> listener) {
+        GenerationJob job = find(jobId, teacherId);
+        synchronized (job) {
+            listener.accept(job.toDTO());
+            if (!job.isFinished()) {
+                job.listeners.add(listener);
+            }
+        }
+        return () -> {
+            synchronized (job) {
+                job.listeners.remove(listener);
+            }
+        };
+    }
+
+    private GenerationJob find(String jobId, Long teacherId) {
+        GenerationJob job = jobs.get(jobId);
+        // Someone else's job is reported the same as one that does not exist
+        if (job == null || !job.teacherId.equals(teacherId)) {
+            throw new ResourceNotFoundException("Generation job not found: " + jobId);
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> {
+            synchronized (job) {
+                return job.finishedAt != null && job.finishedAt.isBefore(cutoff);
+            }
+        });
+    }
+
+    int queuedJobs() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the next job that may run now on the calling thread. False when there is none, or
+     * everything is waiting out a rate limit.
+     */
+    boolean runNext() {
+        GenerationJob job;
+        lock.lock();
+        try {
+            job = poll();
+        } finally {
+            lock.unlock();
+        }
+        if (job == null) {
+            return false;
+        }
+        run(job);
+        return true;
+    }
+
+    private void work() {
+        while (true) {
+            GenerationJob job;
+            lock.lock();
+            try {
+                while ((job = poll()) == null) {
+                    if (!running) {
+                        return;
+                    }
+                    if (rotation.isEmpty()) {
+                        changed.await();
+                    } else {
+                        changed.awaitNanos(Math.max(1, Duration.between(Instant.now(), pausedUntil).toNanos()));
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            run(job);
+        }
+    }
+
+    // Both called with lock held
+    private void enqueue(GenerationJob job, boolean first) {
+        Deque<GenerationJob> queue = queues.get(job.teacherId);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            queues.put(job.teacherId, queue);
+            if (first) {
+                rotation.addFirst(job.teacherId);
+            } else {
+                rotation.addLast(job.teacherId);
+            }
+        }
+        if (first) {
+            queue.addFirst(job);
+        } else {
+            queue.addLast(job);
+        }
+        job.queuedAt = Instant.now();
+        queued++;
+        changed.signalAll();
+    }
+
+    private GenerationJob poll() {
+        if (rotation.isEmpty() || Instant.now().isBefore(pausedUntil)) {
+            return null;
+        }
+        Long teacherId = rotation.pollFirst();
+        Deque<GenerationJob> queue = queues.get(teacherId);
+        GenerationJob job = queue.pollFirst();
+        if (queue.isEmpty()) {
+            queues.remove(teacherId);
+        } else {
+            // Back of the line, behind every other teacher who is waiting
+            rotation.addLast(teacherId);
+        }
+        queued--;
+        return job;
+    }
+
+    private void run(GenerationJob job) {
+        queueWait.record(Duration.between(job.queuedAt, Instant.now()));
+        update(job, Status.RUNNING, null, null);
+        AIAssignmentGeneratorService.Generation generation;
+        try {
+            generation = generatorService.generateAssignment(job.request, job.regenerate);
+        } catch (RateLimitedException e) {
+            rateLimited.increment();
+            if (job.attempts >= maxAttempts) {
+                finish(job, null, "Groq is rate limiting assignment generation, try again in a few minutes");
+                return;
+            }
+            // A little jitter so workers paused together do not all call again at the same instant
+            Duration wait = e.getRetryAfter().plusMillis(
+                ThreadLocalRandom.current().nextLong(e.getRetryAfter().toMillis() / 5 + 1));
+            logger.info("Generation job {} rate limited on attempt {}, retrying in {}ms", job.id, job.attempts,
+                wait.toMillis());
+            update(job, Status.QUEUED, null, null);
+            lock.lock();
+            try {
+                Instant until = Instant.now().plus(wait);
+                if (until.isAfter(pausedUntil)) {
+                    pausedUntil = until;
+                }
+                enqueue(job, true);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Generation job {} failed: {}", job.id, e.getMessage());
+            finish(job, null, e.getMessage());
+            return;
+        }
+        finish(job, generation, null);
+    }
+
+    private void finish(GenerationJob job, AIAssignmentGeneratorService.Generation generation, String error) {
+        update(job, generation != null ? Status.SUCCEEDED : Status.FAILED, generation, error);
+        if (generation != null) {
+            job.result.complete(generation);
+        } else {
+            job.result.completeExceptionally(new IllegalStateException(error));
+        }
+    }
+
+    private void update(GenerationJob job, Status status, AIAssignmentGeneratorService.Generation generation,
+                        String error) {
+        synchronized (job) {
+            job.status = status;
+            if (status == Status.RUNNING) {
+                job.attempts++;
+            }
+            if (job.isFinished()) {
+                job.generation = generation;
+                job.error = error;
+                job.finishedAt = LocalDateTime.now();
+            }
+            GenerationJobDTO dto = job.toDTO();
+            // Copy: a listener that finishes its stream unsubscribes from inside accept()
+            for (Consumer<GenerationJobDTO> listener : List.copyOf(job.listeners)) {
+                try {
+                    listener.accept(dto);
+                } catch (RuntimeException e) {
+                    job.listeners.remove(listener);
+                }
+            }
+            if (job.isFinished()) {
+                job.listeners.clear();
+            }
+        }
+    }
+
+    /**
+     * One queued generation. {@link #result()} completes when it finishes, exceptionally if it failed.
+     */
+    public static final class GenerationJob {
+
+        private final String id;
+        private final Long teacherId;
+        private final GenerateAssignmentRequest request;
+        private final boolean regenerate;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final CompletableFuture<AIAssignmentGeneratorService.Generation> result = new CompletableFuture<>();
+
+        // Set with the service's lock held
+        private Instant queuedAt;
+
+        // Guarded by this
+        private final List<Consumer<GenerationJobDTO>> listeners = new ArrayList<>();
+        private Status status = Status.QUEUED;
+        private int attempts;
+        private AIAssignmentGeneratorService.Generation generation;
+        private String error;
+        private LocalDateTime finishedAt;
+
+        private GenerationJob(String id, Long teacherId, GenerateAssignmentRequest request, boolean regenerate) {
+            this.id = id;
+            this.teacherId = teacherId;
+            this.request = request;
+            this.regenerate = regenerate;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public CompletableFuture<AIAssignmentGeneratorService.Generation> result() {
+            return result;
+        }
+
+        private boolean isFinished() {
+            return status == Status.SUCCEEDED || status == Status.FAILED;
+        }
+
+        public synchronized GenerationJobDTO toDTO() {
+            return new GenerationJobDTO(id, status.name(), request.getTopic(), request.getClassGrade(),
+                generation != null ? generation.content() : null,
+                generation != null ? generation.cached() : null,
+                generation != null ? generation.missingVariants() : null,
+                error, attempts, createdAt, finishedAt);
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package org.student.service;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.student.dto.CreateLateSubmissionRequest;
+import org.student.dto.CursorPage;
 import org.student.dto.LateSubmissionRequestDTO;
 import org.student.entity.Assignment;
 import org.student.entity.LateSubmissionRequest;
 import org.student.entity.User;
 import org.student.exception.ResourceNotFoundException;
+import org.student.pagination.PageCursor;
 import org.student.repository.AssignmentRepository;
 import org.student.repository.LateSubmissionRequestRepository;
 import org.student.repository.UserRepository;
@@ -60,11 +63,13 @@ public class LateSubmissionService {
             .collect(Collectors.toList());
     }
     
-    public List<LateSubmissionRequestDTO> getAllRequests() {
-        return requestRepository.findAll()
-            .stream()
-            .map(this::mapToDTO)
-            .collect(Collectors.toList());
+    public CursorPage<LateSubmissionRequestDTO> getRequestsPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<LateSubmissionRequest> rows = after == null
+            ? requestRepository.findAllByOrderByRequestedAtDescIdDesc(Limit.of(limit + 1))
+            : requestRepository.findPageAfter(after.keyAsDateTime(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, this::mapToDTO,
+            request -> PageCursor.after(request.getRequestedAt(), request.getId()));
     }
     
     public LateSubmissionRequestDTO getRequestByAssignmentAndStudent(Long assignmentId, Long studentId) {
@@ -102,7 +107,7 @@ public class LateSubmissionService {
     private LateSubmissionRequestDTO mapToDTO(LateSubmissionRequest request) {
         Assignment assignment = assignmentRepository.findById(request.getAssignmentId())
             .orElse(null);
-        User student = userRepository.findById(request.getStudentId())
+        User student = userRepository.findByIdWithProfile(request.getStudentId())
             .orElse(null);
         
         return new LateSubmissionRequestDTO(
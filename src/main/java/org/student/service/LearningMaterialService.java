@@ -1,14 +1,21 @@
 package org.student.service;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.student.cache.ClassScope;
+import org.student.dto.CursorPage;
 import org.student.dto.LearningMaterialDTO;
 import org.student.dto.UploadMaterialRequest;
 import org.student.entity.LearningMaterial;
 import org.student.entity.User;
+import org.student.event.ClassDataChangedEvent;
 import org.student.exception.ResourceNotFoundException;
+import org.student.pagination.PageCursor;
 import org.student.repository.LearningMaterialRepository;
 import org.student.repository.UserRepository;
+import org.student.storage.BlobReferences;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -18,11 +25,17 @@ public class LearningMaterialService {
     
     private final LearningMaterialRepository materialRepository;
     private final UserRepository userRepository;
+    private final BlobReferences blobReferences;
+    private final ApplicationEventPublisher eventPublisher;
     
     public LearningMaterialService(LearningMaterialRepository materialRepository,
-                                  UserRepository userRepository) {
+                                  UserRepository userRepository,
+                                  BlobReferences blobReferences,
+                                  ApplicationEventPublisher eventPublisher) {
         this.materialRepository = materialRepository;
         this.userRepository = userRepository;
+        this.blobReferences = blobReferences;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional
@@ -37,6 +50,8 @@ public class LearningMaterialService {
         material.setUploadedBy(teacherId);
         
         LearningMaterial saved = materialRepository.save(material);
+        blobReferences.retain(saved.getFileUrl());
+        eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.LEARNING_MATERIALS, saved.getClassGrade()));
         return mapToDTO(saved);
     }
     
@@ -46,10 +61,13 @@ public class LearningMaterialService {
             .collect(Collectors.toList());
     }
     
-    public List<LearningMaterialDTO> getAllMaterials() {
-        return materialRepository.findAllByOrderByUploadedAtDesc().stream()
-            .map(this::mapToDTO)
-            .collect(Collectors.toList());
+    public CursorPage<LearningMaterialDTO> getMaterialsPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<LearningMaterial> rows = after == null
+            ? materialRepository.findAllByOrderByUploadedAtDescIdDesc(Limit.of(limit + 1))
+            : materialRepository.findPageAfter(after.keyAsDateTime(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, this::mapToDTO,
+            material -> PageCursor.after(material.getUploadedAt(), material.getId()));
     }
     
     public LearningMaterialDTO getMaterialById(Long id) {
@@ -63,10 +81,12 @@ public class LearningMaterialService {
         LearningMaterial material = materialRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Learning material not found"));
         materialRepository.delete(material);
+        blobReferences.release(material.getFileUrl());
+        eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.LEARNING_MATERIALS, material.getClassGrade()));
     }
     
     private LearningMaterialDTO mapToDTO(LearningMaterial material) {
-        User teacher = userRepository.findById(material.getUploadedBy()).orElse(null);
+        User teacher = userRepository.findByIdWithProfile(material.getUploadedBy()).orElse(null);
         String teacherName = teacher != null ? teacher.getFullName() : "Unknown";
         
         return new LearningMaterialDTO(
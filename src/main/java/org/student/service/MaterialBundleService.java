@@ -0,0 +1,247 @@
+package org.student.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.student.cache.ClassScope;
+import org.student.cache.ClassVersions;
+import org.student.entity.LearningMaterial;
+import org.student.event.ClassDataChangedEvent;
+import org.student.repository.LearningMaterialRepository;
+import org.student.storage.StorageBackend;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * One prebuilt ZIP of every learning material per class, so students preparing for exams fetch a
+ * single cached file instead of each material separately.
+ *
+ * <p>Bundles live on local disk as {@code grade-<g>-v<version>.zip}, where the version is the
+ * class's learning-materials counter in {@link ClassVersions}. A material upload or delete
+ * rebuilds the bundle in the background; until the new one is in place the previous one is still
+ * served. The version in the file name lets a restarted instance reuse a bundle that is still
+ * current instead of downloading every material again.
+ */
+@Service
+public class MaterialBundleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaterialBundleService.class);
+
+    private final LearningMaterialRepository materialRepository;
+    private final StorageBackend storageBackend;
+    private final ClassVersions classVersions;
+    private final Path directory;
+    private final Executor rebuilds;
+
+    private final Map<Integer, MaterialBundle> bundles = new ConcurrentHashMap<>();
+    // Grades with a rebuild queued but not started; further changes before it starts add nothing
+    private final Set<Integer> queued = ConcurrentHashMap.newKeySet();
+
+    /**
+     * A built bundle. The ETag is the SHA-256 of the file, so it changes exactly when the content does.
+     */
+    public record MaterialBundle(Path file, String etag, Instant lastModified) {
+    }
+
+    @Autowired
+    public MaterialBundleService(LearningMaterialRepository materialRepository,
+                                 StorageBackend storageBackend,
+                                 ClassVersions classVersions,
+                                 @Value("${bundles.dir:${java.io.tmpdir}/classroom-bundles}") String directory) throws IOException {
+        this(materialRepository, storageBackend, classVersions, directory, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "material-bundles");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    // Tests pass a direct executor so a rebuild finishes before the call returns
+    MaterialBundleService(LearningMaterialRepository materialRepository,
+                          StorageBackend storageBackend,
+                          ClassVersions classVersions,
+                          String directory,
+                          Executor rebuilds) throws IOException {
+        this.materialRepository = materialRepository;
+        this.storageBackend = storageBackend;
+        this.classVersions = classVersions;
+        this.directory = Files.createDirectories(Paths.get(directory).toAbsolutePath().normalize());
+        this.rebuilds = rebuilds;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (rebuilds instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * The current bundle for a class, or empty while the first one is being built.
+     */
+    public Optional<MaterialBundle> getBundle(Integer classGrade) {
+        MaterialBundle bundle = bundles.get(classGrade);
+        if (bundle != null) {
+            return Optional.of(bundle);
+        }
+        // First request since startup: reuse the file on disk if nothing changed since it was built
+        Path file = bundleFile(classGrade, classVersions.current(ClassScope.LEARNING_MATERIALS, classGrade));
+        if (Files.isRegularFile(file)) {
+            try {
+                bundle = new MaterialBundle(file, "bundle-" + sha256(file),
+                    Files.getLastModifiedTime(file).toInstant().truncatedTo(ChronoUnit.SECONDS));
+                bundles.putIfAbsent(classGrade, bundle);
+                return Optional.of(bundles.get(classGrade));
+            } catch (IOException e) {
+                logger.warn("Could not reuse material bundle {}: {}", file, e.getMessage());
+            }
+        }
+        scheduleRebuild(classGrade);
+        return Optional.ofNullable(bundles.get(classGrade));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onClassDataChanged(ClassDataChangedEvent event) {
+        if (event.getScope() == ClassScope.LEARNING_MATERIALS && event.getClassGrade() != null) {
+            scheduleRebuild(event.getClassGrade());
+        }
+    }
+
+    private void scheduleRebuild(Integer classGrade) {
+        if (!queued.add(classGrade)) {
+            return;
+        }
+        rebuilds.execute(() -> {
+            // Cleared before building, so a change that lands mid-build queues another rebuild
+            queued.remove(classGrade);
+            try {
+                rebuild(classGrade);
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to build material bundle for class {}", classGrade, e);
+            }
+        });
+    }
+
+    private void rebuild(Integer classGrade) throws IOException {
+        // Read before the materials: a change committed in between makes the name older than the
+        // content, which only costs a rebuild after a restart, never a stale bundle
+        long version = classVersions.current(ClassScope.LEARNING_MATERIALS, classGrade);
+        List<LearningMaterial> materials = materialRepository.findByClassGradeOrderByUploadedAtDesc(classGrade);
+
+        Path temp = Files.createTempFile(directory, ".grade-" + classGrade + "-", ".zip");
+        MessageDigest digest = newSha256();
+        try {
+            try (ZipOutputStream zip = new ZipOutputStream(
+                    new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)), digest))) {
+                Set<String> names = new HashSet<>();
+                for (LearningMaterial material : materials) {
+                    addMaterial(zip, material, names);
+                }
+            }
+            Path target = bundleFile(classGrade, version);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            bundles.put(classGrade, new MaterialBundle(target, "bundle-" + HexFormat.of().formatHex(digest.digest()),
+                Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+            deleteOtherVersions(classGrade, target);
+            logger.info("Built material bundle for class {} with {} materials ({} bytes)",
+                classGrade, materials.size(), Files.size(target));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void addMaterial(ZipOutputStream zip, LearningMaterial material, Set<String> names) throws IOException {
+        String objectKey = storageBackend.objectKeyOf(material.getFileUrl());
+        if (objectKey == null) {
+            return; // A link to somewhere else, not a stored file
+        }
+        InputStream content;
+        try {
+            content = storageBackend.open(objectKey);
+        } catch (IOException e) {
+            // One missing file should not keep the rest of the class from getting a bundle
+            logger.warn("Leaving material {} out of the class {} bundle: {}",
+                material.getId(), material.getClassGrade(), e.getMessage());
+            return;
+        }
+        try (content) {
+            zip.putNextEntry(new ZipEntry(entryName(material.getFileName(), names)));
+            content.transferTo(zip);
+            zip.closeEntry();
+        }
+    }
+
+    // Readers already streaming an older file keep their open handle; only the name goes away
+    private void deleteOtherVersions(Integer classGrade, Path current) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "grade-" + classGrade + "-v*.zip")) {
+            for (Path file : files) {
+                if (!file.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path bundleFile(Integer classGrade, long version) {
+        return directory.resolve("grade-" + classGrade + "-v" + version + ".zip");
+    }
+
+    // "Worksheet 3.pdf", then "Worksheet 3 (2).pdf" for a second material with the same file name
+    private static String entryName(String fileName, Set<String> names) {
+        String name = fileName == null || fileName.isBlank() ? "material" : fileName.replaceAll("[\\\\/:*?\"<>|]", "_");
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        String candidate = name;
+        for (int i = 2; !names.add(candidate.toLowerCase(Locale.ROOT)); i++) {
+            candidate = base + " (" + i + ")" + extension;
+        }
+        return candidate;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream content = new DigestInputStream(Files.newInputStream(file), digest)) {
+            content.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package org.student.service;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.student.cache.ClassScope;
 import org.student.dto.CreateQueryRequest;
 import org.student.dto.CreateReplyRequest;
+import org.student.dto.CursorPage;
 import org.student.dto.QueryDTO;
 import org.student.dto.QueryReplyDTO;
 import org.student.entity.BlockedStudent;
 import org.student.entity.Query;
 import org.student.entity.QueryReply;
 import org.student.entity.User;
+import org.student.event.ClassDataChangedEvent;
 import org.student.exception.ResourceNotFoundException;
+import org.student.pagination.PageCursor;
 import org.student.repository.BlockedStudentRepository;
 import org.student.repository.QueryReplyRepository;
 import org.student.repository.QueryRepository;
@@ -26,15 +32,18 @@ public class QueryService {
     private final QueryReplyRepository replyRepository;
     private final BlockedStudentRepository blockedStudentRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public QueryService(QueryRepository queryRepository,
                        QueryReplyRepository replyRepository,
                        BlockedStudentRepository blockedStudentRepository,
-                       UserRepository userRepository) {
+                       UserRepository userRepository,
+                       ApplicationEventPublisher eventPublisher) {
         this.queryRepository = queryRepository;
         this.replyRepository = replyRepository;
         this.blockedStudentRepository = blockedStudentRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional
@@ -44,7 +53,7 @@ public class QueryService {
             throw new IllegalStateException("You are blocked from posting queries");
         }
         
-        User student = userRepository.findById(studentId)
+        User student = userRepository.findByIdWithProfile(studentId)
             .orElseThrow(() -> new ResourceNotFoundException("Student not found"));
         
         if (student.getRole() != User.Role.STUDENT) {
@@ -60,6 +69,7 @@ public class QueryService {
         query.setIsDeleted(false);
         
         Query savedQuery = queryRepository.save(query);
+        publishChanged(savedQuery);
         
         return mapToDTO(savedQuery);
     }
@@ -71,11 +81,13 @@ public class QueryService {
             .collect(Collectors.toList());
     }
     
-    public List<QueryDTO> getAllQueries() {
-        List<Query> queries = queryRepository.findByIsDeletedFalseOrderByCreatedAtDesc();
-        return queries.stream()
-            .map(this::mapToDTO)
-            .collect(Collectors.toList());
+    public CursorPage<QueryDTO> getQueriesPage(String cursor, int limit) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<Query> rows = after == null
+            ? queryRepository.findByIsDeletedFalseOrderByCreatedAtDescIdDesc(Limit.of(limit + 1))
+            : queryRepository.findPageAfter(after.keyAsDateTime(), after.getId(), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, this::mapToDTO,
+            query -> PageCursor.after(query.getCreatedAt(), query.getId()));
     }
     
     public List<QueryDTO> getMyQueries(Long studentId) {
@@ -85,18 +97,6 @@ public class QueryService {
             .collect(Collectors.toList());
     }
     
-    public List<QueryDTO> getMyClassQueries(Long userId) {
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        
-        if (user.getRole() != User.Role.STUDENT) {
-            throw new IllegalArgumentException("Only students can view class queries");
-        }
-        
-        Integer classGrade = user.getStudentProfile().getClassGrade();
-        return getQueriesByClass(classGrade);
-    }
-    
     public QueryDTO getQueryById(Long queryId) {
         Query query = queryRepository.findById(queryId)
             .orElseThrow(() -> new ResourceNotFoundException("Query not found"));
@@ -134,6 +134,8 @@ public class QueryService {
         reply.setContent(request.getContent());
         
         QueryReply savedReply = replyRepository.save(reply);
+        // The class list shows a reply count per query
+        publishChanged(query);
         
         return mapReplyToDTO(savedReply);
     }
@@ -152,6 +154,7 @@ public class QueryService {
         
         query.setIsDeleted(true);
         queryRepository.save(query);
+        publishChanged(query);
     }
     
     @Transactional
@@ -182,6 +185,10 @@ public class QueryService {
         return blockedStudentRepository.existsByStudentId(studentId);
     }
     
+    private void publishChanged(Query query) {
+        eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.QUERIES, query.getClassGrade()));
+    }
+    
     private QueryDTO mapToDTO(Query query) {
         Long replyCount = replyRepository.countByQueryId(query.getId());
         return new QueryDTO(
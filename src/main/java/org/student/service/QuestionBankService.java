@@ -0,0 +1,298 @@
+package org.student.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.student.dto.GenerateAssignmentRequest;
+import org.student.entity.BankQuestion;
+import org.student.questionbank.QuestionIndex;
+import org.student.questionbank.QuestionParser;
+import org.student.repository.BankQuestionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Questions from every assignment Groq generates, kept in {@code bank_questions} and indexed in
+ * memory by class, topic, complexity and marks (see {@link QuestionIndex}). An assignment can then
+ * be assembled from the bank without calling Groq; only the questions the bank cannot fill are
+ * generated.
+ *
+ * <p>Adding to the bank never fails a generation: generated questions are written on the bank's
+ * own thread ({@link #queueGenerated}), and a batch that cannot be stored is logged and dropped.
+ */
+@Service
+public class QuestionBankService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionBankService.class);
+
+    // The marks buildPrompt asks for, in section order
+    private static final int[] MARKS = {1, 2, 3, 5};
+    private static final String[] SECTIONS = {"A", "B", "C", "D"};
+    // Generations waiting to be written; beyond this they are dropped rather than held in memory
+    private static final int MAX_QUEUED_WRITES = 256;
+
+    private final BankQuestionRepository repository;
+    private final Executor writes;
+    private final QuestionIndex index = new QuestionIndex();
+
+    private final Counter fromBank;
+    private final Counter generated;
+
+    @Autowired
+    public QuestionBankService(BankQuestionRepository repository, MeterRegistry meterRegistry) {
+        this(repository, meterRegistry, new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_QUEUED_WRITES), runnable -> {
+                Thread thread = new Thread(runnable, "question-bank");
+                thread.setDaemon(true);
+                return thread;
+            }));
+    }
+
+    // Tests pass a direct executor so the write finishes before the call returns
+    QuestionBankService(BankQuestionRepository repository, MeterRegistry meterRegistry, Executor writes) {
+        this.repository = repository;
+        this.writes = writes;
+        this.fromBank = assembled(meterRegistry, "bank");
+        this.generated = assembled(meterRegistry, "groq");
+        Gauge.builder("question.bank.size", index, QuestionIndex::size)
+            .description("Questions in the question bank")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (writes instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    private static Counter assembled(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("question.bank.assembled")
+            .description("Questions in assembled assignments by where they came from")
+            .tag("source", source)
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void loadQuestions() {
+        try {
+            repository.findAll().forEach(question -> index.add(question.getClassGrade(), question.getTopic(),
+                question.getComplexity(), question.getMarks(), question.getText(), question.getContentHash()));
+            logger.info("Loaded {} questions into the question bank", index.size());
+        } catch (RuntimeException e) {
+            logger.warn("Could not load the question bank, starting empty: {}", e.getMessage());
+        }
+    }
+
+    public static String normalizeTopic(String topic) {
+        return topic == null ? "" : topic.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeComplexity(String complexity) {
+        return complexity == null ? "" : complexity.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Queues the questions of a freshly generated assignment to be added to the bank. Returns at
+     * once, so it is safe on the HTTP client's completion thread; nothing it does can fail the caller.
+     */
+    public void queueGenerated(GenerateAssignmentRequest request, String content) {
+        try {
+            writes.execute(() -> {
+                try {
+                    addGenerated(request, content);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not add questions on {} to the question bank: {}", request.getTopic(), e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Question bank writes are backed up, skipping questions on {}", request.getTopic());
+        }
+    }
+
+    /**
+     * Adds the questions of a freshly generated assignment to the bank, tagged from the request,
+     * in one batch.
+     *
+     * @return how many were new
+     */
+    int addGenerated(GenerateAssignmentRequest request, String content) {
+        String topic = normalizeTopic(request.getTopic());
+        String complexity = normalizeComplexity(request.getComplexity());
+        Map<String, BankQuestion> fresh = new LinkedHashMap<>();
+        for (QuestionParser.ParsedQuestion question : QuestionParser.parse(content)) {
+            String hash = questionHash(request.getClassGrade(), topic, complexity, question.marks(), question.text());
+            if (!index.contains(hash)) {
+                fresh.putIfAbsent(hash, new BankQuestion(null, request.getClassGrade(), topic, complexity,
+                    question.marks(), question.text(), hash, LocalDateTime.now()));
+            }
+        }
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+        List<BankQuestion> stored;
+        try {
+            stored = repository.saveAll(fresh.values());
+        } catch (DataAccessException e) {
+            // Most likely another instance stored one of them first; the batch rolled back, so store
+            // the rest one by one
+            logger.debug("Question bank batch failed, storing one by one: {}", e.getMessage());
+            stored = new ArrayList<>();
+            for (BankQuestion question : fresh.values()) {
+                try {
+                    stored.add(repository.save(question));
+                } catch (DataAccessException duplicate) {
+                    logger.debug("Could not store question in the question bank: {}", duplicate.getMessage());
+                }
+            }
+        }
+        int added = 0;
+        for (BankQuestion question : stored) {
+            if (index.add(question.getClassGrade(), question.getTopic(), question.getComplexity(), question.getMarks(),
+                    question.getText(), question.getContentHash())) {
+                added++;
+            }
+        }
+        if (added > 0) {
+            logger.info("Added {} questions on {} (Class {}) to the question bank", added, topic, request.getClassGrade());
+        }
+        return added;
+    }
+
+    /**
+     * Questions picked from the bank for each section of a request, and the request for whatever
+     * is missing, or null when the bank had enough for every section.
+     */
+    public record Selection(GenerateAssignmentRequest request,
+                            Map<Integer, List<String>> questions,
+                            GenerateAssignmentRequest shortfall) {
+
+        public int fromBank() {
+            return questions.values().stream().mapToInt(List::size).sum();
+        }
+    }
+
+    /**
+     * An assembled assignment and how many of its questions came from each source.
+     */
+    public record Assembled(String content, int fromBank, int generated) {
+    }
+
+    public Selection select(GenerateAssignmentRequest request) {
+        String topic = normalizeTopic(request.getTopic());
+        String complexity = normalizeComplexity(request.getComplexity());
+        Map<Integer, List<String>> questions = new LinkedHashMap<>();
+        int[] missing = new int[MARKS.length];
+        boolean anyMissing = false;
+        for (int i = 0; i < MARKS.length; i++) {
+            int wanted = wanted(request, MARKS[i]);
+            List<String> picked = index.pick(request.getClassGrade(), topic, complexity, MARKS[i], wanted);
+            questions.put(MARKS[i], new ArrayList<>(picked));
+            missing[i] = wanted - picked.size();
+            anyMissing |= missing[i] > 0;
+        }
+        GenerateAssignmentRequest shortfall = !anyMissing ? null : new GenerateAssignmentRequest(request.getClassGrade(),
+            request.getTopic(), missing[0], missing[1], missing[2], missing[3], request.getComplexity(), null);
+        return new Selection(request, questions, shortfall);
+    }
+
+    /**
+     * The assembled assignment: the bank's questions plus those parsed from {@code generatedContent},
+     * the Groq answer to {@link Selection#shortfall()} (null when there was none). Generated questions
+     * that repeat one already picked are dropped. If nothing could
+     * be parsed from it, the generated text is appended as it is so no question is lost.
+     */
+    public Assembled assemble(Selection selection, String generatedContent) {
+        Map<Integer, List<String>> questions = new LinkedHashMap<>();
+        selection.questions().forEach((marks, picked) -> questions.put(marks, new ArrayList<>(picked)));
+        GenerateAssignmentRequest request = selection.request();
+        String topic = normalizeTopic(request.getTopic());
+        String complexity = normalizeComplexity(request.getComplexity());
+        Set<String> seen = new HashSet<>();
+        questions.forEach((marks, picked) -> picked.forEach(text ->
+            seen.add(questionHash(request.getClassGrade(), topic, complexity, marks, text))));
+
+        int generatedCount = 0;
+        List<QuestionParser.ParsedQuestion> parsed = QuestionParser.parse(generatedContent);
+        for (QuestionParser.ParsedQuestion question : parsed) {
+            List<String> section = questions.get(question.marks());
+            // Groq may repeat a question the bank already supplied; it would appear twice
+            if (section != null && section.size() < wanted(request, question.marks())
+                    && seen.add(questionHash(request.getClassGrade(), topic, complexity, question.marks(), question.text()))) {
+                section.add(question.text());
+                generatedCount++;
+            }
+        }
+
+        StringBuilder content = new StringBuilder();
+        int number = 1;
+        for (int i = 0; i < MARKS.length; i++) {
+            List<String> section = questions.get(MARKS[i]);
+            if (section.isEmpty()) {
+                continue;
+            }
+            if (content.length() > 0) {
+                content.append("\n\n");
+            }
+            content.append("SECTION ").append(SECTIONS[i]).append(": ").append(MARKS[i]).append("-Mark Questions\n");
+            for (String question : section) {
+                content.append('\n').append(number++).append(". ").append(question);
+            }
+        }
+        if (generatedContent != null && parsed.isEmpty()) {
+            content.append(content.length() > 0 ? "\n\n" : "").append(generatedContent.trim());
+        }
+
+        fromBank.increment(selection.fromBank());
+        generated.increment(generatedCount);
+        return new Assembled(content.toString(), selection.fromBank(), generatedCount);
+    }
+
+    private static int wanted(GenerateAssignmentRequest request, int marks) {
+        Integer count = switch (marks) {
+            case 1 -> request.getOneMarkQuestions();
+            case 2 -> request.getTwoMarkQuestions();
+            case 3 -> request.getThreeMarkQuestions();
+            case 5 -> request.getFiveMarkQuestions();
+            default -> 0;
+        };
+        return count == null ? 0 : count;
+    }
+
+    private static String questionHash(Integer classGrade, String topic, String complexity, int marks, String text) {
+        return sha256(classGrade + "|" + topic + "|" + complexity + "|" + marks
+            + "|" + text.toLowerCase(Locale.ROOT).replaceAll("\\s+", " "));
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
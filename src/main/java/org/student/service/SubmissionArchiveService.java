@@ -0,0 +1,283 @@
+package org.student.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.student.dto.SubmissionDTO;
+import org.student.entity.Assignment;
+import org.student.exception.ResourceNotFoundException;
+import org.student.repository.AssignmentRepository;
+import org.student.repository.AssignmentSubmissionRepository;
+import org.student.storage.StorageBackend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Builds the ZIP a teacher downloads to review an assignment offline: every submission
+ * attachment, named after the student, plus {@code manifest.csv} with status, marks and feedback.
+ *
+ * <p>The archive is written straight to the response. Attachments are downloaded a few at a time
+ * into temp files while earlier ones are being zipped, and entries are written in student order,
+ * so memory use does not grow with the size of the class.
+ */
+@Service
+public class SubmissionArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionArchiveService.class);
+
+    private static final String MANIFEST = "manifest.csv";
+    // Timestamps are stored in the server's zone; the manifest gives them in UTC
+    private static final DateTimeFormatter SUBMITTED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+        .withZone(ZoneOffset.UTC);
+
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentSubmissionRepository submissionRepository;
+    private final StorageBackend storageBackend;
+    private final int maxInFlight;
+    // Shared by every archive being built, so concurrent downloads stay bounded however many
+    // teachers download at once
+    private final ThreadPoolExecutor downloads;
+
+    public SubmissionArchiveService(AssignmentRepository assignmentRepository,
+                                    AssignmentSubmissionRepository submissionRepository,
+                                    StorageBackend storageBackend,
+                                    @Value("${archive.max-in-flight-downloads:4}") int maxInFlight,
+                                    @Value("${archive.download-threads:8}") int downloadThreads) {
+        this.assignmentRepository = assignmentRepository;
+        this.submissionRepository = submissionRepository;
+        this.storageBackend = storageBackend;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        int poolSize = Math.max(1, downloadThreads);
+        AtomicInteger threads = new AtomicInteger();
+        // Each archive queues at most maxInFlight downloads; past the queue's capacity the request
+        // thread downloads for itself rather than failing an archive already half sent
+        this.downloads = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(poolSize * 8), runnable -> {
+                Thread thread = new Thread(runnable, "archive-download-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        downloads.shutdownNow();
+    }
+
+    /**
+     * What goes into one archive, loaded up front so streaming needs no database access.
+     */
+    public record SubmissionArchive(String filename, Integer totalMarks, List<SubmissionDTO> submissions) {
+    }
+
+    public SubmissionArchive prepareArchive(Long assignmentId) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+            .orElseThrow(() -> new ResourceNotFoundException("Assignment not found"));
+
+        List<SubmissionDTO> submissions = new ArrayList<>(submissionRepository.findSubmissionDTOsByAssignmentId(assignmentId));
+        submissions.sort(Comparator.comparing((SubmissionDTO s) -> s.getStudentName() == null ? "" : s.getStudentName(),
+                String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(SubmissionDTO::getStudentId));
+
+        String filename = "assignment-" + assignmentId + slug(assignment.getTitle()) + "-submissions.zip";
+        return new SubmissionArchive(filename, assignment.getTotalMarks(), submissions);
+    }
+
+    public void writeArchive(SubmissionArchive archive, OutputStream out) throws IOException {
+        // Attachments this backend can read; links to anywhere else are listed in the manifest only
+        List<SubmissionDTO> stored = new ArrayList<>();
+        Map<Long, String> attachmentColumn = new HashMap<>();
+        for (SubmissionDTO submission : archive.submissions()) {
+            String url = submission.getAttachmentUrl();
+            if (url == null || url.isBlank()) {
+                attachmentColumn.put(submission.getId(), "");
+            } else if (storageBackend.objectKeyOf(url) == null) {
+                attachmentColumn.put(submission.getId(), url);
+            } else {
+                stored.add(submission);
+            }
+        }
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDFs and .docx files are already compressed
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        // The window bounds how far this archive's downloads run ahead of the zip
+        List<Future<Path>> started = new ArrayList<>(stored.size());
+        Set<Path> files = ConcurrentHashMap.newKeySet();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        int written = 0;
+        try {
+            for (; written < stored.size(); written++) {
+                while (started.size() < stored.size() && started.size() < written + maxInFlight) {
+                    String objectKey = storageBackend.objectKeyOf(stored.get(started.size()).getAttachmentUrl());
+                    started.add(downloads.submit(() -> download(objectKey, files, abandoned)));
+                }
+                SubmissionDTO submission = stored.get(written);
+                attachmentColumn.put(submission.getId(), writeEntry(zip, submission, started.get(written), files));
+            }
+        } finally {
+            // Normally nothing is left; if the client went away, stop the downloads not yet
+            // finished and remove the files nobody zipped. A download still copying sees the flag
+            // and removes its own file.
+            abandoned.set(true);
+            for (int i = written; i < started.size(); i++) {
+                started.get(i).cancel(true);
+            }
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        zip.putNextEntry(new ZipEntry(MANIFEST));
+        writeManifest(zip, archive, attachmentColumn);
+        zip.closeEntry();
+        // finish() rather than close(): the servlet container owns the response stream
+        zip.finish();
+        zip.flush();
+    }
+
+    private Path download(String objectKey, Set<Path> files, AtomicBoolean abandoned) throws IOException {
+        Path file = Files.createTempFile("submission-", ".part");
+        files.add(file);
+        try (InputStream content = storageBackend.open(objectKey)) {
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            discard(file, files);
+            throw e;
+        }
+        if (abandoned.get()) {
+            discard(file, files);
+            throw new InterruptedIOException("Archive abandoned");
+        }
+        return file;
+    }
+
+    private static void discard(Path file, Set<Path> files) throws IOException {
+        Files.deleteIfExists(file);
+        files.remove(file);
+    }
+
+    // Returns what the manifest records for the attachment
+    private String writeEntry(ZipOutputStream zip, SubmissionDTO submission, Future<Path> download, Set<Path> files)
+            throws IOException {
+        Path file;
+        try {
+            file = download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Archive interrupted");
+        } catch (ExecutionException e) {
+            logger.warn("Leaving submission {} out of the archive: {}", submission.getId(), e.getCause().getMessage());
+            return "Not included (download failed): " + submission.getAttachmentUrl();
+        }
+
+        try {
+            String name = entryName(submission);
+            zip.putNextEntry(new ZipEntry(name));
+            Files.copy(file, zip);
+            zip.closeEntry();
+            return name;
+        } finally {
+            discard(file, files);
+        }
+    }
+
+    private static void writeManifest(OutputStream zip, SubmissionArchive archive, Map<Long, String> attachmentColumn)
+            throws IOException {
+        // Not closed: that would close the zip
+        Writer csv = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        // Byte order mark so Excel reads the file as UTF-8
+        csv.write('\uFEFF');
+        csv.write("Student,Email,Status,Submitted At (UTC),Late,Marks,Total Marks,Feedback,Submission Text,Attachment\r\n");
+        for (SubmissionDTO s : archive.submissions()) {
+            csv.write(String.join(",",
+                csvCell(s.getStudentName()),
+                csvCell(s.getStudentEmail()),
+                csvCell(s.getStatus() != null ? s.getStatus().name() : null),
+                csvCell(s.getSubmittedAt() != null ? SUBMITTED_AT.format(s.getSubmittedAt().atZone(ZoneId.systemDefault())) : null),
+                csvCell(Boolean.TRUE.equals(s.getIsLate()) ? "Yes" : "No"),
+                csvCell(s.getMarksObtained() != null ? s.getMarksObtained().toString() : null),
+                csvCell(archive.totalMarks() != null ? archive.totalMarks().toString() : null),
+                csvCell(s.getFeedback()),
+                csvCell(s.getSubmissionText()),
+                csvCell(attachmentColumn.get(s.getId()))));
+            csv.write("\r\n");
+        }
+        csv.flush();
+    }
+
+    private static String csvCell(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        // Spreadsheets run cells that start like a formula
+        if ("=+-@".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+    // e.g. "Asha_Verma_42.pdf"; the student id keeps names unique
+    private String entryName(SubmissionDTO submission) {
+        String name = submission.getStudentName() == null ? "" : submission.getStudentName()
+            .replaceAll("[^\\p{L}\\p{N}]+", "_")
+            .replaceAll("^_+|_+$", "");
+        String objectKey = storageBackend.objectKeyOf(submission.getAttachmentUrl());
+        String lastSegment = objectKey.substring(objectKey.lastIndexOf('/') + 1);
+        String extension = lastSegment.contains(".")
+            ? lastSegment.substring(lastSegment.lastIndexOf('.')).toLowerCase(Locale.ROOT)
+            : "";
+        if (!extension.matches("\\.[a-z0-9]{1,10}")) {
+            extension = "";
+        }
+        return (name.isEmpty() ? "student" : name) + "_" + submission.getStudentId() + extension;
+    }
+
+    private static String slug(String title) {
+        if (title == null) {
+            return "";
+        }
+        String slug = title.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("^-+|-+$", "");
+        if (slug.length() > 50) {
+            slug = slug.substring(0, 50).replaceAll("-+$", "");
+        }
+        return slug.isEmpty() ? "" : "-" + slug;
+    }
+}
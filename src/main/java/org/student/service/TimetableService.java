@@ -1,10 +1,13 @@
 package org.student.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.student.cache.ClassScope;
 import org.student.dto.CreateTimetableRequest;
 import org.student.dto.TimetableDTO;
 import org.student.entity.Timetable;
+import org.student.event.ClassDataChangedEvent;
 import org.student.exception.ResourceNotFoundException;
 import org.student.repository.TimetableRepository;
 
@@ -17,10 +20,12 @@ import java.util.stream.Collectors;
 public class TimetableService {
     
     private final TimetableRepository timetableRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
     
-    public TimetableService(TimetableRepository timetableRepository) {
+    public TimetableService(TimetableRepository timetableRepository, ApplicationEventPublisher eventPublisher) {
         this.timetableRepository = timetableRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional
@@ -33,6 +38,7 @@ public class TimetableService {
         timetable.setNotes(request.getNotes());
         
         Timetable saved = timetableRepository.save(timetable);
+        publishChanged(saved.getClassGrade());
         return mapToDTO(saved);
     }
     
@@ -41,6 +47,8 @@ public class TimetableService {
         Timetable timetable = timetableRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Timetable entry not found"));
         
+        // The entry may move to another class; both lists change
+        Integer previousClassGrade = timetable.getClassGrade();
         timetable.setClassGrade(request.getClassGrade());
         timetable.setDayOfWeek(Timetable.DayOfWeek.valueOf(request.getDayOfWeek().toUpperCase()));
         timetable.setStartTime(LocalTime.parse(request.getStartTime(), timeFormatter));
@@ -48,15 +56,19 @@ public class TimetableService {
         timetable.setNotes(request.getNotes());
         
         Timetable updated = timetableRepository.save(timetable);
+        publishChanged(previousClassGrade);
+        if (!previousClassGrade.equals(updated.getClassGrade())) {
+            publishChanged(updated.getClassGrade());
+        }
         return mapToDTO(updated);
     }
     
     @Transactional
     public void deleteTimetable(Long id) {
-        if (!timetableRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Timetable entry not found");
-        }
-        timetableRepository.deleteById(id);
+        Timetable timetable = timetableRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Timetable entry not found"));
+        timetableRepository.delete(timetable);
+        publishChanged(timetable.getClassGrade());
     }
     
     public List<TimetableDTO> getTimetableByClass(Integer classGrade) {
@@ -73,6 +85,10 @@ public class TimetableService {
             .collect(Collectors.toList());
     }
     
+    private void publishChanged(Integer classGrade) {
+        eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.TIMETABLE, classGrade));
+    }
+    
     private TimetableDTO mapToDTO(Timetable timetable) {
         return new TimetableDTO(
             timetable.getId(),
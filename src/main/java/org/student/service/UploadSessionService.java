@@ -0,0 +1,195 @@
+package org.student.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.student.dto.UploadSessionDTO;
+import org.student.entity.UploadSession;
+import org.student.exception.ResourceNotFoundException;
+import org.student.exception.UploadOffsetConflictException;
+import org.student.repository.UploadSessionRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable uploads: a session is created with the file's size, chunks are written into a temp
+ * file at the offsets they are sent for, and the finished file is handed to
+ * {@link FileStorageService} like a normal upload. A dropped connection keeps every byte that
+ * arrived, so the client asks for the offset and carries on from there instead of starting over.
+ *
+ * <p>Nothing here is transactional; the only database writes are single statements, so no
+ * connection is held while a chunk is being received.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadSessionService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+
+    private final FileStorageService fileStorageService;
+    private final UploadSessionRepository sessionRepository;
+    private final Path directory;
+    private final Duration sessionExpiry;
+
+    public UploadSessionService(FileStorageService fileStorageService,
+                                UploadSessionRepository sessionRepository,
+                                @Value("${uploads.dir:${java.io.tmpdir}/classroom-uploads}") String directory,
+                                @Value("${uploads.session-expiry-hours:24}") long sessionExpiryHours) throws IOException {
+        this.fileStorageService = fileStorageService;
+        this.sessionRepository = sessionRepository;
+        this.directory = Files.createDirectories(Paths.get(directory).toAbsolutePath().normalize());
+        this.sessionExpiry = Duration.ofHours(sessionExpiryHours);
+    }
+
+    public UploadSessionDTO createSession(Long userId, String filename, String contentType, long size) throws IOException {
+        // Refused up front rather than after the whole file has been sent
+        fileStorageService.validateUpload(size, contentType);
+
+        String id = UUID.randomUUID().toString();
+        Files.createFile(partFile(id));
+        LocalDateTime now = LocalDateTime.now();
+        UploadSession session = sessionRepository.save(
+            new UploadSession(id, userId, filename, contentType, size, 0L, now, now));
+        return toDTO(session);
+    }
+
+    public UploadSessionDTO getSession(Long userId, String id) {
+        return toDTO(findSession(userId, id));
+    }
+
+    /**
+     * Writes one chunk starting at {@code offset}, which has to be the session's current offset,
+     * and returns the session at its new offset. Whatever part of the chunk arrived before the
+     * connection dropped is kept.
+     */
+    public UploadSessionDTO appendChunk(Long userId, String id, long offset, InputStream body) throws IOException {
+        UploadSession session = findSession(userId, id);
+        if (offset != session.getReceivedBytes()) {
+            throw new UploadOffsetConflictException(session.getReceivedBytes());
+        }
+
+        long position = offset;
+        boolean advanced = true;
+        try (FileChannel channel = FileChannel.open(partFile(id), StandardOpenOption.WRITE)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                if (position + read > session.getTotalSize()) {
+                    throw new IllegalArgumentException("Chunk runs past the declared file size of "
+                        + session.getTotalSize() + " bytes");
+                }
+                // Positional writes: the channel's own position is never used, so a chunk always
+                // lands at the offset it was accepted for
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    position += channel.write(chunk, position);
+                }
+            }
+        } finally {
+            if (position > offset) {
+                advanced = sessionRepository.advanceOffset(id, offset, position, LocalDateTime.now()) == 1;
+            }
+        }
+        if (!advanced) {
+            // A concurrent request for the same offset won; the client re-reads the offset
+            throw new UploadOffsetConflictException(findSession(userId, id).getReceivedBytes());
+        }
+
+        session.setReceivedBytes(position);
+        return toDTO(session);
+    }
+
+    /**
+     * Stores the assembled file and returns its URL; the session and temp file are removed.
+     */
+    public String complete(Long userId, String id) throws IOException {
+        UploadSession session = findSession(userId, id);
+        if (!session.getReceivedBytes().equals(session.getTotalSize())) {
+            throw new IllegalStateException("Upload incomplete: " + session.getReceivedBytes()
+                + " of " + session.getTotalSize() + " bytes received");
+        }
+
+        String url = fileStorageService.uploadFile(partFile(id), session.getFilename(), session.getContentType());
+        discard(id);
+        return url;
+    }
+
+    public void cancel(Long userId, String id) throws IOException {
+        findSession(userId, id);
+        discard(id);
+    }
+
+    /**
+     * Removes sessions that have not received a chunk within the expiry, and temp files left
+     * without a session (a restart between writing a file and saving its row).
+     */
+    @Scheduled(fixedDelay = 60, timeUnit = TimeUnit.MINUTES)
+    public int purgeAbandoned() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(sessionExpiry);
+        int purged = 0;
+        for (UploadSession session : sessionRepository.findByUpdatedAtBefore(cutoff)) {
+            try {
+                discard(session.getId());
+                purged++;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to purge upload session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+
+        Instant fileCutoff = Instant.now().minus(sessionExpiry);
+        try (DirectoryStream<Path> parts = Files.newDirectoryStream(directory, "*" + PART_SUFFIX)) {
+            for (Path part : parts) {
+                String id = part.getFileName().toString().replace(PART_SUFFIX, "");
+                if (Files.getLastModifiedTime(part).toInstant().isBefore(fileCutoff)
+                        && !sessionRepository.existsById(id)) {
+                    Files.deleteIfExists(part);
+                    purged++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to sweep upload directory {}: {}", directory, e.getMessage());
+        }
+
+        if (purged > 0) {
+            logger.info("Purged {} abandoned uploads", purged);
+        }
+        return purged;
+    }
+
+    private UploadSession findSession(Long userId, String id) {
+        // Someone else's session is reported as missing rather than forbidden
+        return sessionRepository.findByIdAndUserId(id, userId)
+            .orElseThrow(() -> new ResourceNotFoundException("Upload not found"));
+    }
+
+    private void discard(String id) throws IOException {
+        sessionRepository.deleteById(id);
+        Files.deleteIfExists(partFile(id));
+    }
+
+    private Path partFile(String id) {
+        return directory.resolve(id + PART_SUFFIX);
+    }
+
+    private static UploadSessionDTO toDTO(UploadSession session) {
+        return new UploadSessionDTO(session.getId(), session.getFilename(),
+            session.getTotalSize(), session.getReceivedBytes());
+    }
+}
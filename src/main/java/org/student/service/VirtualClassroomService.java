@@ -1,10 +1,13 @@
 package org.student.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.student.cache.ClassScope;
 import org.student.dto.VirtualClassroomDTO;
 import org.student.entity.ClassroomSession;
 import org.student.entity.VirtualClassroom;
+import org.student.event.ClassDataChangedEvent;
 import org.student.exception.ResourceNotFoundException;
 import org.student.repository.ClassroomSessionRepository;
 import org.student.repository.VirtualClassroomRepository;
@@ -18,11 +21,14 @@ public class VirtualClassroomService {
     
     private final VirtualClassroomRepository virtualClassroomRepository;
     private final ClassroomSessionRepository classroomSessionRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     public VirtualClassroomService(VirtualClassroomRepository virtualClassroomRepository,
-                                  ClassroomSessionRepository classroomSessionRepository) {
+                                  ClassroomSessionRepository classroomSessionRepository,
+                                  ApplicationEventPublisher eventPublisher) {
         this.virtualClassroomRepository = virtualClassroomRepository;
         this.classroomSessionRepository = classroomSessionRepository;
+        this.eventPublisher = eventPublisher;
     }
     
     @Transactional
@@ -35,6 +41,7 @@ public class VirtualClassroomService {
                 classroom.setMeetingLink(null); // Teacher will add link later
                 classroom.setIsActive(true);
                 virtualClassroomRepository.save(classroom);
+                eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.VIRTUAL_CLASSROOM, grade));
             }
             
             // Initialize session tracking
@@ -84,6 +91,7 @@ public class VirtualClassroomService {
         
         classroom.setMeetingLink(meetingLink);
         virtualClassroomRepository.save(classroom);
+        eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.VIRTUAL_CLASSROOM, classGrade));
     }
     
     @Transactional
@@ -93,6 +101,7 @@ public class VirtualClassroomService {
         
         classroom.setIsActive(isActive);
         virtualClassroomRepository.save(classroom);
+        eventPublisher.publishEvent(new ClassDataChangedEvent(ClassScope.VIRTUAL_CLASSROOM, classGrade));
     }
     
     @Transactional
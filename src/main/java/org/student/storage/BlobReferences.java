@@ -0,0 +1,33 @@
+package org.student.storage;
+
+import org.springframework.stereotype.Component;
+import org.student.repository.StoredBlobRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keeps {@code StoredBlob.refCount} in step with the rows that hold a file URL. Called inside the
+ * transaction that saves or deletes the row; URLs that are not content-addressed blobs (older
+ * uploads, external links) match nothing and are ignored.
+ */
+@Component
+public class BlobReferences {
+    
+    private final StoredBlobRepository blobRepository;
+    
+    public BlobReferences(StoredBlobRepository blobRepository) {
+        this.blobRepository = blobRepository;
+    }
+    
+    public void retain(String url) {
+        if (url != null && !url.isBlank()) {
+            blobRepository.incrementRefCount(url, LocalDateTime.now());
+        }
+    }
+    
+    public void release(String url) {
+        if (url != null && !url.isBlank()) {
+            blobRepository.decrementRefCount(url, LocalDateTime.now());
+        }
+    }
+}
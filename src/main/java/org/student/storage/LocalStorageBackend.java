@@ -0,0 +1,135 @@
+package org.student.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Files on the local disk under {@code storage.local.root}, served by {@code FileController}
+ * at {@code storage.local.public-url}. For self-hosted deployments and offline tests.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+    
+    private final Path root;
+    private final String publicUrl;
+    
+    public LocalStorageBackend(@Value("${storage.local.root:./storage}") Path root,
+                               @Value("${storage.local.public-url:http://localhost:8080/files}") String publicUrl) throws IOException {
+        this.root = Files.createDirectories(root).toRealPath();
+        this.publicUrl = publicUrl.endsWith("/") ? publicUrl.substring(0, publicUrl.length() - 1) : publicUrl;
+    }
+    
+    @Override
+    public String store(String objectKey, InputStream content, long size, String contentType) throws IOException {
+        Path target = resolve(objectKey);
+        if (target == null) {
+            throw new IllegalArgumentException("Invalid object key");
+        }
+        Files.createDirectories(target.getParent());
+        
+        // Written to a temp file in the same directory and moved into place, so a download never
+        // sees a partial file
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(content)) {
+                long written = 0;
+                while (written < size) {
+                    long transferred = channel.transferFrom(source, written, size - written);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    written += transferred;
+                }
+                if (written != size) {
+                    throw new IOException("Upload ended after " + written + " of " + size + " bytes");
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return publicUrl + "/" + objectKey;
+    }
+    
+    @Override
+    public InputStream open(String objectKey) throws IOException {
+        Path file = locate(objectKey);
+        if (file == null) {
+            throw new NoSuchFileException(objectKey);
+        }
+        return Files.newInputStream(file);
+    }
+    
+    @Override
+    public void delete(String objectKey) throws IOException {
+        Path file = resolve(objectKey);
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    @Override
+    public List<StoredObject> list(String folder, int offset, int limit) throws IOException {
+        Path directory = folder.isEmpty() ? root : resolve(folder);
+        if (directory == null || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            List<Path> page = entries
+                .filter(path -> !path.getFileName().toString().startsWith(".")) // uploads in progress
+                .sorted()
+                .skip(offset)
+                .limit(limit)
+                .toList();
+            List<StoredObject> objects = new ArrayList<>(page.size());
+            for (Path path : page) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                String key = root.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+                objects.add(new StoredObject(key, attributes.isDirectory(), attributes.size(),
+                    attributes.lastModifiedTime().toInstant()));
+            }
+            return objects;
+        }
+    }
+    
+    @Override
+    public String objectKeyOf(String url) {
+        String prefix = publicUrl + "/";
+        return url.startsWith(prefix) ? url.substring(prefix.length()) : null;
+    }
+    
+    /**
+     * The stored file for a key, or {@code null} if the key is invalid or nothing is stored under it.
+     */
+    public Path locate(String objectKey) {
+        Path file = resolve(objectKey);
+        return file != null && Files.isRegularFile(file) ? file : null;
+    }
+    
+    // Keys never leave the storage root, whatever ".." or absolute segments they contain
+    private Path resolve(String objectKey) {
+        if (objectKey == null || objectKey.isBlank()) {
+            return null;
+        }
+        Path file = root.resolve(objectKey).normalize();
+        return file.startsWith(root) && !file.equals(root) ? file : null;
+    }
+}
@@ -0,0 +1,223 @@
+package org.student.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.student.dto.FileReference;
+import org.student.entity.StoredBlob;
+import org.student.repository.AssignmentRepository;
+import org.student.repository.AssignmentSubmissionRepository;
+import org.student.repository.LearningMaterialRepository;
+import org.student.repository.StoredBlobRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Deletes stored files that no assignment, submission or learning material points at any more.
+ * Deleting rows never removes their files, so this is what keeps storage from growing without
+ * bound.
+ *
+ * <p>What may be deleted comes from {@code stored_blobs}: blobs with {@code ref_count} 0 that
+ * nothing has uploaded, referenced or released within the grace period. The URL columns are
+ * scanned only as a cross-check; a candidate whose URL or object key still appears in one of
+ * them is kept and logged, since its count is wrong. Files with no {@code stored_blobs} row,
+ * such as uploads from before content addressing, are never deleted.
+ *
+ * <p>Candidates are queued and drained separately at a fixed number of deletes per second. The
+ * row is deleted first, under the same conditions, so a blob referenced or uploaded again after
+ * the scan is skipped.
+ */
+@Component
+public class OrphanedBlobCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrphanedBlobCollector.class);
+
+    private final StorageBackend storageBackend;
+    private final StoredBlobRepository blobRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentSubmissionRepository submissionRepository;
+    private final LearningMaterialRepository materialRepository;
+
+    private final boolean enabled;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final int deletesPerSecond;
+
+    private final BlockingQueue<StoredBlob> pendingDeletes;
+    // sha256 of each queued blob
+    private final Set<String> queuedBlobs = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scanning = new AtomicBoolean();
+
+    private final Counter reclaimedBytes;
+    private final Counter deletedObjects;
+
+    public OrphanedBlobCollector(StorageBackend storageBackend,
+                                 StoredBlobRepository blobRepository,
+                                 AssignmentRepository assignmentRepository,
+                                 AssignmentSubmissionRepository submissionRepository,
+                                 LearningMaterialRepository materialRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${storage.gc.enabled:true}") boolean enabled,
+                                 @Value("${storage.gc.grace-period-hours:24}") long gracePeriodHours,
+                                 @Value("${storage.gc.batch-size:500}") int batchSize,
+                                 @Value("${storage.gc.deletes-per-second:5}") int deletesPerSecond,
+                                 @Value("${storage.gc.max-queued:10000}") int maxQueued) {
+        this.storageBackend = storageBackend;
+        this.blobRepository = blobRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.submissionRepository = submissionRepository;
+        this.materialRepository = materialRepository;
+        this.enabled = enabled;
+        this.gracePeriod = Duration.ofHours(gracePeriodHours);
+        this.batchSize = batchSize;
+        this.deletesPerSecond = deletesPerSecond;
+        this.pendingDeletes = new LinkedBlockingQueue<>(maxQueued);
+
+        this.reclaimedBytes = Counter.builder("storage.gc.reclaimed")
+            .baseUnit("bytes")
+            .description("Bytes freed by deleting unreferenced stored files")
+            .register(meterRegistry);
+        this.deletedObjects = Counter.builder("storage.gc.deleted")
+            .description("Unreferenced stored files deleted")
+            .register(meterRegistry);
+        meterRegistry.gauge("storage.gc.pending", pendingDeletes, BlockingQueue::size);
+    }
+
+    /**
+     * Finds unreferenced blobs and queues them for deletion; returns how many were queued.
+     */
+    @Scheduled(cron = "${storage.gc.cron:0 30 3 * * *}")
+    public int reconcile() {
+        if (!enabled || !scanning.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            Set<String> referenced = referencedUrlsAndKeys();
+            LocalDateTime cutoff = cutoff();
+            int queued = 0;
+            int candidates = 0;
+            String afterSha256 = "";
+            while (true) {
+                List<StoredBlob> page = blobRepository.findUnreferencedBefore(cutoff, afterSha256, Limit.of(batchSize));
+                for (StoredBlob blob : page) {
+                    candidates++;
+                    if (referenced.contains(blob.getUrl()) || referenced.contains(blob.getObjectKey())) {
+                        logger.warn("Blob {} has ref_count 0 but {} is still referenced; keeping it",
+                            blob.getSha256(), blob.getUrl());
+                    } else if (enqueue(blob)) {
+                        queued++;
+                    }
+                }
+                if (page.size() < batchSize) {
+                    break;
+                }
+                afterSha256 = page.get(page.size() - 1).getSha256();
+            }
+            logger.info("Storage reconciliation found {} unreferenced blobs, queued {} for deletion",
+                candidates, queued);
+            return queued;
+        } catch (RuntimeException e) {
+            logger.error("Storage reconciliation failed", e);
+            return 0;
+        } finally {
+            scanning.set(false);
+        }
+    }
+
+    /**
+     * Deletes up to {@code storage.gc.deletes-per-second} queued files; runs once a second.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void drainDeletes() {
+        for (int i = 0; i < deletesPerSecond; i++) {
+            StoredBlob blob = pendingDeletes.poll();
+            if (blob == null) {
+                return;
+            }
+            try {
+                deleteOrphan(blob);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to delete orphaned file {}: {}", blob.getObjectKey(), e.getMessage());
+            } finally {
+                queuedBlobs.remove(blob.getSha256());
+            }
+        }
+    }
+
+    public int getPendingDeletes() {
+        return pendingDeletes.size();
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.ofInstant(Instant.now().minus(gracePeriod), ZoneId.systemDefault());
+    }
+
+    private void deleteOrphan(StoredBlob blob) throws IOException {
+        // Drop the blob row first so a dedup hit can no longer hand out the URL; the conditional
+        // delete fails if the blob is still counted as referenced, or was uploaded again,
+        // referenced or released since the grace period began
+        if (blobRepository.deleteIfUnreferencedSince(blob.getSha256(), cutoff()) == 0) {
+            return;
+        }
+        storageBackend.delete(blob.getObjectKey());
+        reclaimedBytes.increment(blob.getSizeBytes());
+        deletedObjects.increment();
+    }
+
+    private boolean enqueue(StoredBlob blob) {
+        if (!queuedBlobs.add(blob.getSha256())) {
+            return false;
+        }
+        if (!pendingDeletes.offer(blob)) {
+            // Queue full; the next scan finds it again
+            queuedBlobs.remove(blob.getSha256());
+            return false;
+        }
+        return true;
+    }
+
+    // Every URL in the columns that hold one, and the object key of each this backend can parse,
+    // so a candidate is kept whichever form matches
+    private Set<String> referencedUrlsAndKeys() {
+        Set<String> referenced = new HashSet<>();
+        collectReferences(assignmentRepository::findFileReferencesAfter, referenced);
+        collectReferences(submissionRepository::findFileReferencesAfter, referenced);
+        collectReferences(materialRepository::findFileReferencesAfter, referenced);
+        return referenced;
+    }
+
+    private void collectReferences(BiFunction<Long, Limit, List<FileReference>> pageLoader, Set<String> referenced) {
+        long afterId = 0L;
+        while (true) {
+            List<FileReference> page = pageLoader.apply(afterId, Limit.of(batchSize));
+            for (FileReference reference : page) {
+                referenced.add(reference.getUrl());
+                String key = storageBackend.objectKeyOf(reference.getUrl());
+                if (key != null) {
+                    referenced.add(key);
+                }
+            }
+            if (page.size() < batchSize) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+}
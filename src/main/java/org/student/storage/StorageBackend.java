@@ -0,0 +1,38 @@
+package org.student.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Where uploaded files live. Object keys are relative paths such as
+ * {@code materials/20240501_101530_<uuid>.pdf}; the returned URL is what gets saved on
+ * assignments, submissions and learning materials. Selected by {@code storage.backend}.
+ */
+public interface StorageBackend {
+
+    /**
+     * Stores exactly {@code size} bytes read from {@code content} under {@code objectKey}
+     * and returns the public URL of the stored object.
+     */
+    String store(String objectKey, InputStream content, long size, String contentType) throws IOException;
+
+    /**
+     * Opens a stored object for reading; the caller closes the stream.
+     */
+    InputStream open(String objectKey) throws IOException;
+
+    void delete(String objectKey) throws IOException;
+
+    /**
+     * One page of the entries directly inside {@code folder} ({@code ""} for the root), files and
+     * sub-folders alike, in name order.
+     */
+    List<StoredObject> list(String folder, int offset, int limit) throws IOException;
+
+    /**
+     * The object key behind a URL returned by {@link #store}, or {@code null} if the URL
+     * does not point into this backend.
+     */
+    String objectKeyOf(String url);
+}
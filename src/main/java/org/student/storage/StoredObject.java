@@ -0,0 +1,16 @@
+package org.student.storage;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * An entry in a storage listing: a file, or a folder that can be listed in turn.
+ */
+@Value
+public class StoredObject {
+    String key;
+    boolean folder;
+    long size;
+    Instant lastModified;
+}
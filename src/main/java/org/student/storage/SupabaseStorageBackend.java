@@ -0,0 +1,173 @@
+package org.student.storage;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.student.http.OutboundHttpClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Supabase Storage over its REST API, in the public {@code assignments} bucket.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "supabase", matchIfMissing = true)
+public class SupabaseStorageBackend implements StorageBackend {
+    
+    private static final String BUCKET_NAME = "assignments";
+    
+    private final String supabaseUrl;
+    private final String supabaseKey;
+    private final OutboundHttpClient.Destination supabase;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    public SupabaseStorageBackend(@Value("${supabase.url}") String supabaseUrl,
+                                  @Value("${supabase.key}") String supabaseKey,
+                                  OutboundHttpClient outboundHttpClient) {
+        this.supabaseUrl = supabaseUrl;
+        this.supabaseKey = supabaseKey;
+        this.supabase = outboundHttpClient.destination("supabase");
+    }
+    
+    @Override
+    public String store(String objectKey, InputStream content, long size, String contentType) throws IOException {
+        try {
+            String uploadUrl = supabaseUrl + "/storage/v1/object/" + BUCKET_NAME + "/" + objectKey;
+            
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(uploadUrl))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .header("Content-Type", contentType)
+                // Content-addressed keys: a concurrent upload of the same file may already have stored it
+                .header("x-upsert", "true")
+                .POST(streamingBody(content, size))
+                .build();
+            
+            // Not retried: the body is streamed from the caller's input and can only be sent once
+            HttpResponse<String> response = supabase.send(request, HttpResponse.BodyHandlers.ofString());
+            
+            if (response.statusCode() != 200 && response.statusCode() != 201) {
+                throw new IOException("Failed to upload file to Supabase: " + response.body());
+            }
+            
+            // Return public URL
+            return supabaseUrl + "/storage/v1/object/public/" + BUCKET_NAME + "/" + objectKey;
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("File upload interrupted", e);
+        }
+    }
+    
+    @Override
+    public InputStream open(String objectKey) throws IOException {
+        try {
+            String downloadUrl = supabaseUrl + "/storage/v1/object/" + BUCKET_NAME + "/" + objectKey;
+            
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(downloadUrl))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .GET()
+                .build();
+            
+            // The body is read from the connection as the caller consumes it, and the call keeps its
+            // supabase slot until the caller closes it
+            HttpResponse<InputStream> response = supabase.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("Failed to download '" + objectKey + "' from Supabase: HTTP " + response.statusCode());
+            }
+            return response.body();
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("File download interrupted", e);
+        }
+    }
+    
+    @Override
+    public void delete(String objectKey) throws IOException {
+        try {
+            String deleteUrl = supabaseUrl + "/storage/v1/object/" + BUCKET_NAME + "/" + objectKey;
+            
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(deleteUrl))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .DELETE()
+                .build();
+            
+            supabase.send(request, HttpResponse.BodyHandlers.ofString());
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("File deletion interrupted", e);
+        }
+    }
+    
+    @Override
+    public List<StoredObject> list(String folder, int offset, int limit) throws IOException {
+        try {
+            String listUrl = supabaseUrl + "/storage/v1/object/list/" + BUCKET_NAME;
+            Map<String, Object> body = Map.of(
+                "prefix", folder,
+                "limit", limit,
+                "offset", offset,
+                "sortBy", Map.of("column", "name", "order", "asc"));
+            
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(listUrl))
+                .header("Authorization", "Bearer " + supabaseKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+            
+            // A POST, but only reads, so it is safe to retry
+            HttpResponse<byte[]> response = supabase.send(request, HttpResponse.BodyHandlers.ofByteArray(), true);
+            if (response.statusCode() != 200) {
+                throw new IOException("Failed to list Supabase storage folder '" + folder + "': HTTP " + response.statusCode());
+            }
+            
+            List<StoredObject> objects = new ArrayList<>();
+            for (JsonNode entry : objectMapper.readTree(response.body())) {
+                String name = entry.path("name").asText();
+                String key = folder.isEmpty() ? name : folder + "/" + name;
+                // Folders come back without an id or metadata
+                boolean isFolder = entry.path("id").isMissingNode() || entry.path("id").isNull();
+                String updatedAt = entry.path("updated_at").asText(entry.path("created_at").asText(null));
+                objects.add(new StoredObject(key, isFolder,
+                    entry.path("metadata").path("size").asLong(0),
+                    updatedAt != null ? OffsetDateTime.parse(updatedAt).toInstant() : Instant.EPOCH));
+            }
+            return objects;
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Storage listing interrupted", e);
+        }
+    }
+    
+    @Override
+    public String objectKeyOf(String url) {
+        String prefix = "/storage/v1/object/public/" + BUCKET_NAME + "/";
+        int index = url.indexOf(prefix);
+        return index == -1 ? null : url.substring(index + prefix.length());
+    }
+    
+    // Streams the upload instead of copying it into a byte[]. ofInputStream reads in fixed-size
+    // chunks (jdk.httpclient.bufsize, 16KB) only as fast as the connection drains, and the
+    // explicit length sends Content-Length rather than chunked encoding.
+    private static HttpRequest.BodyPublisher streamingBody(InputStream content, long size) {
+        return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> content), size);
+    }
+}
@@ -0,0 +1,190 @@
+package org.student.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.student.cache.ResponseStamp;
+import org.student.entity.User;
+import org.student.security.CurrentUserArgumentResolver;
+import org.student.security.UserPrincipal;
+import org.student.service.AIAssignmentGeneratorService;
+import org.student.service.AssignmentService;
+import org.student.service.FileStorageService;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Each endpoint must take the caller's id (and a student's class) from the authenticated
+ * principal and hand exactly those to the service.
+ */
+@ExtendWith(MockitoExtension.class)
+class AssignmentControllerTest {
+
+    @Mock
+    private AssignmentService assignmentService;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private AIAssignmentGeneratorService aiAssignmentGeneratorService;
+
+    @InjectMocks
+    private AssignmentController assignmentController;
+
+    private static final ResponseStamp STAMP =
+        new ResponseStamp("assignments-8-3-s42-1-o0", Instant.parse("2024-05-01T10:00:00Z"));
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(assignmentController)
+            .setCustomArgumentResolvers(new CurrentUserArgumentResolver())
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void authenticate(Long id, User.Role role, Integer classGrade) {
+        UserPrincipal principal = new UserPrincipal(id, "user" + id + "@test.com", role,
+            User.RegistrationStatus.APPROVED, classGrade);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + role.name()))));
+    }
+
+    @Test
+    void getAssignmentsByClass_Student_PassesPrincipalIdAndClass() throws Exception {
+        authenticate(42L, User.Role.STUDENT, 8);
+        when(assignmentService.getAssignmentsStamp(8, 42L)).thenReturn(STAMP);
+        when(assignmentService.getAssignmentsByClassJson(8, 42L)).thenReturn("[]".getBytes());
+
+        mockMvc.perform(get("/api/assignments/class/8")).andExpect(status().isOk());
+
+        verify(assignmentService).getAssignmentsStamp(8, 42L);
+        verify(assignmentService).getAssignmentsByClassJson(8, 42L);
+        verifyNoMoreInteractions(assignmentService);
+    }
+
+    @Test
+    void getAssignmentsByClass_Teacher_PassesNoStudentId() throws Exception {
+        authenticate(1L, User.Role.TEACHER, null);
+        when(assignmentService.getAssignmentsStamp(8, null)).thenReturn(STAMP);
+        when(assignmentService.getAssignmentsByClassJson(8, null)).thenReturn("[]".getBytes());
+
+        mockMvc.perform(get("/api/assignments/class/8")).andExpect(status().isOk());
+
+        verify(assignmentService).getAssignmentsStamp(8, null);
+        verify(assignmentService).getAssignmentsByClassJson(8, null);
+        verifyNoMoreInteractions(assignmentService);
+    }
+
+    @Test
+    void getAssignmentsByClass_MatchingETag_Returns304WithoutBuildingList() throws Exception {
+        authenticate(42L, User.Role.STUDENT, 8);
+        when(assignmentService.getAssignmentsStamp(8, 42L)).thenReturn(STAMP);
+
+        mockMvc.perform(get("/api/assignments/class/8").header(HttpHeaders.IF_NONE_MATCH, "\"" + STAMP.getEtag() + "\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + STAMP.getEtag() + "\""));
+
+        verify(assignmentService, never()).getAssignmentsByClassJson(any(), any());
+    }
+
+    @Test
+    void getMySubmissions_PassesPrincipalId() throws Exception {
+        authenticate(42L, User.Role.STUDENT, 8);
+        when(assignmentService.getStudentSubmissions(42L)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/assignments/my-submissions")).andExpect(status().isOk());
+
+        verify(assignmentService).getStudentSubmissions(42L);
+        verifyNoMoreInteractions(assignmentService);
+    }
+
+    @Test
+    void getMySubmission_PassesPrincipalId() throws Exception {
+        authenticate(42L, User.Role.STUDENT, 8);
+
+        mockMvc.perform(get("/api/assignments/7/my-submission")).andExpect(status().isOk());
+
+        verify(assignmentService).getStudentSubmission(7L, 42L);
+        verifyNoMoreInteractions(assignmentService);
+    }
+
+    @Test
+    void submitAssignment_PassesPrincipalId() throws Exception {
+        authenticate(42L, User.Role.STUDENT, 8);
+
+        mockMvc.perform(post("/api/assignments/submit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"assignmentId\": 7, \"submissionText\": \"My answer\"}"))
+            .andExpect(status().isCreated());
+
+        verify(assignmentService).submitAssignment(argThat(request -> request.getAssignmentId() == 7L
+            && "My answer".equals(request.getSubmissionText())), eq(42L));
+        verifyNoMoreInteractions(assignmentService);
+    }
+
+    @Test
+    void createAssignment_PassesPrincipalId() throws Exception {
+        authenticate(1L, User.Role.TEACHER, null);
+
+        mockMvc.perform(post("/api/assignments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Fractions\", \"description\": \"Worksheet\", \"classGrade\": 8, " +
+                         "\"dueDate\": \"2030-01-01T10:00:00\", \"totalMarks\": 20}"))
+            .andExpect(status().isCreated());
+
+        verify(assignmentService).createAssignment(argThat(request -> request.getClassGrade() == 8
+            && "Fractions".equals(request.getTitle())), eq(1L));
+        verifyNoMoreInteractions(assignmentService);
+    }
+
+    @Test
+    void gradeSubmissions_BatchRoute_PassesAllItemsToService() throws Exception {
+        authenticate(1L, User.Role.TEACHER, null);
+
+        mockMvc.perform(post("/api/assignments/7/grades:batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"grades\":[{\"submissionId\":1,\"marksObtained\":10},{\"submissionId\":2,\"marksObtained\":12}]}"))
+            .andExpect(status().isOk());
+
+        verify(assignmentService).gradeSubmissions(eq(7L), argThat(grades -> grades.size() == 2));
+    }
+
+    @Test
+    void gradeSubmissions_EmptyBatch_IsRejected() throws Exception {
+        authenticate(1L, User.Role.TEACHER, null);
+
+        mockMvc.perform(post("/api/assignments/7/grades:batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"grades\":[]}"))
+            .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(assignmentService);
+    }
+}
@@ -0,0 +1,166 @@
+package org.student.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.student.entity.StoredBlob;
+import org.student.repository.StoredBlobRepository;
+import org.student.service.FileStorageService;
+import org.student.storage.LocalStorageBackend;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Upload through {@link FileStorageService} into the local backend, then download through
+ * the controller, with no external storage involved.
+ */
+class FileControllerTest {
+
+    private static final String PUBLIC_URL = "http://localhost:8080/files";
+    private static final byte[] PDF = "%PDF-1.4 fractions worksheet".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    // Stand-in for stored_blobs: object key to recorded content type
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+    private FileStorageService fileStorageService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        LocalStorageBackend backend = new LocalStorageBackend(tempDir.resolve("storage"), PUBLIC_URL);
+        StoredBlobRepository blobRepository = mock(StoredBlobRepository.class);
+        when(blobRepository.insertIfAbsent(anyString(), anyString(), anyString(), anyLong(), anyString(), any()))
+            .thenAnswer(call -> {
+                contentTypes.put(call.getArgument(1), call.getArgument(4));
+                return 1;
+            });
+        when(blobRepository.findByObjectKey(anyString())).thenAnswer(call -> Optional.ofNullable(contentTypes.get(call.<String>getArgument(0)))
+            .map(contentType -> new StoredBlob(null, call.getArgument(0), null, 0L, contentType, 0, null, null)));
+        fileStorageService = new FileStorageService(backend, blobRepository);
+        mockMvc = MockMvcBuilders.standaloneSetup(new FileController(backend, blobRepository)).build();
+    }
+
+    private String upload() throws IOException {
+        return upload("worksheet.pdf", "application/pdf");
+    }
+
+    private String upload(String filename, String contentType) throws IOException {
+        String url = fileStorageService.uploadFile(new MockMultipartFile("file", filename, contentType, PDF));
+        assertTrue(url.startsWith(PUBLIC_URL + "/blobs/"));
+        return url.substring("http://localhost:8080".length());
+    }
+
+    @Test
+    void download_WholeFile() throws Exception {
+        String path = upload();
+
+        mockMvc.perform(get(path))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+            .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, PDF.length))
+            .andExpect(content().bytes(PDF));
+    }
+
+    @Test
+    void upload_HtmlFilenameDeclaredPdf_StoredAndServedAsPdf() throws Exception {
+        String path = upload("x.html", "application/pdf");
+
+        assertTrue(path.endsWith(".pdf"));
+        mockMvc.perform(get(path))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+            .andExpect(header().string("X-Content-Type-Options", "nosniff"));
+    }
+
+    @Test
+    void download_WordDocument_SentAsAttachment() throws Exception {
+        String path = upload("notes.svg", "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+
+        assertTrue(path.endsWith(".docx"));
+        mockMvc.perform(get(path))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE,
+                "application/vnd.openxmlformats-officedocument.wordprocessingml.document"))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, startsWith("attachment")));
+    }
+
+    @Test
+    void download_NoRecordedContentType_SentAsOctetStreamAttachment() throws Exception {
+        Path legacy = tempDir.resolve("storage/materials/page.html");
+        Files.createDirectories(legacy.getParent());
+        Files.writeString(legacy, "<script>alert(1)</script>");
+
+        mockMvc.perform(get("/files/materials/page.html"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/octet-stream"))
+            .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, startsWith("attachment")));
+    }
+
+    @Test
+    void download_Range_ReturnsPartialContent() throws Exception {
+        String path = upload();
+
+        mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=5-7"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-7/" + PDF.length))
+            .andExpect(content().bytes("1.4".getBytes(StandardCharsets.US_ASCII)));
+
+        mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=-10"))
+            .andExpect(status().isPartialContent())
+            .andExpect(content().bytes(" worksheet".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void download_UnsatisfiableRange_Returns416() throws Exception {
+        String path = upload();
+
+        mockMvc.perform(get(path).header(HttpHeaders.RANGE, "bytes=500-600"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + PDF.length));
+    }
+
+    @Test
+    void download_KeyOutsideStorageRoot_Returns404() throws Exception {
+        Files.writeString(tempDir.resolve("secret.txt"), "not for download");
+
+        mockMvc.perform(get("/files/../secret.txt")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/files/materials/missing.pdf")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void deleteFile_RemovesStoredFile() throws Exception {
+        String path = upload();
+
+        fileStorageService.deleteFile("http://localhost:8080" + path);
+
+        mockMvc.perform(get(path)).andExpect(status().isNotFound());
+    }
+}
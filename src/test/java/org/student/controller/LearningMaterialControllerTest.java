@@ -0,0 +1,116 @@
+package org.student.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.student.cache.ClassResponseCache;
+import org.student.pagination.CursorPagination;
+import org.student.service.FileStorageService;
+import org.student.service.LearningMaterialService;
+import org.student.service.MaterialBundleService;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The class bundle endpoint: whole file, Range, conditional GET, and the wait for a first build.
+ */
+@ExtendWith(MockitoExtension.class)
+class LearningMaterialControllerTest {
+
+    private static final byte[] BUNDLE = "PK fake zip content for class 8".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private LearningMaterialService materialService;
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    @Mock
+    private CursorPagination pagination;
+
+    @Mock
+    private ClassResponseCache responseCache;
+
+    @Mock
+    private MaterialBundleService bundleService;
+
+    @InjectMocks
+    private LearningMaterialController materialController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(materialController).build();
+    }
+
+    private void bundleReady() throws Exception {
+        Path file = Files.write(tempDir.resolve("grade-8-v3.zip"), BUNDLE);
+        when(bundleService.getBundle(8)).thenReturn(Optional.of(
+            new MaterialBundleService.MaterialBundle(file, "bundle-abc123", Instant.parse("2024-05-01T10:00:00Z"))));
+    }
+
+    @Test
+    void getMaterialsBundle_WholeFileWithValidators() throws Exception {
+        bundleReady();
+
+        mockMvc.perform(get("/api/learning-materials/class/8/bundle"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"bundle-abc123\""))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/zip"))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"class-8-materials.zip\""))
+            .andExpect(content().bytes(BUNDLE));
+    }
+
+    @Test
+    void getMaterialsBundle_Range_ReturnsPartialContent() throws Exception {
+        bundleReady();
+
+        mockMvc.perform(get("/api/learning-materials/class/8/bundle").header(HttpHeaders.RANGE, "bytes=3-6"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 3-6/" + BUNDLE.length))
+            .andExpect(content().bytes("fake".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void getMaterialsBundle_MatchingETag_Returns304() throws Exception {
+        bundleReady();
+
+        mockMvc.perform(get("/api/learning-materials/class/8/bundle").header(HttpHeaders.IF_NONE_MATCH, "\"bundle-abc123\""))
+            .andExpect(status().isNotModified())
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getMaterialsBundle_NotBuiltYet_Returns503WithRetryAfter() throws Exception {
+        when(bundleService.getBundle(8)).thenReturn(Optional.empty());
+
+        String body = mockMvc.perform(get("/api/learning-materials/class/8/bundle"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"))
+            .andReturn().getResponse().getContentAsString();
+        assertTrue(body.contains("being prepared"));
+    }
+}
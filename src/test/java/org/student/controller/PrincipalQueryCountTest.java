@@ -0,0 +1,248 @@
+package org.student.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.student.entity.Assignment;
+import org.student.entity.AssignmentSubmission;
+import org.student.entity.StudentProfile;
+import org.student.entity.User;
+import org.student.repository.AssignmentRepository;
+import org.student.repository.AssignmentSubmissionRepository;
+import org.student.repository.StudentProfileRepository;
+import org.student.repository.UserRepository;
+import org.student.security.UserPrincipal;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the endpoints that take the caller from the principal against the real context on H2 and
+ * counts the SQL statements each request issues. None of them may look the user up by email, and
+ * each stays within the statement budget it has today.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:principal-query-count;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.hikari.data-source-properties.ssl=",
+    "spring.datasource.hikari.data-source-properties.sslmode=",
+    "spring.datasource.hikari.data-source-properties.ApplicationName=",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.student.controller.PrincipalQueryCountTest$RequestStatements",
+    "jwt.secret=principal-query-count-test-secret-0123456789abcdef",
+    "supabase.key=test",
+    "groq.api.key=test",
+    "mail.username=test",
+    "mail.password=test",
+    "teacher.email=teacher@test.com",
+    "teacher.password=teacher-password",
+    "teacher.name=Teacher",
+    "storage.backend=local",
+    "storage.local.root=${java.io.tmpdir}/principal-query-count-storage",
+    "storage.gc.enabled=false"
+})
+@AutoConfigureMockMvc
+class PrincipalQueryCountTest {
+
+    // e.g. "select ... from users u1_0 where u1_0.email=?"
+    private static final Pattern USER_BY_EMAIL =
+        Pattern.compile("\\bfrom\\s+users\\s+\\w+\\s+where\\s+.*\\b\\w+\\.email\\s*=", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * Records the statements Hibernate prepares on the thread running the request. Scheduled jobs
+     * (version flush and the like) run on their own threads and are not counted.
+     */
+    public static class RequestStatements implements StatementInspector {
+        static volatile Thread recording;
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == recording) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private StudentProfileRepository studentProfileRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private AssignmentSubmissionRepository submissionRepository;
+
+    private UserPrincipal teacher;
+    private UserPrincipal student;
+    private Long openAssignmentId;
+    private Long overdueAssignmentId;
+
+    @BeforeEach
+    void setUp() {
+        User teacherUser = userRepository.findByEmail("teacher@test.com").orElseThrow();
+        teacher = new UserPrincipal(teacherUser.getId(), teacherUser.getEmail(), User.Role.TEACHER,
+            User.RegistrationStatus.APPROVED, null);
+
+        String email = "student" + System.nanoTime() + "@test.com";
+        User studentUser = new User();
+        studentUser.setEmail(email);
+        studentUser.setPasswordHash("unused");
+        studentUser.setRole(User.Role.STUDENT);
+        studentUser.setStatus(User.RegistrationStatus.APPROVED);
+        studentUser = userRepository.save(studentUser);
+
+        StudentProfile profile = new StudentProfile();
+        profile.setUser(studentUser);
+        profile.setFullName("Student");
+        profile.setDateOfBirth(LocalDate.of(2012, 1, 1));
+        profile.setGender(StudentProfile.Gender.FEMALE);
+        profile.setClassGrade(8);
+        studentProfileRepository.save(profile);
+
+        student = new UserPrincipal(studentUser.getId(), email, User.Role.STUDENT,
+            User.RegistrationStatus.APPROVED, 8);
+
+        openAssignmentId = assignment(LocalDateTime.now().plusDays(7)).getId();
+        overdueAssignmentId = assignment(LocalDateTime.now().minusDays(1)).getId();
+
+        // The submit endpoint inserts with a Postgres upsert H2 cannot run, so the submission is seeded
+        AssignmentSubmission submission = new AssignmentSubmission();
+        submission.setAssignmentId(openAssignmentId);
+        submission.setStudentId(student.getId());
+        submission.setSubmissionText("1/2");
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setStatus(AssignmentSubmission.SubmissionStatus.SUBMITTED);
+        submission.setIsLate(false);
+        submissionRepository.save(submission);
+    }
+
+    private Assignment assignment(LocalDateTime dueDate) {
+        Assignment assignment = new Assignment();
+        assignment.setTitle("Fractions");
+        assignment.setDescription("Worksheet");
+        assignment.setClassGrade(8);
+        assignment.setDueDate(dueDate);
+        assignment.setTotalMarks(20);
+        assignment.setStatus(Assignment.AssignmentStatus.PUBLISHED);
+        assignment.setCreatedBy(teacher.getId());
+        return assignmentRepository.save(assignment);
+    }
+
+    private static MockHttpServletRequestBuilder as(UserPrincipal principal, MockHttpServletRequestBuilder request) {
+        return request.with(authentication(new UsernamePasswordAuthenticationToken(
+            principal, null, List.of(new SimpleGrantedAuthority("ROLE_" + principal.getRole().name())))));
+    }
+
+    private MockHttpServletRequestBuilder json(MockHttpServletRequestBuilder request, Object body) throws Exception {
+        return request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body));
+    }
+
+    /**
+     * Performs the request while recording its statements, then checks none of them loads a user
+     * by email and that there are at most {@code budget}.
+     */
+    private void assertStatements(RequestBuilder request, ResultMatcher expectedStatus, int budget) throws Exception {
+        RequestStatements.statements.clear();
+        RequestStatements.recording = Thread.currentThread();
+        try {
+            mockMvc.perform(request).andExpect(expectedStatus);
+        } finally {
+            RequestStatements.recording = null;
+        }
+        List<String> statements = List.copyOf(RequestStatements.statements);
+
+        assertTrue(statements.stream().noneMatch(sql -> USER_BY_EMAIL.matcher(sql).find()),
+            () -> "user loaded by email: " + statements);
+        assertTrue(statements.size() <= budget,
+            () -> statements.size() + " statements, budget " + budget + ": " + statements);
+    }
+
+    @Test
+    void assignmentEndpoints_DoNotLoadUserByEmail() throws Exception {
+        assertStatements(as(student, get("/api/assignments/class/8")), status().isOk(), 2);
+        assertStatements(as(student, get("/api/assignments/my-submissions")), status().isOk(), 1);
+        assertStatements(as(student, get("/api/assignments/{id}/my-submission", openAssignmentId)),
+            status().isOk(), 1);
+        assertStatements(as(teacher, json(post("/api/assignments"), Map.of(
+                "title", "Ratios",
+                "description", "Worksheet",
+                "classGrade", 8,
+                "dueDate", LocalDateTime.now().plusDays(3).withNano(0).toString(),
+                "totalMarks", 10))),
+            status().isCreated(), 1);
+    }
+
+    @Test
+    void queryEndpoints_DoNotLoadUserByEmail() throws Exception {
+        assertStatements(as(student, get("/api/queries/my-class")), status().isOk(), 1);
+        assertStatements(as(student, json(post("/api/queries"), Map.of(
+                "title", "Question 4",
+                "content", "How do I simplify this?"))),
+            status().isOk(), 4);
+    }
+
+    @Test
+    void lateSubmissionEndpoints_DoNotLoadUserByEmail() throws Exception {
+        assertStatements(as(student, json(post("/api/late-submissions/request"), Map.of(
+                "assignmentId", overdueAssignmentId,
+                "reason", "I was unwell on the due date"))),
+            status().isCreated(), 4);
+        assertStatements(as(student, get("/api/late-submissions/assignment/{id}/my-request", overdueAssignmentId)),
+            status().isOk(), 3);
+        assertStatements(as(student, get("/api/late-submissions/assignment/{id}/check-approval", overdueAssignmentId)),
+            status().isOk(), 1);
+    }
+
+    @Test
+    void learningMaterialUpload_DoesNotLoadUserByEmail() throws Exception {
+        assertStatements(as(teacher, json(post("/api/learning-materials"), Map.of(
+                "title", "Algebra notes",
+                "classGrade", 8,
+                "fileUrl", "http://localhost:8080/files/blobs/ab/notes.pdf",
+                "fileName", "notes.pdf",
+                "fileType", "application/pdf"))),
+            status().isCreated(), 3);
+    }
+
+    @Test
+    void studentProfile_DoesNotLoadUserByEmail() throws Exception {
+        assertStatements(as(student, get("/api/student/profile")), status().isOk(), 1);
+    }
+}
@@ -0,0 +1,117 @@
+package org.student.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.student.cache.ClassResponseCache;
+import org.student.cache.ClassScope;
+import org.student.cache.ClassVersions;
+import org.student.entity.Timetable;
+import org.student.repository.ClassVersionRepository;
+import org.student.repository.TimetableRepository;
+import org.student.service.TimetableService;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional GETs on a per-class list run against the real service and cache; only the
+ * repositories are mocked, so "no repository interaction" means no SQL was issued.
+ */
+@ExtendWith(MockitoExtension.class)
+class TimetableControllerTest {
+
+    @Mock
+    private TimetableRepository timetableRepository;
+
+    @Mock
+    private ClassVersionRepository classVersionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ClassVersions classVersions;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        classVersions = new ClassVersions(classVersionRepository);
+        ClassResponseCache responseCache =
+            new ClassResponseCache(classVersions, new ObjectMapper().findAndRegisterModules(), 100, 600);
+        TimetableService timetableService = new TimetableService(timetableRepository, eventPublisher);
+        mockMvc = MockMvcBuilders.standaloneSetup(new TimetableController(timetableService, responseCache)).build();
+    }
+
+    private Timetable createTimetable(Long id, Integer classGrade) {
+        Timetable timetable = new Timetable();
+        timetable.setId(id);
+        timetable.setClassGrade(classGrade);
+        timetable.setDayOfWeek(Timetable.DayOfWeek.MONDAY);
+        timetable.setStartTime(LocalTime.of(9, 0));
+        timetable.setEndTime(LocalTime.of(10, 0));
+        return timetable;
+    }
+
+    @Test
+    void getTimetableByClass_MatchingETag_Returns304WithoutAnySql() throws Exception {
+        String etag = mockMvc.perform(get("/api/timetable/class/8"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        clearInvocations(timetableRepository);
+
+        mockMvc.perform(get("/api/timetable/class/8").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        verifyNoInteractions(timetableRepository, classVersionRepository);
+    }
+
+    @Test
+    void getTimetableByClass_ColdCache_Returns304WithoutAnySql() throws Exception {
+        // The tag comes from the in-memory counter alone, so even an empty response cache answers 304
+        String etag = "\"" + classVersions.stamp(ClassScope.TIMETABLE, 8).getEtag() + "\"";
+
+        mockMvc.perform(get("/api/timetable/class/8").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+
+        verifyNoInteractions(timetableRepository, classVersionRepository);
+    }
+
+    @Test
+    void getTimetableByClass_AfterWrite_ReturnsNewBodyAndPersistsVersion() throws Exception {
+        when(timetableRepository.findByClassGradeOrderByDayOfWeekAscStartTimeAsc(8))
+            .thenReturn(List.of())
+            .thenReturn(List.of(createTimetable(1L, 8)));
+        String etag = mockMvc.perform(get("/api/timetable/class/8"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        classVersions.bump(ClassScope.TIMETABLE, 8);
+
+        String body = mockMvc.perform(get("/api/timetable/class/8").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andReturn().getResponse().getContentAsString();
+        assertTrue(body.contains("MONDAY"));
+        verify(timetableRepository, times(2)).findByClassGradeOrderByDayOfWeekAscStartTimeAsc(8);
+        // Written by the batch flush, not by the bump itself
+        verifyNoInteractions(classVersionRepository);
+        classVersions.flushVersions();
+        verify(classVersionRepository).upsertVersion(eq("TIMETABLE:8"), eq(1L), any());
+    }
+}
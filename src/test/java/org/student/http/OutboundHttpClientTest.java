@@ -0,0 +1,177 @@
+package org.student.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Retries, the circuit breaker and the bulkhead against a local server that answers with
+ * scripted status codes.
+ */
+class OutboundHttpClientTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final Deque<Integer> statuses = new ArrayDeque<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile CountDownLatch hold = new CountDownLatch(0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboundHttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverThreads = Executors.newFixedThreadPool(4);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 10);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                hold.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            int status;
+            synchronized (statuses) {
+                status = statuses.isEmpty() ? 200 : statuses.poll();
+            }
+            byte[] body = ("status " + status).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        client = new OutboundHttpClient(new MockEnvironment()
+            .withProperty("outbound-http.destinations.test.max-concurrent", "1")
+            .withProperty("outbound-http.destinations.test.acquire-timeout-ms", "100")
+            .withProperty("outbound-http.destinations.test.max-attempts", "3")
+            .withProperty("outbound-http.destinations.test.backoff-ms", "10")
+            .withProperty("outbound-http.destinations.test.failure-threshold", "3")
+            .withProperty("outbound-http.destinations.test.open-seconds", "60"),
+            meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hold.countDown();
+        client.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private void respondWith(Integer... codes) {
+        synchronized (statuses) {
+            statuses.addAll(List.of(codes));
+        }
+    }
+
+    private HttpRequest.Builder request() {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/object"));
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws Exception {
+        return client.destination("test").send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void send_Get_RetriesUnavailableThenReturnsSuccess() throws Exception {
+        respondWith(503, 502, 200);
+
+        HttpResponse<String> response = send(request().GET().build());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("status 200", response.body());
+        assertEquals(3, requests.get());
+        assertEquals(2, meterRegistry.get("http.client.outbound.retries").tag("destination", "test").counter().count());
+        assertEquals(2, meterRegistry.get("http.client.outbound").tag("outcome", "SERVER_ERROR").timers().stream()
+            .mapToLong(Timer::count).sum());
+        assertEquals(1, meterRegistry.get("http.client.outbound").tag("outcome", "SUCCESS").timer().count());
+    }
+
+    @Test
+    void send_Post_IsNotRetried() throws Exception {
+        respondWith(503, 200);
+
+        HttpResponse<String> response = send(request().POST(HttpRequest.BodyPublishers.ofString("{}")).build());
+
+        assertEquals(503, response.statusCode());
+        assertEquals("status 503", response.body());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void send_RepeatedFailures_OpenCircuitAndFailFast() throws Exception {
+        respondWith(500, 500, 500);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(500, send(request().GET().build()).statusCode()); // 500 is not retried
+        }
+
+        OutboundRejectedException error = assertThrows(OutboundRejectedException.class,
+            () -> send(request().GET().build()));
+
+        assertTrue(error.getMessage().contains("test is failing"));
+        assertEquals(3, requests.get());
+        assertEquals(1.0, meterRegistry.get("http.client.outbound.circuit-open").gauge().value());
+    }
+
+    @Test
+    void send_AllSlotsInUse_RejectsInsteadOfQueueing() throws Exception {
+        hold = new CountDownLatch(1);
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<HttpResponse<String>> first = callers.submit(() -> send(request().GET().build()));
+            while (requests.get() == 0) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(OutboundRejectedException.class, () -> send(request().GET().build()));
+
+            hold.countDown();
+            assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+            assertEquals(1, requests.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void send_StreamedBody_HoldsSlotUntilClosed() throws Exception {
+        OutboundHttpClient.Destination destination = client.destination("test");
+        HttpResponse<InputStream> streamed = destination.send(request().GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+
+        // The body has not been read yet, so the call is still in flight
+        assertThrows(OutboundRejectedException.class, () -> send(request().GET().build()));
+        assertEquals(0, meterRegistry.find("http.client.outbound").tag("outcome", "SUCCESS").timers().size());
+
+        assertEquals("status 200", new String(streamed.body().readAllBytes(), StandardCharsets.UTF_8));
+        streamed.body().close();
+        streamed.body().close();
+
+        assertEquals(200, send(request().GET().build()).statusCode());
+        assertEquals(2, meterRegistry.get("http.client.outbound").tag("outcome", "SUCCESS").timer().count());
+    }
+}
@@ -0,0 +1,200 @@
+package org.student.image;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+import org.student.service.FileStorageService;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImagePipelineTest {
+
+    @Mock
+    private FileStorageService fileStorageService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ImagePipeline pipeline;
+    private byte[] storedPdf;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    private ImagePipeline pipeline(int workers, int queueCapacity) {
+        pipeline = new ImagePipeline(fileStorageService, meterRegistry, workers, queueCapacity, 2000, 0.75f, 20);
+        return pipeline;
+    }
+
+    private void captureStoredPdf() throws IOException {
+        when(fileStorageService.uploadFile(any(Path.class), eq("page1.pdf"), eq("application/pdf"))).thenAnswer(call -> {
+            storedPdf = Files.readAllBytes(call.getArgument(0));
+            return "http://localhost:8080/files/blobs/ab/photos.pdf";
+        });
+    }
+
+    // Random pixels, so the encoded size depends on the pixel count rather than compressing away
+    private static BufferedImage noise(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, format, out));
+        return out.toByteArray();
+    }
+
+    // A JPEG with an EXIF APP1 segment holding only the orientation tag, inserted after SOI
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        ByteBuffer app1 = ByteBuffer.allocate(36);
+        app1.putShort((short) 0xFFE1).putShort((short) 34);
+        app1.put("Exif\0\0".getBytes());
+        app1.put("MM".getBytes()).putShort((short) 42).putInt(8);
+        app1.putShort((short) 1);
+        app1.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        app1.putInt(0);
+
+        byte[] result = new byte[jpeg.length + app1.capacity()];
+        System.arraycopy(jpeg, 0, result, 0, 2);
+        System.arraycopy(app1.array(), 0, result, 2, app1.capacity());
+        System.arraycopy(jpeg, 2, result, 2 + app1.capacity(), jpeg.length - 2);
+        return result;
+    }
+
+    @Test
+    void toPdf_CombinesPhotosIntoDownscaledPages() throws Exception {
+        captureStoredPdf();
+        MockMultipartFile landscape = new MockMultipartFile("files", "page1.jpg", "image/jpeg",
+            encode(noise(2400, 1600), "jpg"));
+        MockMultipartFile portrait = new MockMultipartFile("files", "page2.png", "image/png",
+            encode(noise(800, 1200), "png"));
+
+        String url = pipeline(2, 4).toPdf(List.of(landscape, portrait)).get(30, TimeUnit.SECONDS);
+
+        assertEquals("http://localhost:8080/files/blobs/ab/photos.pdf", url);
+        try (PDDocument pdf = Loader.loadPDF(storedPdf)) {
+            assertEquals(2, pdf.getNumberOfPages());
+            PDPage first = pdf.getPage(0);
+            assertTrue(first.getMediaBox().getWidth() > first.getMediaBox().getHeight(), "Wide photo on a landscape page");
+            PDImageXObject image = pageImage(first);
+            assertEquals(2000, image.getWidth());
+            assertEquals(1333, image.getHeight());
+            assertEquals(800, pageImage(pdf.getPage(1)).getWidth());
+        }
+
+        double in = meterRegistry.counter("images.bytes.in").count();
+        double out = meterRegistry.counter("images.bytes.out").count();
+        assertEquals(landscape.getSize() + portrait.getSize(), (long) in);
+        assertEquals(storedPdf.length, (long) out);
+        assertTrue(out < in, "PDF (" + out + " bytes) should be smaller than the photos (" + in + " bytes)");
+        assertEquals(2, meterRegistry.counter("images.pages").count());
+    }
+
+    private static PDImageXObject pageImage(PDPage page) throws IOException {
+        COSName name = page.getResources().getXObjectNames().iterator().next();
+        return (PDImageXObject) page.getResources().getXObject(name);
+    }
+
+    @Test
+    void readUpright_AppliesExifRotation() throws IOException {
+        // Stored sideways: left half red, right half blue; orientation 6 means turn it clockwise
+        BufferedImage sideways = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 400; x++) {
+            for (int y = 0; y < 200; y++) {
+                sideways.setRGB(x, y, x < 200 ? Color.RED.getRGB() : Color.BLUE.getRGB());
+            }
+        }
+        MockMultipartFile photo = new MockMultipartFile("files", "page1.jpg", "image/jpeg",
+            withOrientation(encode(sideways, "jpg"), 6));
+
+        BufferedImage upright = pipeline(1, 1).readUpright(photo);
+
+        assertEquals(200, upright.getWidth());
+        assertEquals(400, upright.getHeight());
+        Color top = new Color(upright.getRGB(100, 50));
+        Color bottom = new Color(upright.getRGB(100, 350));
+        assertTrue(top.getRed() > 200 && top.getBlue() < 60, "Top should be red, was " + top);
+        assertTrue(bottom.getBlue() > 200 && bottom.getRed() < 60, "Bottom should be blue, was " + bottom);
+    }
+
+    @Test
+    void toPdf_Heic_RejectedWithAdvice() {
+        MockMultipartFile photo = new MockMultipartFile("files", "IMG_0001.HEIC", "image/heic", new byte[]{1, 2, 3});
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> pipeline(1, 1).toPdf(List.of(photo)));
+        assertTrue(error.getMessage().contains("Most Compatible"));
+    }
+
+    @Test
+    void toPdf_NotAnImage_FailsWithBadRequest() {
+        MockMultipartFile photo = new MockMultipartFile("files", "page1.jpg", "image/jpeg", "not a photo".getBytes());
+
+        CompletableFuture<String> result = pipeline(1, 1).toPdf(List.of(photo));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+    }
+
+    @Test
+    void toPdf_QueueFull_RejectsInsteadOfWaiting() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch storing = new CountDownLatch(1);
+        when(fileStorageService.uploadFile(any(Path.class), eq("page1.pdf"), eq("application/pdf"))).thenAnswer(call -> {
+            storing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "http://localhost:8080/files/blobs/ab/photos.pdf";
+        });
+        List<MultipartFile> set = List.of(new MockMultipartFile("files", "page1.png", "image/png",
+            encode(noise(50, 50), "png")));
+        ImagePipeline pipeline = pipeline(1, 1);
+
+        CompletableFuture<String> running = pipeline.toPdf(set);
+        assertTrue(storing.await(10, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = pipeline.toPdf(set);
+        assertThrows(RejectedExecutionException.class, () -> pipeline.toPdf(set));
+
+        release.countDown();
+        assertNotNull(running.get(10, TimeUnit.SECONDS));
+        assertNotNull(queued.get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,138 @@
+package org.student.pagination;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.student.dto.CursorPage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Both response modes against a loader over ids 1..{@code total}, fetched with limit + 1 the way
+ * the repositories do.
+ */
+class CursorPaginationTest {
+
+    private CursorPagination pagination;
+
+    private final List<String> requestedCursors = new ArrayList<>();
+    private final List<Integer> requestedLimits = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pagination = new CursorPagination();
+        ReflectionTestUtils.setField(pagination, "defaultPageSize", 5);
+        ReflectionTestUtils.setField(pagination, "maxPageSize", 10);
+        ReflectionTestUtils.setField(pagination, "compatMaxItems", 20);
+    }
+
+    private BiFunction<String, Integer, CursorPage<Long>> loader(int total) {
+        return (cursor, limit) -> {
+            requestedCursors.add(cursor);
+            requestedLimits.add(limit);
+            PageCursor after = PageCursor.decode(cursor);
+            long firstId = after == null ? 1 : after.getId() + 1;
+            List<Long> rows = IntStream.rangeClosed((int) firstId, total)
+                .limit(limit + 1L)
+                .mapToObj(Long::valueOf)
+                .toList();
+            return CursorPage.of(rows, limit, id -> id, id -> PageCursor.after(id, id));
+        };
+    }
+
+    private static List<Long> ids(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(Long::valueOf).toList();
+    }
+
+    @Test
+    void respond_LimitOnly_ReturnsFirstPageWithCursor() {
+        ResponseEntity<?> response = pagination.respond(null, 3, loader(8));
+
+        CursorPage<?> page = (CursorPage<?>) response.getBody();
+        assertEquals(ids(1, 3), page.getItems());
+        assertEquals(PageCursor.after(3L, 3L).encode(), page.getNextCursor());
+        assertNull(response.getHeaders().getFirst(CursorPagination.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void respond_FollowingCursors_WalksEveryItemOnce() {
+        List<Object> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<?> page = (CursorPage<?>) pagination.respond(cursor, 3, loader(8)).getBody();
+            seen.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(ids(1, 8), seen);
+    }
+
+    @Test
+    void respond_CursorOnly_UsesDefaultPageSize() {
+        String cursor = PageCursor.after(2L, 2L).encode();
+
+        CursorPage<?> page = (CursorPage<?>) pagination.respond(cursor, null, loader(30)).getBody();
+
+        assertEquals(List.of(5), requestedLimits);
+        assertEquals(List.of(cursor), requestedCursors);
+        assertEquals(ids(3, 7), page.getItems());
+    }
+
+    @Test
+    void respond_LimitAboveMax_ClampedToMaxPageSize() {
+        CursorPage<?> page = (CursorPage<?>) pagination.respond(null, 500, loader(30)).getBody();
+
+        assertEquals(List.of(10), requestedLimits);
+        assertEquals(10, page.getItems().size());
+    }
+
+    @Test
+    void respond_LimitBelowOne_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> pagination.respond(null, 0, loader(8)));
+        assertThrows(IllegalArgumentException.class, () -> pagination.respond(null, -3, loader(8)));
+        assertTrue(requestedLimits.isEmpty());
+    }
+
+    @Test
+    void respond_InvalidCursor_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> pagination.respond("not base64!", null, loader(8)));
+    }
+
+    @Test
+    void respond_NoParameters_ReturnsPlainArrayWithoutHeader() {
+        ResponseEntity<?> response = pagination.respond(null, null, loader(12));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ids(1, 12), response.getBody());
+        assertFalse(response.getHeaders().containsKey(CursorPagination.NEXT_CURSOR_HEADER));
+        assertEquals(List.of(20), requestedLimits);
+    }
+
+    @Test
+    void respond_NoParametersOverCompatMax_TruncatesAndSetsNextCursorHeader() {
+        ResponseEntity<?> response = pagination.respond(null, null, loader(50));
+
+        assertEquals(ids(1, 20), response.getBody());
+        String nextCursor = response.getHeaders().getFirst(CursorPagination.NEXT_CURSOR_HEADER);
+        assertEquals(PageCursor.after(20L, 20L).encode(), nextCursor);
+
+        // The header picks up where the array stopped, as a paged request
+        CursorPage<?> next = (CursorPage<?>) pagination.respond(nextCursor, null, loader(50)).getBody();
+        assertEquals(ids(21, 25), next.getItems());
+    }
+
+    @Test
+    void respond_NoParametersExactlyCompatMax_NoHeader() {
+        ResponseEntity<?> response = pagination.respond(null, null, loader(20));
+
+        assertEquals(ids(1, 20), response.getBody());
+        assertFalse(response.getHeaders().containsKey(CursorPagination.NEXT_CURSOR_HEADER));
+    }
+}
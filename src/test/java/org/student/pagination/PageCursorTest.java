@@ -0,0 +1,97 @@
+package org.student.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void encode_DateTimeKey_DecodesToSameCursor() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000);
+        PageCursor cursor = PageCursor.after(createdAt, 42L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        assertEquals(createdAt, decoded.keyAsDateTime());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void encode_IntegerKey_DecodesToSameCursor() {
+        PageCursor decoded = PageCursor.decode(PageCursor.after(8, 7L).encode());
+
+        assertEquals(8, decoded.keyAsInteger());
+        assertEquals(7L, decoded.getId());
+    }
+
+    @Test
+    void encode_KeyContainingSeparator_SplitsOnLastSeparator() {
+        PageCursor cursor = PageCursor.after("Ratios | Part 2", 5L);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encode_IsUrlSafeWithoutPadding() {
+        String token = PageCursor.after("key?>>~", 1L).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void decode_MissingToken_IsFirstPage() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+        assertNull(PageCursor.decode("  "));
+    }
+
+    @Test
+    void decode_NotBase64_Rejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!"));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+
+    @Test
+    void decode_TamperedToken_Rejected() {
+        String token = PageCursor.after(8, 7L).encode();
+        assertEquals("OHw3", token);
+
+        // "8|\0": the id is no longer a number
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("OHwA"));
+        // "8|": truncated before the id
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("OHw"));
+    }
+
+    @Test
+    void decode_NoSeparator_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(base64("42")));
+    }
+
+    @Test
+    void decode_EmptyKey_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(base64("|42")));
+    }
+
+    @Test
+    void decode_NonNumericId_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(base64("8|abc")));
+    }
+
+    @Test
+    void keyAs_WrongType_Rejected() {
+        PageCursor cursor = PageCursor.decode(base64("not-a-date|1"));
+
+        assertThrows(IllegalArgumentException.class, cursor::keyAsDateTime);
+        assertThrows(IllegalArgumentException.class, cursor::keyAsInteger);
+    }
+}
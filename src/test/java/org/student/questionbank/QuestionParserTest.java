@@ -0,0 +1,75 @@
+package org.student.questionbank;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionParserTest {
+
+    @Test
+    void parse_MarkdownSections_QuestionsWithTheirMarks() {
+        String content = """
+            # Class 8 Mathematics Assignment: Algebra
+            Instructions: Answer all questions.
+
+            **SECTION A: 1-Mark Questions (2 questions)**
+            1. Simplify 3x + 2x.
+            2. What is the coefficient of y in 7y - 4?
+               a) 7  b) -4  c) 4  d) y
+
+            **SECTION C: 3-Mark Questions**
+            3. Solve 2(x - 3) = 10 and check your answer.
+
+            ## Answer Key
+            1. 5x
+            2. 7
+            """;
+
+        List<QuestionParser.ParsedQuestion> questions = QuestionParser.parse(content);
+
+        assertEquals(List.of(
+            new QuestionParser.ParsedQuestion(1, "Simplify 3x + 2x."),
+            new QuestionParser.ParsedQuestion(1, "What is the coefficient of y in 7y - 4?\na) 7  b) -4  c) 4  d) y"),
+            new QuestionParser.ParsedQuestion(3, "Solve 2(x - 3) = 10 and check your answer.")), questions);
+    }
+
+    @Test
+    void parse_SectionWithoutMarks_UsesPromptLetters() {
+        List<QuestionParser.ParsedQuestion> questions = QuestionParser.parse("""
+            SECTION D
+            Q1. A train travels 300 km in 4 hours. Find its average speed and the time for 450 km.
+            """);
+
+        assertEquals(1, questions.size());
+        assertEquals(5, questions.get(0).marks());
+    }
+
+    @Test
+    void parse_VariantSet_EachVariantsQuestions() {
+        List<QuestionParser.ParsedQuestion> questions = QuestionParser.parse("""
+            VARIANT A
+
+            SECTION A: 1-Mark Questions
+            1. Simplify 4a - a.
+
+            VARIANT B
+
+            Some notes the model added between variants.
+            1. Not in a section, so skipped.
+
+            SECTION A: 1-Mark Questions
+            1. Simplify 6b - 2b.
+            """);
+
+        assertEquals(List.of("Simplify 4a - a.", "Simplify 6b - 2b."),
+            questions.stream().map(QuestionParser.ParsedQuestion::text).toList());
+    }
+
+    @Test
+    void parse_NoSections_Nothing() {
+        assertTrue(QuestionParser.parse("1. A question without a section\n2. Another").isEmpty());
+        assertTrue(QuestionParser.parse(null).isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+package org.student.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SupabaseJwtValidatorTest {
+
+    private ECKey signingKey;
+    private SupabaseJwtValidator validator;
+
+    @BeforeEach
+    void setUp() throws JOSEException {
+        signingKey = new ECKeyGenerator(Curve.P_256).generate();
+
+        validator = new SupabaseJwtValidator();
+        ReflectionTestUtils.setField(validator, "jwtSecret", signingKey.toPublicJWK().toJSONString());
+        ReflectionTestUtils.setField(validator, "cacheSize", 100);
+        validator.init();
+    }
+
+    private String token(ECKey key, String issuer, Instant expiresAt) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+            .subject("supabase-user-1")
+            .issuer(issuer)
+            .expirationTime(Date.from(expiresAt))
+            .claim("email", "student@test.com")
+            .claim("user_metadata", Map.of("role", "STUDENT"))
+            .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.ES256), claims);
+        jwt.sign(new ECDSASigner(key));
+        return jwt.serialize();
+    }
+
+    @Test
+    void verify_ValidToken_ReturnsClaims() throws JOSEException {
+        String token = token(signingKey, "https://test.supabase.co/auth/v1", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        VerifiedClaims claims = validator.verify(token);
+
+        assertNotNull(claims);
+        assertEquals("supabase-user-1", claims.getSubject());
+        assertEquals("student@test.com", claims.getEmail());
+        assertEquals("STUDENT", claims.getRole());
+        assertTrue(validator.validateToken(token));
+        assertEquals("supabase-user-1", validator.extractUserId(token));
+    }
+
+    @Test
+    void verify_RepeatedToken_ReturnsCachedClaims() throws JOSEException {
+        String token = token(signingKey, "https://test.supabase.co/auth/v1", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        VerifiedClaims first = validator.verify(token);
+        VerifiedClaims second = validator.verify(token);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void verify_TokenSignedWithOtherKey_ReturnsNull() throws JOSEException {
+        ECKey otherKey = new ECKeyGenerator(Curve.P_256).generate();
+        String token = token(otherKey, "https://test.supabase.co/auth/v1", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertNull(validator.verify(token));
+        assertFalse(validator.validateToken(token));
+    }
+
+    @Test
+    void verify_ExpiredToken_ReturnsNull() throws JOSEException {
+        String token = token(signingKey, "https://test.supabase.co/auth/v1", Instant.now().minus(1, ChronoUnit.MINUTES));
+
+        assertNull(validator.verify(token));
+        assertTrue(validator.isTokenExpired(token));
+    }
+
+    @Test
+    void verify_NonSupabaseIssuer_ReturnsNull() throws JOSEException {
+        String token = token(signingKey, "https://evil.example.com", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertNull(validator.verify(token));
+    }
+
+    @Test
+    void verify_MalformedToken_ReturnsNull() {
+        assertNull(validator.verify("not-a-jwt"));
+    }
+}
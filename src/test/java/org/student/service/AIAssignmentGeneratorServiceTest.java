@@ -0,0 +1,301 @@
+package org.student.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.student.cache.GeneratedAssignmentCache;
+import org.student.dto.GenerateAssignmentRequest;
+import org.student.entity.GeneratedAssignment;
+import org.student.exception.RateLimitedException;
+import org.student.http.OutboundHttpClient;
+import org.student.repository.GeneratedAssignmentRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Generation against a local stand-in for Groq's chat completions endpoint, with the cache
+ * backed by an in-memory stand-in for the generated_assignments table.
+ */
+class AIAssignmentGeneratorServiceTest {
+
+    private HttpServer groq;
+    private volatile int status = 200;
+    private volatile String requestBody;
+    private final AtomicInteger groqCalls = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile String slowVariant = "none";
+    private final ExecutorService serverThreads = Executors.newFixedThreadPool(4);
+    private final Map<String, GeneratedAssignment> table = new ConcurrentHashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GeneratedAssignmentRepository repository;
+    private OutboundHttpClient outboundHttpClient;
+    private AIAssignmentGeneratorService generatorService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        groq = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        groq.createContext("/openai/v1/chat/completions", exchange -> {
+            requestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            groqCalls.incrementAndGet();
+            if (status != 200) {
+                byte[] error = "{\"error\":{\"message\":\"Rate limit reached\"}}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("retry-after", "7");
+                exchange.sendResponseHeaders(status, error.length);
+                exchange.getResponseBody().write(error);
+                exchange.close();
+                return;
+            }
+            if (requestBody.contains("\"stream\": false")) {
+                String body = requestBody;
+                int call = groqCalls.get();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(body.contains("variant " + slowVariant + " ") ? 5000 : 200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                byte[] completion = ("{\"choices\":[{\"message\":{\"content\":\"Generated call " + call
+                    + "\"}}]}").getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, completion.length);
+                exchange.getResponseBody().write(completion);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String event : List.of(
+                        "{\"choices\":[{\"delta\":{\"role\":\"assistant\",\"content\":\"\"}}]}",
+                        "{\"choices\":[{\"delta\":{\"content\":\"SECTION A\"}}]}",
+                        "{\"choices\":[{\"delta\":{\"content\":\"\\n1. What is 2 + 2?\"}}]}",
+                        "{\"choices\":[{\"delta\":{},\"finish_reason\":\"stop\"}]}",
+                        "[DONE]")) {
+                    out.write(("data: " + event + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+        groq.setExecutor(serverThreads);
+        groq.start();
+
+        repository = mock(GeneratedAssignmentRepository.class);
+        when(repository.findById(anyString())).thenAnswer(call -> Optional.ofNullable(table.get(call.<String>getArgument(0))));
+        when(repository.upsert(anyString(), anyString(), anyString(), any())).thenAnswer(call -> {
+            table.put(call.getArgument(0), new GeneratedAssignment(call.getArgument(0), call.getArgument(1),
+                call.getArgument(2), call.getArgument(3), call.getArgument(3)));
+            return 1;
+        });
+
+        outboundHttpClient = new OutboundHttpClient(new MockEnvironment(), meterRegistry);
+        generatorService = generator(new GeneratedAssignmentCache(repository, meterRegistry, 10, 30));
+    }
+
+    private AIAssignmentGeneratorService generator(GeneratedAssignmentCache cache) {
+        AIAssignmentGeneratorService generator = new AIAssignmentGeneratorService(outboundHttpClient, cache, mock(QuestionBankService.class));
+        ReflectionTestUtils.setField(generator, "groqApiKey", "test-key");
+        ReflectionTestUtils.setField(generator, "groqApiUrl",
+            "http://127.0.0.1:" + groq.getAddress().getPort() + "/openai/v1/chat/completions");
+        ReflectionTestUtils.setField(generator, "groqModel", "test-model");
+        ReflectionTestUtils.setField(generator, "variantDeadlineSeconds", 10L);
+        return generator;
+    }
+
+    @AfterEach
+    void tearDown() {
+        groq.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private static GenerateAssignmentRequest request() {
+        return new GenerateAssignmentRequest(8, "Fractions", 2, 1, 0, 0, "EASY", null);
+    }
+
+    private double cacheLookups(String result) {
+        return meterRegistry.get("ai.assignment.cache").tag("result", result).counter().count();
+    }
+
+    @Test
+    void generateAssignment_SameRequestDifferentlyWritten_ServedFromCache() {
+        AIAssignmentGeneratorService.Generation first = generatorService.generateAssignment(request(), false);
+        AIAssignmentGeneratorService.Generation second = generatorService.generateAssignment(
+            new GenerateAssignmentRequest(8, "  FRACTIONS ", 2, 1, 0, 0, "easy", null), false);
+
+        assertEquals("Generated call 1", first.content());
+        assertFalse(first.cached());
+        assertEquals(first.content(), second.content());
+        assertTrue(second.cached());
+        assertEquals(1, groqCalls.get());
+        assertEquals(1, cacheLookups("memory_hit"));
+        assertEquals(1, cacheLookups("miss"));
+    }
+
+    @Test
+    void generateAssignment_Regenerate_BypassesAndReplacesCachedVersion() {
+        generatorService.generateAssignment(request(), false);
+
+        AIAssignmentGeneratorService.Generation regenerated = generatorService.generateAssignment(request(), true);
+        AIAssignmentGeneratorService.Generation next = generatorService.generateAssignment(request(), false);
+
+        assertEquals("Generated call 2", regenerated.content());
+        assertFalse(regenerated.cached());
+        assertEquals("Generated call 2", next.content());
+        assertEquals(2, groqCalls.get());
+        assertEquals(1, cacheLookups("regenerate"));
+    }
+
+    @Test
+    void generateAssignment_AfterRestart_ServedFromTable() {
+        generatorService.generateAssignment(request(), false);
+
+        // A new cache instance starts with nothing in memory
+        AIAssignmentGeneratorService restarted = generator(new GeneratedAssignmentCache(repository, meterRegistry, 10, 30));
+        AIAssignmentGeneratorService.Generation generation = restarted.generateAssignment(request(), false);
+
+        assertTrue(generation.cached());
+        assertEquals("Generated call 1", generation.content());
+        assertEquals(1, groqCalls.get());
+        assertEquals(1, cacheLookups("database_hit"));
+    }
+
+    @Test
+    void generateAssignment_ExpiredEntry_CallsGroqAgain() {
+        generatorService.generateAssignment(request(), false);
+        table.values().forEach(entry -> entry.setCreatedAt(LocalDateTime.now().minusDays(31)));
+
+        AIAssignmentGeneratorService restarted = generator(new GeneratedAssignmentCache(repository, meterRegistry, 10, 30));
+        AIAssignmentGeneratorService.Generation generation = restarted.generateAssignment(request(), false);
+
+        assertFalse(generation.cached());
+        assertEquals(2, groqCalls.get());
+    }
+
+    @Test
+    void generateAssignment_Variants_CalledTogetherAndCachedSeparately() {
+        GenerateAssignmentRequest request = request();
+        request.setVariants(3);
+
+        AIAssignmentGeneratorService.Generation generation = generatorService.generateAssignment(request, false);
+
+        assertEquals(3, groqCalls.get());
+        assertEquals(3, maxInFlight.get());
+        assertTrue(generation.content().startsWith("VARIANT A\n\n"));
+        assertTrue(generation.content().contains("VARIANT B\n\n"));
+        assertTrue(generation.content().contains("VARIANT C\n\n"));
+        assertFalse(generation.cached());
+        assertEquals(List.of(), generation.missingVariants());
+
+        request.setVariants(2);
+        AIAssignmentGeneratorService.Generation fewer = generatorService.generateAssignment(request, false);
+        assertTrue(fewer.cached());
+        assertEquals(3, groqCalls.get());
+    }
+
+    @Test
+    void generateAssignment_VariantPastDeadline_ReturnsTheOthers() {
+        ReflectionTestUtils.setField(generatorService, "variantDeadlineSeconds", 1L);
+        slowVariant = "C";
+        GenerateAssignmentRequest request = request();
+        request.setVariants(3);
+
+        long start = System.nanoTime();
+        AIAssignmentGeneratorService.Generation generation = generatorService.generateAssignment(request, false);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+        assertTrue(generation.content().contains("VARIANT A"));
+        assertTrue(generation.content().contains("VARIANT B"));
+        assertFalse(generation.content().contains("VARIANT C"));
+        assertEquals(List.of("C"), generation.missingVariants());
+    }
+
+    @Test
+    void generateAssignment_NoGroqSlotForVariant_ReportsItMissing() {
+        outboundHttpClient = new OutboundHttpClient(new MockEnvironment()
+            .withProperty("outbound-http.destinations.groq.max-concurrent", "2")
+            .withProperty("outbound-http.destinations.groq.acquire-timeout-ms", "50"), meterRegistry);
+        AIAssignmentGeneratorService generator = generator(new GeneratedAssignmentCache(repository, meterRegistry, 10, 30));
+        GenerateAssignmentRequest request = request();
+        request.setVariants(3);
+
+        AIAssignmentGeneratorService.Generation generation = generator.generateAssignment(request, false);
+
+        assertEquals(2, groqCalls.get());
+        assertTrue(generation.content().contains("VARIANT B"));
+        assertFalse(generation.content().contains("VARIANT C"));
+        assertEquals(List.of("C"), generation.missingVariants());
+    }
+
+    @Test
+    void generateAssignment_RateLimited_ReportsRetryAfter() {
+        status = 429;
+
+        RateLimitedException error = assertThrows(RateLimitedException.class,
+            () -> generatorService.generateAssignment(request(), false));
+
+        assertEquals(Duration.ofSeconds(7), error.getRetryAfter());
+    }
+
+    @Test
+    void streamAssignment_PassesEachPieceOfTextInOrder() throws Exception {
+        List<String> pieces = new CopyOnWriteArrayList<>();
+
+        AIAssignmentGeneratorService.Generation generation =
+            generatorService.streamAssignment(request(), false, pieces::add).get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of("SECTION A", "\n1. What is 2 + 2?"), pieces);
+        assertEquals("SECTION A\n1. What is 2 + 2?", generation.content());
+        assertTrue(requestBody.contains("\"stream\": true"));
+    }
+
+    @Test
+    void streamAssignment_CachedResult_SentInOnePiece() throws Exception {
+        generatorService.streamAssignment(request(), false, text -> { }).get(10, TimeUnit.SECONDS);
+        List<String> pieces = new CopyOnWriteArrayList<>();
+
+        AIAssignmentGeneratorService.Generation generation =
+            generatorService.streamAssignment(request(), false, pieces::add).get(10, TimeUnit.SECONDS);
+
+        assertTrue(generation.cached());
+        assertEquals(List.of("SECTION A\n1. What is 2 + 2?"), pieces);
+        assertEquals(1, groqCalls.get());
+    }
+
+    @Test
+    void streamAssignment_ErrorStatus_CompletesExceptionally() throws Exception {
+        status = 429;
+        List<String> pieces = new CopyOnWriteArrayList<>();
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> generatorService.streamAssignment(request(), false, pieces::add).get(10, TimeUnit.SECONDS));
+
+        assertTrue(error.getCause().getMessage().contains("429"));
+        assertTrue(pieces.isEmpty());
+    }
+}
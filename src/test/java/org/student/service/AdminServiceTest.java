@@ -6,14 +6,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.student.dto.CursorPage;
 import org.student.dto.EnrolledStudentDTO;
 import org.student.dto.PendingStudentDTO;
 import org.student.entity.StudentProfile;
 import org.student.entity.User;
+import org.student.event.UserChangedEvent;
 import org.student.exception.ResourceNotFoundException;
 import org.student.repository.AssignmentSubmissionRepository;
 import org.student.repository.PasswordResetTokenRepository;
 import org.student.repository.UserRepository;
+import org.student.storage.BlobReferences;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -37,6 +42,12 @@ class AdminServiceTest {
     @Mock
     private PasswordResetTokenRepository passwordResetTokenRepository;
 
+    @Mock
+    private BlobReferences blobReferences;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AdminService adminService;
 
@@ -68,6 +79,7 @@ class AdminServiceTest {
         User user = new User();
         user.setId(id);
         user.setEmail(email);
+        user.setSupabaseUserId("supabase-" + email.substring(0, email.indexOf('@')));
         user.setRole(User.Role.STUDENT);
         user.setStatus(status);
         user.setCreatedAt(LocalDateTime.now());
@@ -121,19 +133,20 @@ class AdminServiceTest {
     }
 
     @Test
-    void getEnrolledStudents_ReturnsListOfApprovedStudents() {
+    void getEnrolledStudentsPage_ReturnsListOfApprovedStudents() {
         // Arrange
         List<User> approvedUsers = Arrays.asList(approvedStudent);
-        when(userRepository.findByRoleAndStatus(User.Role.STUDENT, User.RegistrationStatus.APPROVED))
+        when(userRepository.findFirstPageWithProfile(eq(User.Role.STUDENT), eq(User.RegistrationStatus.APPROVED), any(Limit.class)))
             .thenReturn(approvedUsers);
 
         // Act
-        List<EnrolledStudentDTO> result = adminService.getEnrolledStudents();
+        CursorPage<EnrolledStudentDTO> result = adminService.getEnrolledStudentsPage(null, 10);
 
         // Assert
         assertNotNull(result);
-        assertEquals(1, result.size());
-        EnrolledStudentDTO dto = result.get(0);
+        assertEquals(1, result.getItems().size());
+        assertNull(result.getNextCursor());
+        EnrolledStudentDTO dto = result.getItems().get(0);
         assertEquals(approvedStudent.getId(), dto.getId());
         assertEquals(approvedStudent.getEmail(), dto.getEmail());
         assertEquals("Approved Student", dto.getFullName());
@@ -141,26 +154,36 @@ class AdminServiceTest {
     }
 
     @Test
-    void getEnrolledStudents_SortsByClassGrade() {
+    void getEnrolledStudentsPage_ContinuesAfterCursorKeyedOnClassGradeAndId() {
         // Arrange
-        User student1 = createStudent(1L, "s1@test.com", "Student 1", 
-                                     User.RegistrationStatus.APPROVED, 10);
-        User student2 = createStudent(2L, "s2@test.com", "Student 2",
+        User student1 = createStudent(1L, "s1@test.com", "Student 1",
                                      User.RegistrationStatus.APPROVED, 6);
-        User student3 = createStudent(3L, "s3@test.com", "Student 3",
+        User student2 = createStudent(2L, "s2@test.com", "Student 2",
                                      User.RegistrationStatus.APPROVED, 8);
+        User student3 = createStudent(3L, "s3@test.com", "Student 3",
+                                     User.RegistrationStatus.APPROVED, 10);
 
-        when(userRepository.findByRoleAndStatus(User.Role.STUDENT, User.RegistrationStatus.APPROVED))
+        when(userRepository.findFirstPageWithProfile(eq(User.Role.STUDENT), eq(User.RegistrationStatus.APPROVED), eq(Limit.of(3))))
             .thenReturn(Arrays.asList(student1, student2, student3));
+        when(userRepository.findPageWithProfileAfter(User.Role.STUDENT, User.RegistrationStatus.APPROVED, 8, 2L, Limit.of(3)))
+            .thenReturn(Arrays.asList(student3));
 
         // Act
-        List<EnrolledStudentDTO> result = adminService.getEnrolledStudents();
+        CursorPage<EnrolledStudentDTO> first = adminService.getEnrolledStudentsPage(null, 2);
+        CursorPage<EnrolledStudentDTO> second = adminService.getEnrolledStudentsPage(first.getNextCursor(), 2);
 
         // Assert
-        assertEquals(3, result.size());
-        assertEquals(6, result.get(0).getClassGrade());
-        assertEquals(8, result.get(1).getClassGrade());
-        assertEquals(10, result.get(2).getClassGrade());
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertEquals(10, second.getItems().get(0).getClassGrade());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getEnrolledStudentsPage_InvalidCursor_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> adminService.getEnrolledStudentsPage("not-a-cursor", 10));
     }
 
     @Test
@@ -196,6 +219,7 @@ class AdminServiceTest {
         assertEquals(User.RegistrationStatus.APPROVED, pendingStudent.getStatus());
         verify(userRepository).findById(1L);
         verify(userRepository).save(pendingStudent);
+        verify(eventPublisher).publishEvent(new UserChangedEvent("supabase-pending"));
     }
 
     @Test
@@ -0,0 +1,446 @@
+package org.student.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.student.cache.ClassResponseCache;
+import org.student.cache.ClassScope;
+import org.student.cache.ClassVersions;
+import org.student.cache.ResponseStamp;
+import org.student.dto.AssignmentDTO;
+import org.student.dto.BatchGradeResponse;
+import org.student.dto.GradebookDTO;
+import org.student.dto.GradebookRow;
+import org.student.dto.GradeSubmissionRequest;
+import org.student.dto.SubmissionDTO;
+import org.student.dto.SubmissionStatusDTO;
+import org.student.dto.SubmitAssignmentRequest;
+import org.student.entity.Assignment;
+import org.student.entity.AssignmentSubmission;
+import org.student.entity.StudentProfile;
+import org.student.entity.User;
+import org.student.event.ClassDataChangedEvent;
+import org.student.repository.AssignmentRepository;
+import org.student.repository.AssignmentSubmissionRepository;
+import org.student.repository.ClassVersionRepository;
+import org.student.repository.UserRepository;
+import org.student.storage.BlobReferences;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AssignmentServiceTest {
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private AssignmentSubmissionRepository submissionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private LateSubmissionService lateSubmissionService;
+
+    @Mock
+    private BlobReferences blobReferences;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ClassVersions classVersions = new ClassVersions(mock(ClassVersionRepository.class));
+
+    @Spy
+    private ClassResponseCache responseCache =
+        new ClassResponseCache(classVersions, new ObjectMapper().findAndRegisterModules(), 100, 600);
+
+    @InjectMocks
+    private AssignmentService assignmentService;
+
+    private List<AssignmentDTO> getAssignmentsByClass(Integer classGrade, Long studentId) throws Exception {
+        byte[] json = assignmentService.getAssignmentsByClassJson(classGrade, studentId);
+        return new ObjectMapper().findAndRegisterModules().readValue(json, new TypeReference<List<AssignmentDTO>>() { });
+    }
+
+    private Assignment createAssignment(Long id, Integer classGrade) {
+        Assignment assignment = new Assignment();
+        assignment.setId(id);
+        assignment.setTitle("Assignment " + id);
+        assignment.setClassGrade(classGrade);
+        assignment.setDueDate(LocalDateTime.now().plusDays(id));
+        assignment.setTotalMarks(20);
+        assignment.setStatus(Assignment.AssignmentStatus.PUBLISHED);
+        assignment.setCreatedBy(1L);
+        return assignment;
+    }
+
+    @Test
+    void getAssignmentsByClass_Student_UsesConstantNumberOfQueries() throws Exception {
+        // Arrange
+        List<Assignment> assignments = new ArrayList<>();
+        for (long id = 1; id <= 80; id++) {
+            assignments.add(createAssignment(id, 8));
+        }
+        when(assignmentRepository.findByClassGradeAndStatusOrderByDueDateDesc(8, Assignment.AssignmentStatus.PUBLISHED))
+            .thenReturn(assignments);
+        when(submissionRepository.findStatusesByStudentAndClass(42L, 8, Assignment.AssignmentStatus.PUBLISHED))
+            .thenReturn(List.of(
+                new SubmissionStatusDTO(1L, AssignmentSubmission.SubmissionStatus.SUBMITTED),
+                new SubmissionStatusDTO(2L, AssignmentSubmission.SubmissionStatus.GRADED)
+            ));
+
+        // Act
+        List<AssignmentDTO> result = getAssignmentsByClass(8, 42L);
+
+        // Assert
+        assertEquals(80, result.size());
+        assertTrue(result.get(0).getHasSubmitted());
+        assertFalse(result.get(0).getIsGraded());
+        assertTrue(result.get(1).getHasSubmitted());
+        assertTrue(result.get(1).getIsGraded());
+        assertFalse(result.get(2).getHasSubmitted());
+        assertFalse(result.get(2).getIsGraded());
+
+        verify(assignmentRepository, times(1)).findByClassGradeAndStatusOrderByDueDateDesc(any(), any());
+        verify(submissionRepository, times(1)).findStatusesByStudentAndClass(any(), any(), any());
+        verify(submissionRepository, never()).findByAssignmentIdAndStudentId(anyLong(), anyLong());
+    }
+
+    @Test
+    void getAssignmentsByClass_Teacher_SkipsSubmissionLookup() throws Exception {
+        // Arrange
+        when(assignmentRepository.findByClassGradeAndStatusOrderByDueDateDesc(8, Assignment.AssignmentStatus.PUBLISHED))
+            .thenReturn(List.of(createAssignment(1L, 8)));
+
+        // Act
+        List<AssignmentDTO> result = getAssignmentsByClass(8, null);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertFalse(result.get(0).getHasSubmitted());
+        verifyNoInteractions(submissionRepository);
+    }
+
+    @Test
+    void getSubmissionsByAssignment_UsesSingleJoinedQuery() {
+        // Arrange
+        List<SubmissionDTO> submissions = new ArrayList<>();
+        for (long studentId = 1; studentId <= 60; studentId++) {
+            submissions.add(new SubmissionDTO(studentId, 7L, studentId, "Student " + studentId,
+                "student" + studentId + "@test.com", "Answer", null, LocalDateTime.now(),
+                AssignmentSubmission.SubmissionStatus.SUBMITTED, false, null, null));
+        }
+        when(submissionRepository.findSubmissionDTOsByAssignmentId(7L)).thenReturn(submissions);
+
+        // Act
+        List<SubmissionDTO> result = assignmentService.getSubmissionsByAssignment(7L);
+
+        // Assert
+        assertEquals(60, result.size());
+        assertEquals("Student 1", result.get(0).getStudentName());
+        verify(submissionRepository, times(1)).findSubmissionDTOsByAssignmentId(7L);
+        verifyNoInteractions(userRepository);
+    }
+
+    private User createStudent(Long id, String name) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(name.toLowerCase().replace(' ', '.') + "@test.com");
+        StudentProfile profile = new StudentProfile();
+        profile.setFullName(name);
+        profile.setClassGrade(8);
+        user.setStudentProfile(profile);
+        return user;
+    }
+
+    private GradebookRow createRow(Long submissionId, Long assignmentId, Long studentId, String studentName) {
+        return new GradebookRow(submissionId, assignmentId, studentId, studentName, "s" + studentId + "@test.com",
+            AssignmentSubmission.SubmissionStatus.GRADED, 15, true, LocalDateTime.now(), null, true, "Answer");
+    }
+
+    @Test
+    void getGradebook_FullLoad_BuildsColumnsFromSetBasedQueries() {
+        // Arrange
+        when(assignmentRepository.findByClassGradeAndStatusOrderByDueDateDesc(8, Assignment.AssignmentStatus.PUBLISHED))
+            .thenReturn(List.of(createAssignment(1L, 8), createAssignment(2L, 8)));
+        when(userRepository.findClassRosterWithProfile(8, User.Role.STUDENT, User.RegistrationStatus.APPROVED))
+            .thenReturn(List.of(createStudent(10L, "Asha"), createStudent(11L, "Ravi")));
+        when(submissionRepository.findGradebookRows(eq(8), eq(Assignment.AssignmentStatus.PUBLISHED), any(), anyInt()))
+            .thenReturn(List.of(createRow(100L, 1L, 10L, "Asha"), createRow(101L, 2L, 12L, "Moved Student")));
+
+        // Act
+        GradebookDTO gradebook = assignmentService.getGradebook(8, null);
+
+        // Assert
+        assertFalse(gradebook.isIncremental());
+        assertNotNull(gradebook.getAsOf());
+        assertEquals(List.of(1L, 2L), gradebook.getAssignments().getId());
+        assertEquals(List.of(10L, 11L, 12L), gradebook.getStudents().getId());
+        assertEquals(List.of("Asha", "Ravi", "Moved Student"), gradebook.getStudents().getName());
+        assertEquals(List.of(100L, 101L), gradebook.getSubmissions().getId());
+        assertEquals(List.of("GRADED", "GRADED"), gradebook.getSubmissions().getStatus());
+        assertEquals(List.of(15, 15), gradebook.getSubmissions().getMarks());
+        assertEquals(List.of(true, true), gradebook.getSubmissions().getLate());
+        verify(submissionRepository, times(1)).findGradebookRows(eq(8), any(), any(), anyInt());
+        verify(submissionRepository, never()).findSubmissionDTOsByAssignmentId(anyLong());
+    }
+
+    @Test
+    void getGradebook_Since_ReturnsOnlyChangedRowsWithoutRoster() {
+        // Arrange
+        LocalDateTime since = LocalDateTime.of(2024, 5, 1, 10, 0);
+        when(assignmentRepository.findByClassGradeAndStatusOrderByDueDateDesc(8, Assignment.AssignmentStatus.PUBLISHED))
+            .thenReturn(List.of(createAssignment(1L, 8)));
+        when(submissionRepository.findGradebookRows(eq(8), eq(Assignment.AssignmentStatus.PUBLISHED), any(), anyInt()))
+            .thenReturn(List.of(createRow(100L, 1L, 10L, "Asha")));
+
+        // Act
+        GradebookDTO gradebook = assignmentService.getGradebook(8, since);
+
+        // Assert
+        assertTrue(gradebook.isIncremental());
+        assertEquals(List.of(10L), gradebook.getStudents().getId());
+        assertEquals(List.of(100L), gradebook.getSubmissions().getId());
+        verify(submissionRepository).findGradebookRows(eq(8), eq(Assignment.AssignmentStatus.PUBLISHED),
+            eq(since.minusSeconds(5)), anyInt());
+        verify(userRepository, never()).findClassRosterWithProfile(any(), any(), any());
+    }
+
+    @Test
+    void submitAssignment_AlreadySubmitted_ReportedFromInsertConflict() {
+        // Arrange
+        when(assignmentRepository.findById(1L)).thenReturn(Optional.of(createAssignment(1L, 8)));
+        when(submissionRepository.insertIfAbsent(eq(1L), eq(42L), any(), any(), any(), eq("SUBMITTED"), eq(false)))
+            .thenReturn(Optional.empty());
+        SubmitAssignmentRequest request = new SubmitAssignmentRequest();
+        request.setAssignmentId(1L);
+        request.setSubmissionText("Answer");
+        request.setAttachmentUrl("https://storage.test/blobs/ab/ab12.pdf");
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> assignmentService.submitAssignment(request, 42L));
+        assertEquals("Assignment already submitted", exception.getMessage());
+        verify(submissionRepository, never()).findByAssignmentIdAndStudentId(anyLong(), anyLong());
+        verify(submissionRepository, never()).save(any());
+        verify(blobReferences, never()).retain(any());
+    }
+
+    @Test
+    void submitAssignment_ConcurrentSubmits_CreateOneSubmissionPerStudent() throws Exception {
+        // Arrange: the repository behaves like the unique (assignment_id, student_id) constraint
+        int students = 100;
+        int attemptsPerStudent = 3;
+        Set<Long> inserted = ConcurrentHashMap.newKeySet();
+        AtomicLong ids = new AtomicLong();
+        when(assignmentRepository.findById(1L)).thenReturn(Optional.of(createAssignment(1L, 8)));
+        when(submissionRepository.insertIfAbsent(eq(1L), anyLong(), any(), any(), any(), any(), anyBoolean()))
+            .thenAnswer(invocation -> inserted.add(invocation.getArgument(1))
+                ? Optional.of(ids.incrementAndGet())
+                : Optional.empty());
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (long studentId = 1; studentId <= students; studentId++) {
+            for (int attempt = 0; attempt < attemptsPerStudent; attempt++) {
+                long id = studentId;
+                results.add(executor.submit(() -> {
+                    SubmitAssignmentRequest request = new SubmitAssignmentRequest();
+                    request.setAssignmentId(1L);
+                    request.setSubmissionText("Answer");
+                    start.await();
+                    try {
+                        assignmentService.submitAssignment(request, id);
+                        return true;
+                    } catch (IllegalStateException e) {
+                        return false;
+                    }
+                }));
+            }
+        }
+
+        // Act
+        start.countDown();
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                accepted++;
+            }
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(students, accepted);
+        assertEquals(students, inserted.size());
+        verify(submissionRepository, never()).findByAssignmentIdAndStudentId(anyLong(), anyLong());
+    }
+
+    private AssignmentSubmission createSubmission(Long id, Long assignmentId) {
+        AssignmentSubmission submission = new AssignmentSubmission();
+        submission.setId(id);
+        submission.setAssignmentId(assignmentId);
+        submission.setStudentId(100L + id);
+        submission.setStatus(AssignmentSubmission.SubmissionStatus.SUBMITTED);
+        submission.setIsLate(false);
+        return submission;
+    }
+
+    @Test
+    void gradeSubmissions_AppliesValidItemsAndReportsInvalidOnes() {
+        // Arrange
+        AssignmentSubmission first = createSubmission(1L, 7L);
+        AssignmentSubmission second = createSubmission(2L, 7L);
+        AssignmentSubmission otherAssignment = createSubmission(3L, 8L);
+        when(assignmentRepository.findById(7L)).thenReturn(Optional.of(createAssignment(7L, 8)));
+        when(submissionRepository.findAllById(any())).thenReturn(List.of(first, second, otherAssignment));
+
+        List<GradeSubmissionRequest> grades = List.of(
+            new GradeSubmissionRequest(1L, 18, "Well done"),
+            new GradeSubmissionRequest(2L, 25, null),
+            new GradeSubmissionRequest(3L, 10, null),
+            new GradeSubmissionRequest(99L, 10, null),
+            new GradeSubmissionRequest(1L, 5, null)
+        );
+
+        // Act
+        BatchGradeResponse response = assignmentService.gradeSubmissions(7L, grades);
+
+        // Assert
+        assertEquals(1, response.getGraded());
+        assertEquals(4, response.getFailed());
+        assertTrue(response.getResults().get(0).isSuccess());
+        assertEquals("Marks obtained (25) cannot exceed total marks (20)", response.getResults().get(1).getMessage());
+        assertEquals("Submission not found for this assignment", response.getResults().get(2).getMessage());
+        assertEquals("Submission not found for this assignment", response.getResults().get(3).getMessage());
+        assertEquals("Submission appears more than once in this batch", response.getResults().get(4).getMessage());
+
+        assertEquals(18, first.getMarksObtained());
+        assertEquals(AssignmentSubmission.SubmissionStatus.GRADED, first.getStatus());
+        assertNull(second.getMarksObtained());
+        verify(assignmentRepository, times(1)).findById(7L);
+        verify(submissionRepository, times(1)).findAllById(any());
+        verify(submissionRepository).saveAll(List.of(first));
+        verify(submissionRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getAssignmentsByClass_SharesClassPayloadAcrossStudentsUntilVersionBump() throws Exception {
+        // Arrange
+        when(assignmentRepository.findByClassGradeAndStatusOrderByDueDateDesc(8, Assignment.AssignmentStatus.PUBLISHED))
+            .thenReturn(List.of(createAssignment(1L, 8), createAssignment(2L, 8)));
+        when(submissionRepository.findStatusesByStudentAndClass(anyLong(), eq(8), any()))
+            .thenAnswer(invocation -> invocation.getArgument(0).equals(42L)
+                ? List.of(new SubmissionStatusDTO(1L, AssignmentSubmission.SubmissionStatus.GRADED))
+                : List.of());
+
+        // Act
+        List<AssignmentDTO> first = getAssignmentsByClass(8, 42L);
+        List<AssignmentDTO> second = getAssignmentsByClass(8, 43L);
+        getAssignmentsByClass(8, 42L);
+
+        // Assert: one class load, one status load per student, flags differ per student
+        assertTrue(first.get(0).getIsGraded());
+        assertFalse(second.get(0).getHasSubmitted());
+        assertEquals("Assignment 1", second.get(0).getTitle());
+        verify(assignmentRepository, times(1)).findByClassGradeAndStatusOrderByDueDateDesc(any(), any());
+        verify(submissionRepository, times(2)).findStatusesByStudentAndClass(anyLong(), any(), any());
+
+        // A write to the class invalidates the shared payload, a submission only that student's flags
+        classVersions.bump(ClassScope.ASSIGNMENTS, 8);
+        classVersions.bumpStudent(42L);
+        getAssignmentsByClass(8, 43L);
+        getAssignmentsByClass(8, 42L);
+        verify(assignmentRepository, times(2)).findByClassGradeAndStatusOrderByDueDateDesc(any(), any());
+        verify(submissionRepository, times(3)).findStatusesByStudentAndClass(anyLong(), any(), any());
+    }
+
+    @Test
+    void getAssignmentsByClass_OverdueFlagIsComputedPerRequest() throws Exception {
+        // Arrange
+        Assignment pastDue = createAssignment(1L, 8);
+        pastDue.setDueDate(LocalDateTime.now().minusDays(1));
+        when(assignmentRepository.findByClassGradeAndStatusOrderByDueDateDesc(8, Assignment.AssignmentStatus.PUBLISHED))
+            .thenReturn(List.of(pastDue, createAssignment(2L, 8)));
+
+        // Act
+        List<AssignmentDTO> result = getAssignmentsByClass(8, null);
+
+        // Assert
+        assertTrue(result.get(0).getIsOverdue());
+        assertFalse(result.get(1).getIsOverdue());
+        assertEquals(20, result.get(0).getTotalMarks());
+    }
+
+    @Test
+    void getAssignmentsStamp_ChangesWithVersionsAndReusesCachedAssignments() {
+        // Arrange
+        Assignment pastDue = createAssignment(1L, 8);
+        pastDue.setDueDate(LocalDateTime.now().minusDays(1));
+        when(assignmentRepository.findByClassGradeAndStatusOrderByDueDateDesc(8, Assignment.AssignmentStatus.PUBLISHED))
+            .thenReturn(List.of(pastDue, createAssignment(2L, 8)));
+
+        // Act
+        ResponseStamp first = assignmentService.getAssignmentsStamp(8, 42L);
+        ResponseStamp repeated = assignmentService.getAssignmentsStamp(8, 42L);
+        ResponseStamp otherStudent = assignmentService.getAssignmentsStamp(8, 43L);
+        classVersions.bumpStudent(42L);
+        ResponseStamp afterSubmit = assignmentService.getAssignmentsStamp(8, 42L);
+
+        // Assert: the tag counts the passed due date, only the student's own bump changes it,
+        // and the class assignments are loaded once for all of it
+        assertEquals(first.getEtag(), repeated.getEtag());
+        assertTrue(first.getEtag().endsWith("-o1"));
+        assertNotEquals(first.getEtag(), otherStudent.getEtag());
+        assertNotEquals(first.getEtag(), afterSubmit.getEtag());
+        assertEquals(otherStudent.getEtag(), assignmentService.getAssignmentsStamp(8, 43L).getEtag());
+        verify(assignmentRepository, times(1)).findByClassGradeAndStatusOrderByDueDateDesc(any(), any());
+        verifyNoInteractions(submissionRepository);
+    }
+
+    @Test
+    void deleteAssignment_PublishesClassChangeAndReleasesAttachments() {
+        // Arrange
+        Assignment assignment = createAssignment(5L, 9);
+        assignment.setAttachmentUrl("https://storage.test/blobs/ab/ab12.pdf");
+        when(assignmentRepository.findById(5L)).thenReturn(Optional.of(assignment));
+        when(submissionRepository.findAttachmentUrlsByAssignmentId(5L)).thenReturn(List.of(
+            "https://storage.test/blobs/cd/cd34.pdf", "https://storage.test/blobs/ef/ef56.pdf"));
+
+        // Act
+        assignmentService.deleteAssignment(5L);
+
+        // Assert
+        verify(eventPublisher).publishEvent(new ClassDataChangedEvent(ClassScope.ASSIGNMENTS, 9));
+        verify(blobReferences).release("https://storage.test/blobs/ab/ab12.pdf");
+        verify(blobReferences).release("https://storage.test/blobs/cd/cd34.pdf");
+        verify(blobReferences).release("https://storage.test/blobs/ef/ef56.pdf");
+    }
+}
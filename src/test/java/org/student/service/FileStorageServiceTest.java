@@ -0,0 +1,268 @@
+package org.student.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.multipart.MultipartFile;
+import org.student.entity.StoredBlob;
+import org.student.http.OutboundHttpClient;
+import org.student.repository.StoredBlobRepository;
+import org.student.storage.SupabaseStorageBackend;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Uploads against a local stand-in for Supabase Storage that accepts every request and
+ * discards the body.
+ */
+class FileStorageServiceTest {
+
+    private static final int CONCURRENT_UPLOADS = 50;
+    private static final long FILE_SIZE = 10 * 1024 * 1024;
+
+    private HttpServer storage;
+    private ExecutorService storageThreads;
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final List<String> contentLengths = new ArrayList<>();
+    private volatile CyclicBarrier allConnected = new CyclicBarrier(1);
+
+    private StoredBlobRepository blobRepository;
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageThreads = Executors.newFixedThreadPool(CONCURRENT_UPLOADS);
+        storage = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), CONCURRENT_UPLOADS);
+        storage.setExecutor(storageThreads);
+        storage.createContext("/storage/v1/object/", exchange -> {
+            synchronized (contentLengths) {
+                contentLengths.add(exchange.getRequestHeaders().getFirst("Content-Length"));
+            }
+            // Hold every upload open until all of them are in flight, so they overlap in memory
+            try {
+                allConnected.await(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IOException("Uploads did not overlap", e);
+            }
+            try (InputStream body = exchange.getRequestBody()) {
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    bytesReceived.addAndGet(read);
+                }
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        storage.start();
+
+        blobRepository = mock(StoredBlobRepository.class);
+        fileStorageService = new FileStorageService(
+            new SupabaseStorageBackend("http://127.0.0.1:" + storage.getAddress().getPort(), "test-key",
+                new OutboundHttpClient(new MockEnvironment()
+                    .withProperty("outbound-http.destinations.supabase.max-concurrent", String.valueOf(CONCURRENT_UPLOADS))
+                    .withProperty("outbound-http.destinations.supabase.request-timeout-seconds", "120"),
+                    new SimpleMeterRegistry())),
+            blobRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.stop(0);
+        storageThreads.shutdownNow();
+    }
+
+    @Test
+    void uploadFile_SendsExactContentLengthWithoutReadingWholeFile() throws IOException {
+        String url = fileStorageService.uploadFile(new GeneratedPdf(FILE_SIZE));
+
+        assertTrue(url.contains("/storage/v1/object/public/assignments/blobs/"));
+        assertEquals(FILE_SIZE, bytesReceived.get());
+        assertEquals(List.of(String.valueOf(FILE_SIZE)), contentLengths);
+    }
+
+    @Test
+    void uploadFile_RepeatUpload_ReturnsStoredBlobWithoutTransfer() throws Exception {
+        // The repository remembers what was inserted, like the stored_blobs table
+        Map<String, StoredBlob> blobs = new ConcurrentHashMap<>();
+        when(blobRepository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(blobs.get(inv.getArgument(0))));
+        when(blobRepository.insertIfAbsent(anyString(), anyString(), anyString(), anyLong(), anyString(), any()))
+            .thenAnswer(inv -> {
+                blobs.putIfAbsent(inv.getArgument(0), new StoredBlob(inv.getArgument(0), inv.getArgument(1),
+                    inv.getArgument(2), inv.getArgument(3), inv.getArgument(4), 0, inv.getArgument(5), inv.getArgument(5)));
+                return 1;
+            });
+        when(blobRepository.touch(anyString(), any())).thenAnswer(inv -> blobs.containsKey(inv.getArgument(0)) ? 1 : 0);
+
+        String first = fileStorageService.uploadFile(new GeneratedPdf(FILE_SIZE));
+        String second = fileStorageService.uploadFile(new GeneratedPdf(FILE_SIZE));
+
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+            .digest(new GeneratedPdf(FILE_SIZE).getInputStream().readAllBytes()));
+        assertEquals(first, second);
+        assertTrue(first.matches(".*/blobs/" + sha256.substring(0, 2) + "/" + sha256 + "-[0-9a-f]{8}\\.pdf"));
+        assertEquals(1, contentLengths.size());
+        assertEquals(FILE_SIZE, bytesReceived.get());
+    }
+
+    @Test
+    void uploadFile_AfterBlobRowRemoved_StoresUnderNewKey() throws Exception {
+        // The collector dropped the row and may still be deleting the first copy's file
+        when(blobRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        String first = fileStorageService.uploadFile(new GeneratedPdf(FILE_SIZE));
+        String second = fileStorageService.uploadFile(new GeneratedPdf(FILE_SIZE));
+
+        assertNotEquals(first, second);
+        assertEquals(2, contentLengths.size());
+    }
+
+    @Test
+    void uploadFile_ConcurrentLargeUploads_KeepPeakHeapBounded() throws Exception {
+        allConnected = new CyclicBarrier(CONCURRENT_UPLOADS);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+
+        // Live heap is sampled after a GC, so short-lived read buffers do not count,
+        // but a whole file held per upload would (50 x 10MB = 500MB)
+        AtomicBoolean uploading = new AtomicBoolean(true);
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = new Thread(() -> {
+            while (uploading.get()) {
+                System.gc();
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+
+        ExecutorService uploaders = Executors.newFixedThreadPool(CONCURRENT_UPLOADS);
+        try {
+            List<Future<String>> uploads = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_UPLOADS; i++) {
+                uploads.add(uploaders.submit(() -> fileStorageService.uploadFile(new GeneratedPdf(FILE_SIZE))));
+            }
+            for (Future<String> upload : uploads) {
+                assertNotNull(upload.get(2, TimeUnit.MINUTES));
+            }
+        } finally {
+            uploading.set(false);
+            sampler.join();
+            uploaders.shutdownNow();
+        }
+
+        long peakIncreaseMb = (peak.get() - baseline) / (1024 * 1024);
+        assertEquals(CONCURRENT_UPLOADS * FILE_SIZE, bytesReceived.get());
+        assertTrue(peakIncreaseMb < 100, "Peak live heap grew by " + peakIncreaseMb + "MB during uploads");
+    }
+
+    /**
+     * A PDF part whose content is generated while it is read; getBytes() is unsupported so any
+     * upload path that buffers the whole file fails outright.
+     */
+    private static class GeneratedPdf implements MultipartFile {
+
+        private final long size;
+
+        GeneratedPdf(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return "answers.pdf";
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/pdf";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            throw new UnsupportedOperationException("Upload must stream the file");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private long remaining = size;
+
+                @Override
+                public int read() {
+                    if (remaining == 0) {
+                        return -1;
+                    }
+                    remaining--;
+                    return 'x';
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (remaining == 0) {
+                        return -1;
+                    }
+                    int n = (int) Math.min(len, remaining);
+                    Arrays.fill(b, off, off + n, (byte) 'x');
+                    remaining -= n;
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
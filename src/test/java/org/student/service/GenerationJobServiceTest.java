@@ -0,0 +1,151 @@
+package org.student.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.student.dto.GenerateAssignmentRequest;
+import org.student.dto.GenerationJobDTO;
+import org.student.exception.RateLimitedException;
+import org.student.exception.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The queue with no worker threads: each test runs jobs one at a time with runNext().
+ */
+class GenerationJobServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> generatedTopics = new CopyOnWriteArrayList<>();
+    private AIAssignmentGeneratorService generatorService;
+    private GenerationJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        generatorService = mock(AIAssignmentGeneratorService.class);
+        when(generatorService.generateAssignment(any(), anyBoolean())).thenAnswer(call -> {
+            String topic = call.<GenerateAssignmentRequest>getArgument(0).getTopic();
+            generatedTopics.add(topic);
+            return new AIAssignmentGeneratorService.Generation("Questions on " + topic, false);
+        });
+        jobService = new GenerationJobService(generatorService, meterRegistry, 0, 10, 3, 2, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    private static GenerateAssignmentRequest request(String topic) {
+        return new GenerateAssignmentRequest(8, topic, 2, 1, 0, 0, "EASY", null);
+    }
+
+    private void runAll() {
+        while (jobService.runNext()) {
+            // Run until the queue is empty
+        }
+    }
+
+    @Test
+    void runNext_TakesTeachersInTurn() {
+        jobService.submit(1L, request("A1"), false);
+        jobService.submit(1L, request("A2"), false);
+        jobService.submit(1L, request("A3"), false);
+        jobService.submit(2L, request("B1"), false);
+
+        runAll();
+
+        assertEquals(List.of("A1", "B1", "A2", "A3"), generatedTopics);
+        assertEquals(0, jobService.queuedJobs());
+    }
+
+    @Test
+    void submit_TooManyWaiting_RejectsOnlyThatTeacher() {
+        for (int i = 0; i < 3; i++) {
+            jobService.submit(1L, request("A" + i), false);
+        }
+
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit(1L, request("A3"), false));
+        assertDoesNotThrow(() -> jobService.submit(2L, request("B1"), false));
+    }
+
+    @Test
+    void runNext_Succeeded_CompletesResultAndKeepsJob() throws Exception {
+        GenerationJobService.GenerationJob job = jobService.submit(1L, request("Fractions"), false);
+
+        runAll();
+
+        assertEquals("Questions on Fractions", job.result().get().content());
+        GenerationJobDTO finished = jobService.getJob(job.getId(), 1L);
+        assertEquals("SUCCEEDED", finished.getStatus());
+        assertEquals("Questions on Fractions", finished.getContent());
+        assertEquals(1, finished.getAttempts());
+        assertNotNull(finished.getFinishedAt());
+    }
+
+    @Test
+    void runNext_RateLimited_WaitsOutRetryAfterThenRetries() throws Exception {
+        doThrow(new RateLimitedException("Groq API rate limit reached", Duration.ofMillis(200)))
+            .doReturn(new AIAssignmentGeneratorService.Generation("Questions", false))
+            .when(generatorService).generateAssignment(any(), anyBoolean());
+        GenerationJobService.GenerationJob job = jobService.submit(1L, request("Fractions"), false);
+        jobService.submit(2L, request("Decimals"), false);
+
+        assertTrue(jobService.runNext());
+
+        // Back in the queue, and nobody's job runs until the limit has passed
+        assertEquals("QUEUED", jobService.getJob(job.getId(), 1L).getStatus());
+        assertFalse(jobService.runNext());
+        Thread.sleep(300);
+        assertTrue(jobService.runNext());
+
+        assertEquals("Questions", job.result().get().content());
+        assertEquals(2, jobService.getJob(job.getId(), 1L).getAttempts());
+        assertEquals(1, meterRegistry.get("ai.generation.jobs.rate-limited").counter().count());
+    }
+
+    @Test
+    void runNext_RateLimitedEveryAttempt_FailsJob() {
+        doThrow(new RateLimitedException("Groq API rate limit reached", Duration.ZERO))
+            .when(generatorService).generateAssignment(any(), anyBoolean());
+        GenerationJobService.GenerationJob job = jobService.submit(1L, request("Fractions"), false);
+
+        runAll();
+
+        GenerationJobDTO failed = jobService.getJob(job.getId(), 1L);
+        assertEquals("FAILED", failed.getStatus());
+        assertEquals(2, failed.getAttempts());
+        assertTrue(failed.getError().contains("rate limiting"));
+        assertThrows(ExecutionException.class, () -> job.result().get());
+    }
+
+    @Test
+    void subscribe_ReceivesCurrentStateThenEveryChange() {
+        GenerationJobService.GenerationJob job = jobService.submit(1L, request("Fractions"), false);
+        List<String> statuses = new CopyOnWriteArrayList<>();
+        jobService.subscribe(job.getId(), 1L, update -> statuses.add(update.getStatus()));
+
+        runAll();
+
+        assertEquals(List.of("QUEUED", "RUNNING", "SUCCEEDED"), statuses);
+    }
+
+    @Test
+    void getJob_OtherTeachersJob_NotFound() {
+        GenerationJobService.GenerationJob job = jobService.submit(1L, request("Fractions"), false);
+
+        assertThrows(ResourceNotFoundException.class, () -> jobService.getJob(job.getId(), 2L));
+    }
+}
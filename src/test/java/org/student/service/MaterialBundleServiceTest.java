@@ -0,0 +1,141 @@
+package org.student.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.student.cache.ClassScope;
+import org.student.cache.ClassVersions;
+import org.student.entity.LearningMaterial;
+import org.student.event.ClassDataChangedEvent;
+import org.student.repository.ClassVersionRepository;
+import org.student.repository.LearningMaterialRepository;
+import org.student.storage.LocalStorageBackend;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MaterialBundleServiceTest {
+
+    private static final String PUBLIC_URL = "http://localhost:8080/files";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private LearningMaterialRepository materialRepository;
+
+    private LocalStorageBackend storage;
+    private ClassVersions classVersions;
+    private MaterialBundleService bundleService;
+    private final List<LearningMaterial> grade8 = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new LocalStorageBackend(tempDir.resolve("storage"), PUBLIC_URL);
+        classVersions = new ClassVersions(mock(ClassVersionRepository.class));
+        // Direct executor: each rebuild completes before the call that scheduled it returns
+        bundleService = new MaterialBundleService(materialRepository, storage, classVersions,
+            tempDir.resolve("bundles").toString(), Runnable::run);
+    }
+
+    private void addMaterial(long id, String fileName, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String url = storage.store("blobs/" + id + "/" + id + ".pdf", new ByteArrayInputStream(bytes), bytes.length,
+            "application/pdf");
+        addMaterialWithUrl(id, fileName, url);
+    }
+
+    private void addMaterialWithUrl(long id, String fileName, String url) {
+        LearningMaterial material = new LearningMaterial();
+        material.setId(id);
+        material.setClassGrade(8);
+        material.setFileName(fileName);
+        material.setFileUrl(url);
+        grade8.add(material);
+        when(materialRepository.findByClassGradeOrderByUploadedAtDesc(8)).thenReturn(List.copyOf(grade8));
+    }
+
+    private static Map<String, String> unzip(Path file) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (InputStream in = Files.newInputStream(file); ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void getBundle_BuildsZipOfStoredMaterials() throws IOException {
+        addMaterial(1, "Worksheet.pdf", "fractions worksheet");
+        addMaterial(2, "worksheet.pdf", "decimals worksheet");
+        addMaterialWithUrl(3, "Video lesson", "https://youtube.com/watch?v=abc");
+        addMaterialWithUrl(4, "Lost.pdf", PUBLIC_URL + "/blobs/missing.pdf");
+
+        MaterialBundleService.MaterialBundle bundle = bundleService.getBundle(8).orElseThrow();
+
+        assertEquals(Map.of("Worksheet.pdf", "fractions worksheet", "worksheet (2).pdf", "decimals worksheet"),
+            unzip(bundle.file()));
+        assertTrue(bundle.etag().startsWith("bundle-"));
+        assertEquals("grade-8-v0.zip", bundle.file().getFileName().toString());
+    }
+
+    @Test
+    void onClassDataChanged_RebuildsAndRemovesPreviousFile() throws IOException {
+        addMaterial(1, "Worksheet.pdf", "fractions worksheet");
+        MaterialBundleService.MaterialBundle first = bundleService.getBundle(8).orElseThrow();
+
+        addMaterial(2, "Answers.pdf", "answer key");
+        classVersions.bump(ClassScope.LEARNING_MATERIALS, 8);
+        bundleService.onClassDataChanged(new ClassDataChangedEvent(ClassScope.LEARNING_MATERIALS, 8));
+        MaterialBundleService.MaterialBundle second = bundleService.getBundle(8).orElseThrow();
+
+        assertNotEquals(first.etag(), second.etag());
+        assertEquals(List.of("Worksheet.pdf", "Answers.pdf"), List.copyOf(unzip(second.file()).keySet()));
+        assertFalse(Files.exists(first.file()));
+    }
+
+    @Test
+    void onClassDataChanged_OtherScope_DoesNotRebuild() throws IOException {
+        addMaterial(1, "Worksheet.pdf", "fractions worksheet");
+        MaterialBundleService.MaterialBundle first = bundleService.getBundle(8).orElseThrow();
+
+        bundleService.onClassDataChanged(new ClassDataChangedEvent(ClassScope.ASSIGNMENTS, 8));
+
+        assertSame(first, bundleService.getBundle(8).orElseThrow());
+    }
+
+    @Test
+    void getBundle_AfterRestart_ReusesBundleForCurrentVersion() throws IOException {
+        addMaterial(1, "Worksheet.pdf", "fractions worksheet");
+        MaterialBundleService.MaterialBundle built = bundleService.getBundle(8).orElseThrow();
+
+        // A fresh instance over the same directory, with a storage backend that holds nothing
+        MaterialBundleService restarted = new MaterialBundleService(materialRepository,
+            new LocalStorageBackend(tempDir.resolve("empty"), PUBLIC_URL), classVersions,
+            tempDir.resolve("bundles").toString(), Runnable::run);
+
+        MaterialBundleService.MaterialBundle reused = restarted.getBundle(8).orElseThrow();
+        assertEquals(built.etag(), reused.etag());
+        assertEquals(Map.of("Worksheet.pdf", "fractions worksheet"), unzip(reused.file()));
+    }
+}
@@ -0,0 +1,179 @@
+package org.student.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.student.dto.GenerateAssignmentRequest;
+import org.student.entity.BankQuestion;
+import org.student.repository.BankQuestionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionBankServiceTest {
+
+    private static final String GENERATED = """
+        SECTION A: 1-Mark Questions
+        1. Simplify 3x + 2x.
+        2. Expand 2(a + 3).
+        3. Factorise 5y + 10.
+
+        SECTION C: 3-Mark Questions
+        4. Solve 2(x - 3) = 10 and check your answer.
+        """;
+
+    @Mock
+    private BankQuestionRepository repository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private QuestionBankService questionBank;
+
+    @BeforeEach
+    void setUp() {
+        questionBank = new QuestionBankService(repository, meterRegistry, Runnable::run);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storesAll() {
+        when(repository.saveAll(ArgumentMatchers.<Iterable<BankQuestion>>any())).thenAnswer(call -> {
+            List<BankQuestion> stored = new ArrayList<>();
+            ((Iterable<BankQuestion>) call.getArgument(0)).forEach(stored::add);
+            return stored;
+        });
+    }
+
+    private static GenerateAssignmentRequest request(int oneMark, int threeMark, String topic) {
+        return new GenerateAssignmentRequest(8, topic, oneMark, 0, threeMark, 0, "HARD", null);
+    }
+
+    @Test
+    void addGenerated_StoresEachQuestionOnce() {
+        storesAll();
+
+        assertEquals(4, questionBank.addGenerated(request(3, 1, "Algebra"), GENERATED));
+        assertEquals(0, questionBank.addGenerated(request(3, 1, " algebra "), GENERATED));
+
+        verify(repository, times(1)).saveAll(ArgumentMatchers.<Iterable<BankQuestion>>any());
+        verify(repository, never()).save(any(BankQuestion.class));
+        assertEquals(4.0, meterRegistry.get("question.bank.size").gauge().value());
+    }
+
+    @Test
+    void addGenerated_BatchConflicts_StoresTheRestOneByOne() {
+        when(repository.saveAll(ArgumentMatchers.<Iterable<BankQuestion>>any()))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(repository.save(any(BankQuestion.class))).thenAnswer(call -> {
+            BankQuestion question = call.getArgument(0);
+            if (question.getText().startsWith("Expand")) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return question;
+        });
+
+        assertEquals(3, questionBank.addGenerated(request(3, 1, "Algebra"), GENERATED));
+    }
+
+    @Test
+    void queueGenerated_RepositoryDown_DoesNotThrow() {
+        when(repository.saveAll(ArgumentMatchers.<Iterable<BankQuestion>>any()))
+            .thenThrow(new IllegalStateException("connection refused"));
+
+        assertDoesNotThrow(() -> questionBank.queueGenerated(request(3, 1, "Algebra"), GENERATED));
+        assertEquals(0.0, meterRegistry.get("question.bank.size").gauge().value());
+    }
+
+    @Test
+    void select_BankHasEnough_NoShortfall() {
+        storesAll();
+        questionBank.addGenerated(request(3, 1, "Algebra"), GENERATED);
+
+        QuestionBankService.Selection selection = questionBank.select(request(2, 1, "ALGEBRA"));
+        QuestionBankService.Assembled assembled = questionBank.assemble(selection, null);
+
+        assertNull(selection.shortfall());
+        assertEquals(3, assembled.fromBank());
+        assertEquals(0, assembled.generated());
+        assertTrue(assembled.content().startsWith("SECTION A: 1-Mark Questions\n\n1. "));
+        assertTrue(assembled.content().contains("SECTION C: 3-Mark Questions\n\n3. Solve 2(x - 3) = 10"));
+    }
+
+    @Test
+    void select_BankShort_AsksOnlyForTheRest() {
+        storesAll();
+        questionBank.addGenerated(request(3, 1, "Algebra"), GENERATED);
+
+        QuestionBankService.Selection selection = questionBank.select(request(5, 2, "Algebra"));
+
+        assertEquals(2, selection.shortfall().getOneMarkQuestions());
+        assertEquals(1, selection.shortfall().getThreeMarkQuestions());
+        assertEquals(0, selection.shortfall().getFiveMarkQuestions());
+
+        QuestionBankService.Assembled assembled = questionBank.assemble(selection, """
+            SECTION A: 1-Mark Questions
+            1. Simplify 9p - 4p.
+            2. Evaluate 3m when m = 4.
+            SECTION C: 3-Mark Questions
+            3. Solve 5x + 2 = 3x + 10.
+            """);
+
+        assertEquals(4, assembled.fromBank());
+        assertEquals(3, assembled.generated());
+        assertTrue(assembled.content().contains("7. "));
+        assertFalse(assembled.content().contains("8. "));
+    }
+
+    @Test
+    void assemble_GeneratedRepeatsBankQuestion_DropsTheRepeat() {
+        storesAll();
+        questionBank.addGenerated(request(3, 1, "Algebra"), GENERATED);
+
+        QuestionBankService.Selection selection = questionBank.select(request(4, 0, "Algebra"));
+        QuestionBankService.Assembled assembled = questionBank.assemble(selection, """
+            SECTION A: 1-Mark Questions
+            1. simplify  3x + 2x.
+            2. Evaluate 3m when m = 4.
+            """);
+
+        assertEquals(3, assembled.fromBank());
+        assertEquals(1, assembled.generated());
+        assertEquals(1, assembled.content().toLowerCase().split("simplify\\s+3x").length - 1);
+        assertTrue(assembled.content().contains("4. Evaluate 3m when m = 4."));
+    }
+
+    @Test
+    void select_OtherTopic_NothingFromBank() {
+        storesAll();
+        questionBank.addGenerated(request(3, 1, "Algebra"), GENERATED);
+
+        QuestionBankService.Selection selection = questionBank.select(request(2, 0, "Fractions"));
+
+        assertEquals(0, selection.fromBank());
+        assertEquals(2, selection.shortfall().getOneMarkQuestions());
+    }
+
+    @Test
+    void loadQuestions_IndexesStoredQuestions() {
+        when(repository.findAll()).thenReturn(List.of(
+            new BankQuestion(1L, 8, "algebra", "HARD", 1, "Simplify 3x + 2x.", "hash-1", LocalDateTime.now())));
+
+        questionBank.loadQuestions();
+
+        QuestionBankService.Selection selection = questionBank.select(request(1, 0, "Algebra"));
+        assertNull(selection.shortfall());
+        assertEquals(List.of("Simplify 3x + 2x."), selection.questions().get(1));
+    }
+}
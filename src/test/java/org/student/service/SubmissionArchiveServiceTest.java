@@ -0,0 +1,189 @@
+package org.student.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.student.dto.SubmissionDTO;
+import org.student.entity.Assignment;
+import org.student.entity.AssignmentSubmission.SubmissionStatus;
+import org.student.exception.ResourceNotFoundException;
+import org.student.repository.AssignmentRepository;
+import org.student.repository.AssignmentSubmissionRepository;
+import org.student.storage.LocalStorageBackend;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SubmissionArchiveServiceTest {
+
+    private static final String PUBLIC_URL = "http://localhost:8080/files";
+
+    private static final LocalDateTime SUBMITTED_AT = LocalDateTime.of(2024, 5, 1, 10, 30);
+    // The manifest gives the server-local timestamp in UTC
+    private static final String SUBMITTED_AT_UTC = SUBMITTED_AT.atZone(ZoneId.systemDefault())
+        .withZoneSameInstant(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private AssignmentSubmissionRepository submissionRepository;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private LocalStorageBackend storage;
+    private SubmissionArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Slow downloads, so several overlap and the limit on how many run at once is visible
+        storage = new LocalStorageBackend(tempDir.resolve("storage"), PUBLIC_URL) {
+            @Override
+            public InputStream open(String objectKey) throws IOException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                    return super.open(objectKey);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+        archiveService = new SubmissionArchiveService(assignmentRepository, submissionRepository, storage, 2, 4);
+    }
+
+    private String store(String key, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return storage.store(key, new ByteArrayInputStream(bytes), bytes.length, "application/pdf");
+    }
+
+    private static SubmissionDTO submission(long id, String name, String attachmentUrl, Integer marks, String feedback) {
+        return new SubmissionDTO(id, 5L, 100 + id, name, name.toLowerCase().replace(' ', '.') + "@example.com",
+            null, attachmentUrl, SUBMITTED_AT, SubmissionStatus.GRADED, false, marks, feedback);
+    }
+
+    private static Map<String, String> unzip(byte[] archive) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void writeArchive_EntriesInStudentOrderWithManifest() throws IOException {
+        Assignment assignment = new Assignment();
+        assignment.setId(5L);
+        assignment.setTitle("Fractions: Worksheet 3");
+        assignment.setTotalMarks(20);
+        when(assignmentRepository.findById(5L)).thenReturn(Optional.of(assignment));
+
+        List<SubmissionDTO> submissions = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            String url = store("blobs/0" + i + "/answers" + i + ".pdf", "answers of student " + i);
+            submissions.add(submission(i, "Student " + (char) ('G' - i), url, 10 + i, null));
+        }
+        submissions.add(submission(7, "Asha Verma", "https://drive.example.com/asha", null, "Link, not a file"));
+        submissions.add(submission(8, "Zoya Khan", PUBLIC_URL + "/blobs/ff/missing.pdf", 12, "=SUM(A1)"));
+        when(submissionRepository.findSubmissionDTOsByAssignmentId(5L)).thenReturn(submissions);
+
+        SubmissionArchiveService.SubmissionArchive archive = archiveService.prepareArchive(5L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        archiveService.writeArchive(archive, out);
+
+        assertEquals("assignment-5-fractions-worksheet-3-submissions.zip", archive.filename());
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals(List.of("Student_A_106.pdf", "Student_B_105.pdf", "Student_C_104.pdf", "Student_D_103.pdf",
+            "Student_E_102.pdf", "Student_F_101.pdf", "manifest.csv"), List.copyOf(entries.keySet()));
+        assertEquals("answers of student 6", entries.get("Student_A_106.pdf"));
+        assertEquals("answers of student 1", entries.get("Student_F_101.pdf"));
+
+        String[] manifest = entries.get("manifest.csv").split("\r\n");
+        assertEquals("\uFEFFStudent,Email,Status,Submitted At (UTC),Late,Marks,Total Marks,Feedback,Submission Text,Attachment",
+            manifest[0]);
+        assertEquals("Asha Verma,asha.verma@example.com,GRADED," + SUBMITTED_AT_UTC + ",No,,20,\"Link, not a file\",,"
+            + "https://drive.example.com/asha", manifest[1]);
+        assertEquals("Student A,student.a@example.com,GRADED," + SUBMITTED_AT_UTC + ",No,16,20,,,Student_A_106.pdf", manifest[2]);
+        assertEquals("Zoya Khan,zoya.khan@example.com,GRADED," + SUBMITTED_AT_UTC + ",No,12,20,'=SUM(A1),,"
+            + "Not included (download failed): " + PUBLIC_URL + "/blobs/ff/missing.pdf", manifest[8]);
+
+        assertTrue(maxInFlight.get() > 1, "Downloads should overlap");
+        assertTrue(maxInFlight.get() <= 2, "At most 2 downloads in flight, saw " + maxInFlight.get());
+        assertEquals(0, inFlight.get());
+    }
+
+    @Test
+    void writeArchive_ConcurrentArchives_ShareTheDownloadPool() throws Exception {
+        SubmissionArchiveService sharedPool =
+            new SubmissionArchiveService(assignmentRepository, submissionRepository, storage, 2, 3);
+        List<SubmissionDTO> submissions = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            submissions.add(submission(i, "Student " + i, store("blobs/0" + i + "/answers" + i + ".pdf", "answers " + i), null, null));
+        }
+        SubmissionArchiveService.SubmissionArchive archive =
+            new SubmissionArchiveService.SubmissionArchive("archive.zip", 20, submissions);
+
+        ExecutorService teachers = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<byte[]>> archives = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                archives.add(teachers.submit(() -> {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    sharedPool.writeArchive(archive, out);
+                    return out.toByteArray();
+                }));
+            }
+            for (Future<byte[]> result : archives) {
+                assertEquals(7, unzip(result.get(10, TimeUnit.SECONDS)).size());
+            }
+        } finally {
+            teachers.shutdownNow();
+            sharedPool.shutdown();
+        }
+
+        // Two archives each allowed 2 ahead, but only 3 download threads between them
+        assertTrue(maxInFlight.get() <= 3, "At most 3 downloads in flight, saw " + maxInFlight.get());
+    }
+
+    @Test
+    void prepareArchive_UnknownAssignment_ThrowsNotFound() {
+        when(assignmentRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> archiveService.prepareArchive(9L));
+    }
+}
@@ -0,0 +1,196 @@
+package org.student.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.student.dto.UploadSessionDTO;
+import org.student.entity.UploadSession;
+import org.student.exception.ResourceNotFoundException;
+import org.student.exception.UploadOffsetConflictException;
+import org.student.repository.StoredBlobRepository;
+import org.student.repository.UploadSessionRepository;
+import org.student.storage.LocalStorageBackend;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Chunked uploads into a temp directory, completed through a real {@link FileStorageService}
+ * on the local backend.
+ */
+class UploadSessionServiceTest {
+
+    private static final Long STUDENT_ID = 42L;
+    private static final String PDF = "application/pdf";
+
+    @TempDir
+    Path tempDir;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private LocalStorageBackend storage;
+    private UploadSessionService uploadSessionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // The repository keeps sessions in a map, like the upload_sessions table
+        UploadSessionRepository sessionRepository = mock(UploadSessionRepository.class);
+        lenient().when(sessionRepository.save(any())).thenAnswer(inv -> {
+            UploadSession session = inv.getArgument(0);
+            sessions.put(session.getId(), copy(session));
+            return session;
+        });
+        lenient().when(sessionRepository.findByIdAndUserId(anyString(), any())).thenAnswer(inv ->
+            Optional.ofNullable(sessions.get(inv.<String>getArgument(0)))
+                .filter(s -> s.getUserId().equals(inv.getArgument(1)))
+                .map(UploadSessionServiceTest::copy));
+        lenient().when(sessionRepository.advanceOffset(anyString(), anyLong(), anyLong(), any())).thenAnswer(inv -> {
+            UploadSession session = sessions.get(inv.<String>getArgument(0));
+            if (session == null || !session.getReceivedBytes().equals(inv.getArgument(1))) {
+                return 0;
+            }
+            session.setReceivedBytes(inv.getArgument(2));
+            session.setUpdatedAt(inv.getArgument(3));
+            return 1;
+        });
+        lenient().when(sessionRepository.existsById(anyString()))
+            .thenAnswer(inv -> sessions.containsKey(inv.<String>getArgument(0)));
+        lenient().when(sessionRepository.findByUpdatedAtBefore(any())).thenAnswer(inv -> sessions.values().stream()
+            .filter(s -> s.getUpdatedAt().isBefore(inv.getArgument(0)))
+            .toList());
+        lenient().doAnswer(inv -> sessions.remove(inv.<String>getArgument(0)))
+            .when(sessionRepository).deleteById(anyString());
+
+        storage = new LocalStorageBackend(tempDir.resolve("storage"), "http://localhost:8080/files");
+        FileStorageService fileStorageService = new FileStorageService(storage, mock(StoredBlobRepository.class));
+        uploadSessionService = new UploadSessionService(
+            fileStorageService, sessionRepository, tempDir.resolve("uploads").toString(), 24);
+    }
+
+    private static UploadSession copy(UploadSession s) {
+        return new UploadSession(s.getId(), s.getUserId(), s.getFilename(), s.getContentType(),
+            s.getTotalSize(), s.getReceivedBytes(), s.getCreatedAt(), s.getUpdatedAt());
+    }
+
+    private static byte[] pdf(int size) {
+        byte[] content = new byte[size];
+        new Random(7).nextBytes(content);
+        return content;
+    }
+
+    @Test
+    void appendChunk_DroppedConnection_KeepsReceivedBytesAndResumes() throws IOException {
+        byte[] content = pdf(300_000);
+        String id = uploadSessionService.createSession(STUDENT_ID, "answers.pdf", PDF, content.length).getId();
+
+        // First chunk: the connection drops after 100,000 of its 200,000 bytes
+        InputStream dropping = new InputStream() {
+            private final InputStream delegate = new ByteArrayInputStream(content, 0, 100_000);
+
+            @Override
+            public int read() throws IOException {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = delegate.read(b, off, len);
+                if (read == -1) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+        assertThrows(IOException.class, () -> uploadSessionService.appendChunk(STUDENT_ID, id, 0, dropping));
+        assertEquals(100_000L, uploadSessionService.getSession(STUDENT_ID, id).getOffset());
+
+        // A retry of the whole chunk from 0 is refused with the offset to resume from
+        UploadOffsetConflictException conflict = assertThrows(UploadOffsetConflictException.class,
+            () -> uploadSessionService.appendChunk(STUDENT_ID, id, 0, new ByteArrayInputStream(content)));
+        assertEquals(100_000L, conflict.getCurrentOffset());
+
+        UploadSessionDTO resumed = uploadSessionService.appendChunk(STUDENT_ID, id, 100_000,
+            new ByteArrayInputStream(content, 100_000, 200_000));
+        assertEquals(300_000L, resumed.getOffset());
+
+        String url = uploadSessionService.complete(STUDENT_ID, id);
+
+        String objectKey = storage.objectKeyOf(url);
+        assertTrue(objectKey.startsWith("blobs/") && objectKey.endsWith(".pdf"));
+        assertArrayEquals(content, Files.readAllBytes(storage.locate(objectKey)));
+        assertTrue(sessions.isEmpty());
+        assertEquals(List.of(), Arrays.asList(tempDir.resolve("uploads").toFile().list()));
+    }
+
+    @Test
+    void complete_BeforeAllBytesArrive_IsRefused() throws IOException {
+        String id = uploadSessionService.createSession(STUDENT_ID, "answers.pdf", PDF, 1000).getId();
+        uploadSessionService.appendChunk(STUDENT_ID, id, 0, new ByteArrayInputStream(pdf(400)));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+            () -> uploadSessionService.complete(STUDENT_ID, id));
+        assertEquals("Upload incomplete: 400 of 1000 bytes received", ex.getMessage());
+    }
+
+    @Test
+    void appendChunk_PastDeclaredSize_IsRefused() throws IOException {
+        String id = uploadSessionService.createSession(STUDENT_ID, "answers.pdf", PDF, 1000).getId();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> uploadSessionService.appendChunk(STUDENT_ID, id, 0, new ByteArrayInputStream(pdf(1001))));
+        assertTrue(uploadSessionService.getSession(STUDENT_ID, id).getOffset() <= 1000);
+    }
+
+    @Test
+    void createSession_OversizedOrWrongType_IsRefusedUpFront() {
+        assertThrows(IllegalArgumentException.class,
+            () -> uploadSessionService.createSession(STUDENT_ID, "big.pdf", PDF, 11 * 1024 * 1024));
+        assertThrows(IllegalArgumentException.class,
+            () -> uploadSessionService.createSession(STUDENT_ID, "run.exe", "application/x-msdownload", 1000));
+        assertTrue(sessions.isEmpty());
+    }
+
+    @Test
+    void getSession_OtherUsersSession_IsNotFound() throws IOException {
+        String id = uploadSessionService.createSession(STUDENT_ID, "answers.pdf", PDF, 1000).getId();
+
+        assertThrows(ResourceNotFoundException.class, () -> uploadSessionService.getSession(7L, id));
+        assertThrows(ResourceNotFoundException.class,
+            () -> uploadSessionService.appendChunk(7L, id, 0, new ByteArrayInputStream(pdf(10))));
+    }
+
+    @Test
+    void purgeAbandoned_RemovesIdleSessionsAndStrayFiles() throws IOException {
+        String idle = uploadSessionService.createSession(STUDENT_ID, "old.pdf", PDF, 1000).getId();
+        String active = uploadSessionService.createSession(STUDENT_ID, "new.pdf", PDF, 1000).getId();
+        sessions.get(idle).setUpdatedAt(LocalDateTime.now().minusHours(25));
+        Path stray = Files.writeString(tempDir.resolve("uploads").resolve("orphan.part"), "left behind");
+        Files.setLastModifiedTime(stray, FileTime.from(Instant.now().minusSeconds(25 * 3600)));
+
+        assertEquals(2, uploadSessionService.purgeAbandoned());
+
+        assertEquals(List.of(active), List.copyOf(sessions.keySet()));
+        assertFalse(Files.exists(stray));
+        assertFalse(Files.exists(tempDir.resolve("uploads").resolve(idle + ".part")));
+        assertTrue(Files.exists(tempDir.resolve("uploads").resolve(active + ".part")));
+    }
+}
@@ -0,0 +1,147 @@
+package org.student.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.student.dto.FileReference;
+import org.student.entity.StoredBlob;
+import org.student.repository.AssignmentRepository;
+import org.student.repository.AssignmentSubmissionRepository;
+import org.student.repository.LearningMaterialRepository;
+import org.student.repository.StoredBlobRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrphanedBlobCollectorTest {
+
+    private static final String PUBLIC_URL = "http://localhost:8080/files";
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private StoredBlobRepository blobRepository;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private AssignmentSubmissionRepository submissionRepository;
+
+    @Mock
+    private LearningMaterialRepository materialRepository;
+
+    private LocalStorageBackend storage;
+    private SimpleMeterRegistry meterRegistry;
+    private OrphanedBlobCollector collector;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new LocalStorageBackend(tempDir.resolve("storage"), PUBLIC_URL);
+        meterRegistry = new SimpleMeterRegistry();
+        // Batches of 2 and one delete per drain, so paging and the rate limit are both exercised
+        collector = new OrphanedBlobCollector(storage, blobRepository, assignmentRepository,
+            submissionRepository, materialRepository, meterRegistry, true, 24, 2, 1, 100);
+        lenient().when(assignmentRepository.findFileReferencesAfter(anyLong(), any())).thenReturn(List.of());
+        lenient().when(submissionRepository.findFileReferencesAfter(anyLong(), any())).thenReturn(List.of());
+        lenient().when(materialRepository.findFileReferencesAfter(anyLong(), any())).thenReturn(List.of());
+    }
+
+    private StoredBlob blob(String sha256, int size) throws IOException {
+        String key = "blobs/" + sha256.substring(0, 2) + "/" + sha256 + ".pdf";
+        String url = storage.store(key, new ByteArrayInputStream(new byte[size]), size, "application/pdf");
+        LocalDateTime created = LocalDateTime.now().minusDays(3);
+        return new StoredBlob(sha256, key, url, (long) size, "application/pdf", 0, created, created);
+    }
+
+    @Test
+    void reconcile_QueuesUnreferencedBlobsAndDrainsAtFixedRate() throws IOException {
+        StoredBlob stillReferenced = blob("aa01", 10);
+        StoredBlob orphan1 = blob("bb02", 500);
+        StoredBlob orphan2 = blob("cc03", 400);
+        // No stored_blobs row: never a candidate, whatever the URL columns say
+        storage.store("assignments/20240101_old.pdf", new ByteArrayInputStream(new byte[30]), 30, "application/pdf");
+
+        // Candidates span two pages; aa01's count says unreferenced but an assignment still has it
+        when(blobRepository.findUnreferencedBefore(any(), eq(""), any())).thenReturn(List.of(stillReferenced, orphan1));
+        when(blobRepository.findUnreferencedBefore(any(), eq("bb02"), any())).thenReturn(List.of(orphan2));
+        when(assignmentRepository.findFileReferencesAfter(eq(0L), any()))
+            .thenReturn(List.of(new FileReference(1L, "https://drive.example.com/x"), new FileReference(2L, stillReferenced.getUrl())));
+        when(assignmentRepository.findFileReferencesAfter(eq(2L), any())).thenReturn(List.of());
+        when(blobRepository.deleteIfUnreferencedSince(anyString(), any())).thenReturn(1);
+
+        // Act
+        int queued = collector.reconcile();
+
+        // Assert
+        assertEquals(2, queued);
+        assertEquals(2, collector.getPendingDeletes());
+        verify(assignmentRepository).findFileReferencesAfter(2L, Limit.of(2));
+
+        collector.drainDeletes();
+        assertEquals(1, collector.getPendingDeletes());
+        collector.drainDeletes();
+        assertEquals(0, collector.getPendingDeletes());
+
+        assertNull(storage.locate("blobs/bb/bb02.pdf"));
+        assertNull(storage.locate("blobs/cc/cc03.pdf"));
+        assertNotNull(storage.locate("blobs/aa/aa01.pdf"));
+        assertNotNull(storage.locate("assignments/20240101_old.pdf"));
+        verify(blobRepository, never()).deleteIfUnreferencedSince(eq("aa01"), any());
+        assertEquals(900.0, meterRegistry.get("storage.gc.reclaimed").counter().count());
+        assertEquals(2.0, meterRegistry.get("storage.gc.deleted").counter().count());
+    }
+
+    @Test
+    void reconcile_UrlBackendCannotParse_StillKeptByCrossCheck() throws IOException {
+        // e.g. written before a host or CDN change: the key cannot be recovered from the URL
+        StoredBlob blob = blob("ee05", 10);
+        blob.setUrl("https://old-cdn.example.com/blobs/ee/ee05.pdf");
+        when(blobRepository.findUnreferencedBefore(any(), eq(""), any())).thenReturn(List.of(blob));
+        when(materialRepository.findFileReferencesAfter(eq(0L), any()))
+            .thenReturn(List.of(new FileReference(3L, "https://old-cdn.example.com/blobs/ee/ee05.pdf")));
+
+        assertEquals(0, collector.reconcile());
+        assertNotNull(storage.locate("blobs/ee/ee05.pdf"));
+    }
+
+    @Test
+    void drainDeletes_BlobTouchedSinceScan_IsKept() throws IOException {
+        StoredBlob blob = blob("dd04", 50);
+        when(blobRepository.findUnreferencedBefore(any(), eq(""), any())).thenReturn(List.of(blob));
+        when(blobRepository.deleteIfUnreferencedSince(eq("dd04"), any())).thenReturn(0);
+
+        assertEquals(1, collector.reconcile());
+        collector.drainDeletes();
+
+        assertNotNull(storage.locate("blobs/dd/dd04.pdf"));
+        assertEquals(0.0, meterRegistry.get("storage.gc.reclaimed").counter().count());
+    }
+
+    @Test
+    void reconcile_BlobAlreadyQueued_IsNotQueuedTwice() throws IOException {
+        StoredBlob blob = blob("ff06", 10);
+        when(blobRepository.findUnreferencedBefore(any(), eq(""), any())).thenReturn(List.of(blob));
+
+        assertEquals(1, collector.reconcile());
+        assertEquals(0, collector.reconcile());
+        assertEquals(1, collector.getPendingDeletes());
+    }
+}